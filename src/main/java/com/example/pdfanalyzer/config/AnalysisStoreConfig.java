@@ -0,0 +1,49 @@
+package com.example.pdfanalyzer.config;
+
+import com.example.pdfanalyzer.service.AnalysisStore;
+import com.example.pdfanalyzer.service.AnalysisStoreCache;
+import com.example.pdfanalyzer.service.FileSystemAnalysisStore;
+import com.example.pdfanalyzer.service.RedisAnalysisStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.support.AbstractCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.List;
+
+@Configuration
+public class AnalysisStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "app.store.type", havingValue = "filesystem", matchIfMissing = true)
+    public AnalysisStore fileSystemAnalysisStore(StoreProperties properties, ObjectMapper objectMapper) {
+        return new FileSystemAnalysisStore(properties, objectMapper);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.store.type", havingValue = "redis")
+    public AnalysisStore redisAnalysisStore(StringRedisTemplate redis, StoreProperties properties,
+            ObjectMapper objectMapper) {
+        return new RedisAnalysisStore(redis, properties, objectMapper);
+    }
+
+    @Bean
+    public CacheManager cacheManager(AnalysisStore store) {
+        return new AbstractCacheManager() {
+            @Override
+            protected Collection<? extends Cache> loadCaches() {
+                return List.of();
+            }
+
+            @Override
+            protected Cache getMissingCache(String name) {
+                return new AnalysisStoreCache(name, store);
+            }
+        };
+    }
+}
@@ -4,30 +4,69 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.ai.model.Model;
 import org.springframework.ai.openai.OpenAiChatModel;
+import org.springframework.ai.openai.OpenAiEmbeddingModel;
 import org.springframework.ai.anthropic.AnthropicChatModel;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
 
+/**
+ * The LLM and embedding clients are lazy, and so are the services' references to them: they are built on the
+ * first call, so runs that never reach an LLM (the CLI, jobs) do not pay for them. That includes the models
+ * Spring AI auto-configures, which would otherwise be created at startup in every mode; the unused Azure OpenAI
+ * auto-configuration is excluded in {@code application.yml}. Analysis requests embed their chunks in the
+ * background while {@code app.embedding.enabled} is set.
+ */
 @Configuration
 public class AzureAiConfig {
 
     @Bean
+    @Lazy
     @Primary
+    @Profile("!fake-llm")
     @Qualifier("openai")
     public ChatClient openAiChatClient(OpenAiChatModel openAiChatModel) {
         return ChatClient.builder(openAiChatModel).build();
     }
 
     @Bean
+    @Lazy
+    @Profile("!fake-llm")
     @Qualifier("anthropic")
     public ChatClient anthropicChatClient(AnthropicChatModel anthropicChatModel) {
         return ChatClient.builder(anthropicChatModel).build();
     }
 
+    @Bean
+    @Lazy
+    @Profile("!fake-llm")
+    @Qualifier("chunks")
+    public EmbeddingModel chunkEmbeddingModel(OpenAiEmbeddingModel openAiEmbeddingModel) {
+        return openAiEmbeddingModel;
+    }
+
+    /**
+     * Marks every Spring AI model bean (chat, embedding, image, audio, moderation) lazy.
+     */
+    @Bean
+    public static BeanFactoryPostProcessor lazyAiModels() {
+        return beanFactory -> {
+            for (String name : beanFactory.getBeanDefinitionNames()) {
+                Class<?> type = beanFactory.getType(name, false);
+                if (type != null && Model.class.isAssignableFrom(type)) {
+                    beanFactory.getBeanDefinition(name).setLazyInit(true);
+                }
+            }
+        };
+    }
+
     @Bean
     public ObjectMapper objectMapper() {
         ObjectMapper mapper = new ObjectMapper();
@@ -0,0 +1,10 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.cleanup")
+public record CleanupProperties(
+        String model,
+        boolean jsonMode,
+        int maxRetries) {
+}
@@ -0,0 +1,12 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.dedup")
+public record DedupProperties(
+        boolean enabled,
+        double documentThreshold,
+        double sectionThreshold,
+        int maxSections,
+        String storeDir) {
+}
@@ -0,0 +1,12 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.document-type")
+public record DocumentTypeProperties(
+        double confidenceThreshold,
+        double shadowSampleRate,
+        String modelPath,
+        int evidenceTokens,
+        long saveIntervalMs) {
+}
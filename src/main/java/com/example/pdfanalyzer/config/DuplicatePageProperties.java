@@ -0,0 +1,13 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.duplicate-pages")
+public record DuplicatePageProperties(
+        boolean enabled,
+        float renderDpi,
+        double blankInkRatio,
+        int maxHashDistance,
+        float confirmDpi,
+        int maxDiffPixels) {
+}
@@ -0,0 +1,14 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.embedding")
+public record EmbeddingProperties(
+        boolean enabled,
+        int batchSize,
+        String indexDir,
+        int m,
+        int efConstruction,
+        int efSearch,
+        long saveIntervalMs) {
+}
@@ -0,0 +1,40 @@
+package com.example.pdfanalyzer.config;
+
+import com.example.pdfanalyzer.service.FakeChatModel;
+import com.example.pdfanalyzer.service.FakeEmbeddingModel;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Replaces the OpenAI and Anthropic chat clients with {@link FakeChatModel} and the chunk
+ * embedding model with {@link FakeEmbeddingModel}, so the LLM paths can run and be benchmarked
+ * without API keys.
+ */
+@Configuration
+@Profile("fake-llm")
+public class FakeLlmConfig {
+
+    @Bean
+    @Primary
+    @Qualifier("openai")
+    public ChatClient openAiChatClient(FakeLlmProperties properties) {
+        return ChatClient.builder(new FakeChatModel("fake-openai", properties)).build();
+    }
+
+    @Bean
+    @Qualifier("anthropic")
+    public ChatClient anthropicChatClient(FakeLlmProperties properties) {
+        return ChatClient.builder(new FakeChatModel("fake-anthropic", properties)).build();
+    }
+
+    @Bean
+    @Qualifier("chunks")
+    public EmbeddingModel chunkEmbeddingModel(FakeLlmProperties properties) {
+        return new FakeEmbeddingModel(Math.max(8, properties.embeddingDimensions()));
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.llm.fake")
+public record FakeLlmProperties(
+        long seed,
+        long latencyMedianMs,
+        double latencySigma,
+        double tokensPerChar,
+        double failureRate,
+        int streamFragments,
+        int embeddingDimensions) {
+}
@@ -0,0 +1,11 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.full-text")
+public record FullTextIndexProperties(
+        boolean enabled,
+        String indexDir,
+        int maxSegments,
+        int mergeFactor) {
+}
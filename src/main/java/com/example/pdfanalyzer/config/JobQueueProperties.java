@@ -0,0 +1,12 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.jobs")
+public record JobQueueProperties(
+        boolean enabled,
+        String dir,
+        int workers,
+        int maxAttempts,
+        long retryDelayMs) {
+}
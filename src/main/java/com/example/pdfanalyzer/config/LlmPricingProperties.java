@@ -0,0 +1,15 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.llm.pricing")
+public record LlmPricingProperties(
+        Map<String, Price> models) {
+
+    public record Price(
+            double promptPer1k,
+            double completionPer1k) {
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.llm.routing")
+public record LlmRoutingProperties(
+        String preferred,
+        long hedgeDelayMs,
+        long hedgeDelayMinMs,
+        long hedgeDelayMaxMs,
+        long timeoutMs,
+        int windowSize,
+        double maxErrorRate,
+        double latencyTolerance,
+        long priorP95Ms) {
+}
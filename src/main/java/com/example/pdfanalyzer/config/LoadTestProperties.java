@@ -0,0 +1,11 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.load-test")
+public record LoadTestProperties(
+        String operation,
+        double targetRps,
+        int durationSeconds,
+        int sectionsPerRequest) {
+}
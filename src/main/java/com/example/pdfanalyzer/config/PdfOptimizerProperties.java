@@ -0,0 +1,12 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.pdf-optimizer")
+public record PdfOptimizerProperties(
+        boolean enabled,
+        int targetDpi,
+        float jpegQuality,
+        boolean stripMetadata,
+        boolean dedupe) {
+}
@@ -0,0 +1,10 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.profiler")
+public record ProfilerProperties(
+        double diCostPerPage,
+        long heavyImageBytes,
+        int parallelism) {
+}
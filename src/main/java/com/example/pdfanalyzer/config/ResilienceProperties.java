@@ -0,0 +1,23 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "app.resilience")
+public record ResilienceProperties(
+        Map<String, Limits> dependencies) {
+
+    public record Limits(
+            int maxConcurrentCalls,
+            long maxWaitMs,
+            int windowSize,
+            int minimumCalls,
+            float failureRateThreshold,
+            long slowCallMs,
+            float slowCallRateThreshold,
+            long openStateMs) {
+
+        public static final Limits DEFAULT = new Limits(8, 500, 20, 5, 50, 60_000, 80, 30_000);
+    }
+}
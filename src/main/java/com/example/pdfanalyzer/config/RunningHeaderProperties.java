@@ -0,0 +1,12 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.running-headers")
+public record RunningHeaderProperties(
+        boolean enabled,
+        int edgeSections,
+        int minPages,
+        double minPageRatio,
+        int maxLength) {
+}
@@ -0,0 +1,66 @@
+package com.example.pdfanalyzer.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.RuntimeMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * Logs startup time and resident memory once the context is up, before any runner starts, so the regular and
+ * the fast-start build (Spring AOT + CDS, see README) can be compared in every mode. With
+ * {@code app.startup.exit-after-start} the application exits right after the report.
+ */
+@Component
+public class StartupReporter {
+
+    private static final Logger log = LoggerFactory.getLogger(StartupReporter.class);
+    private static final Path PROC_STATUS = Path.of("/proc/self/status");
+
+    private final boolean exitAfterStart;
+
+    public StartupReporter(@Value("${app.startup.exit-after-start:false}") boolean exitAfterStart) {
+        this.exitAfterStart = exitAfterStart;
+    }
+
+    @EventListener
+    public void report(ApplicationStartedEvent event) {
+        RuntimeMXBean runtime = ManagementFactory.getRuntimeMXBean();
+        boolean cds = runtime.getInputArguments().stream()
+                .anyMatch(argument -> argument.startsWith("-XX:SharedArchiveFile"));
+        log.info("Startup: context {} ms, JVM {} ms, RSS {}, AOT {}, CDS {}, profiles {}",
+                event.getTimeTaken().toMillis(), runtime.getUptime(), residentMemory(),
+                AotDetector.useGeneratedArtifacts() ? "on" : "off", cds ? "on" : "off",
+                Arrays.toString(event.getApplicationContext().getEnvironment().getActiveProfiles()));
+
+        if (exitAfterStart) {
+            System.exit(SpringApplication.exit(event.getApplicationContext()));
+        }
+    }
+
+    private static String residentMemory() {
+        // Linux only; elsewhere the heap in use is the closest cheap figure
+        try {
+            for (String line : Files.readAllLines(PROC_STATUS)) {
+                if (line.startsWith("VmRSS:")) {
+                    long kb = Long.parseLong(line.replaceAll("\\D", ""));
+                    return kb / 1024 + " MB";
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // Fall through
+        }
+        Runtime jvm = Runtime.getRuntime();
+        return "n/a (heap " + (jvm.totalMemory() - jvm.freeMemory()) / (1024 * 1024) + " MB)";
+    }
+}
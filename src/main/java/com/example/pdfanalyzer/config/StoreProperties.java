@@ -0,0 +1,15 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.store")
+public record StoreProperties(
+        String type,
+        String dir,
+        String resultsDir,
+        long cacheTtlHours,
+        long resultTtlHours,
+        long inFlightLeaseMs,
+        long inFlightPollMs,
+        String keyPrefix) {
+}
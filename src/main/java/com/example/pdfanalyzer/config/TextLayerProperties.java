@@ -0,0 +1,12 @@
+package com.example.pdfanalyzer.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "app.text-layer")
+public record TextLayerProperties(
+        boolean enabled,
+        int minChars,
+        double minMappedRatio,
+        double minLetterRatio,
+        double maxImageCoverage) {
+}
@@ -1,22 +1,52 @@
 package com.example.pdfanalyzer.controller;
 
+import com.example.pdfanalyzer.dto.ChunkSearchResult;
 import com.example.pdfanalyzer.dto.ChunkedAnalysisResponse;
 import com.example.pdfanalyzer.dto.DocumentAnalysisResponse;
+import com.example.pdfanalyzer.dto.DuplicateMatch;
+import com.example.pdfanalyzer.dto.HealthResponse;
+import com.example.pdfanalyzer.dto.SectionSearchHit;
+import com.example.pdfanalyzer.dto.YamlConversionReport;
+import com.example.pdfanalyzer.model.AnalysisJob;
 import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.DocumentProfile;
+import com.example.pdfanalyzer.model.EnrichedSection;
+import com.example.pdfanalyzer.model.PageSelection;
+import com.example.pdfanalyzer.model.QualityMetrics;
+import com.example.pdfanalyzer.model.TableData;
+import com.example.pdfanalyzer.service.AnalysisStore;
+import com.example.pdfanalyzer.service.ChunkEmbeddingService;
 import com.example.pdfanalyzer.service.ChunkedDocumentAnalysisService;
+import com.example.pdfanalyzer.service.DependencyGuard;
+import com.example.pdfanalyzer.service.DependencyUnavailableException;
+import com.example.pdfanalyzer.service.DocumentCleanupService;
 import com.example.pdfanalyzer.service.DocumentAnalysisService;
 import com.example.pdfanalyzer.service.DocumentProcessingService;
+import com.example.pdfanalyzer.service.DocumentProfiler;
+import com.example.pdfanalyzer.service.FullTextIndexService;
+import com.example.pdfanalyzer.service.JobQueueService;
+import com.example.pdfanalyzer.service.LlmUsageRecorder;
+import com.example.pdfanalyzer.service.NearDuplicateService;
 import com.example.pdfanalyzer.service.MarkdownExportService;
+import com.example.pdfanalyzer.service.SparseTable;
 import com.example.pdfanalyzer.service.YamlExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -24,6 +54,8 @@ import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/v1")
@@ -31,6 +63,7 @@ public class DocumentController {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentController.class);
     private static final String OUTPUT_DIR = "output";
+    private static final String MARKDOWN = "text/markdown;charset=UTF-8";
     private static final DateTimeFormatter TIMESTAMP_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss")
             .withZone(ZoneId.systemDefault());
 
@@ -39,6 +72,15 @@ public class DocumentController {
     private final DocumentProcessingService processingService;
     private final MarkdownExportService markdownService;
     private final YamlExportService yamlExportService;
+    private final DocumentCleanupService cleanupService;
+    private final LlmUsageRecorder usageRecorder;
+    private final ChunkEmbeddingService embeddingService;
+    private final FullTextIndexService fullTextIndexService;
+    private final NearDuplicateService nearDuplicateService;
+    private final DocumentProfiler documentProfiler;
+    private final DependencyGuard dependencyGuard;
+    private final JobQueueService jobQueueService;
+    private final AnalysisStore store;
     private final ObjectMapper objectMapper;
 
     public DocumentController(DocumentAnalysisService analysisService,
@@ -46,12 +88,30 @@ public class DocumentController {
             DocumentProcessingService processingService,
             MarkdownExportService markdownService,
             YamlExportService yamlExportService,
+            DocumentCleanupService cleanupService,
+            LlmUsageRecorder usageRecorder,
+            ChunkEmbeddingService embeddingService,
+            FullTextIndexService fullTextIndexService,
+            NearDuplicateService nearDuplicateService,
+            DocumentProfiler documentProfiler,
+            DependencyGuard dependencyGuard,
+            JobQueueService jobQueueService,
+            AnalysisStore store,
             ObjectMapper objectMapper) {
         this.analysisService = analysisService;
         this.chunkedAnalysisService = chunkedAnalysisService;
         this.processingService = processingService;
         this.markdownService = markdownService;
         this.yamlExportService = yamlExportService;
+        this.cleanupService = cleanupService;
+        this.usageRecorder = usageRecorder;
+        this.embeddingService = embeddingService;
+        this.fullTextIndexService = fullTextIndexService;
+        this.nearDuplicateService = nearDuplicateService;
+        this.documentProfiler = documentProfiler;
+        this.dependencyGuard = dependencyGuard;
+        this.jobQueueService = jobQueueService;
+        this.store = store;
         this.objectMapper = objectMapper;
         initOutputDirectory();
     }
@@ -70,9 +130,11 @@ public class DocumentController {
 
     @PostMapping(value = "/documents/analyze", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<DocumentAnalysisResponse> analyzeDocument(
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "pages", required = false) String pages) {
 
         log.info("Analyzing document: {}", file.getOriginalFilename());
+        PageSelection selection = PageSelection.parse(pages);
 
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -88,11 +150,19 @@ public class DocumentController {
             Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
 
             try {
-                // Analyze document
-                AnalysisResult result = analysisService.analyzeDocument(tempFile);
+                // Analyze document, or reuse the analysis of a near-identical one
+                AnalysisOutcome outcome = analyzeOrReuse(tempFile, file.getOriginalFilename(), selection);
+                AnalysisResult result = outcome.result();
+
+                if (!outcome.reused() && fullTextIndexService.isEnabled()) {
+                    fullTextIndexService.indexDocumentAsync(file.getOriginalFilename(), result.sections());
+                }
 
                 // Generate chunks
                 var chunks = processingService.processAndChunk(result);
+                if (embeddingService.isEnabled()) {
+                    embeddingService.indexChunksAsync(chunks);
+                }
 
                 // Generate markdown
                 String markdown = markdownService.exportToMarkdownString(result);
@@ -103,8 +173,11 @@ public class DocumentController {
                         .pageCount(result.pageCount())
                         .sections(result.sections())
                         .chunks(chunks)
+                        .outline(processingService.buildOutline(chunks))
                         .qualityMetrics(result.quality())
+                        .pageSources(result.pageSources())
                         .markdown(markdown)
+                        .duplicateOf(outcome.duplicateOf())
                         .build();
 
                 // Save to output directory
@@ -121,6 +194,8 @@ public class DocumentController {
         } catch (IOException e) {
             log.error("Error processing file: {}", file.getOriginalFilename(), e);
             return ResponseEntity.internalServerError().build();
+        } catch (IllegalArgumentException | DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error analyzing document: {}", file.getOriginalFilename(), e);
             return ResponseEntity.internalServerError().build();
@@ -129,9 +204,13 @@ public class DocumentController {
 
     @PostMapping(value = "/documents/analyze-chunked", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
     public ResponseEntity<ChunkedAnalysisResponse> analyzeDocumentChunked(
-            @RequestParam("file") MultipartFile file) {
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "pages", required = false) String pages,
+            @RequestParam(value = "classify", defaultValue = "false") boolean classify,
+            @RequestParam(value = "cleanup", defaultValue = "false") boolean cleanup) {
 
         log.info("Analyzing document in chunks: {}", file.getOriginalFilename());
+        PageSelection selection = PageSelection.parse(pages);
 
         if (file.isEmpty()) {
             return ResponseEntity.badRequest().build();
@@ -146,9 +225,15 @@ public class DocumentController {
             Path tempFile = Files.createTempFile("upload-", ".pdf");
             Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
 
-            try {
+            try (LlmUsageRecorder.UsageScope usage = usageRecorder.openScope()) {
                 // Analyze document in chunks
-                ChunkedAnalysisResponse response = chunkedAnalysisService.analyzeDocumentInChunks(tempFile);
+                ChunkedAnalysisResponse response = chunkedAnalysisService.analyzeDocumentInChunks(tempFile, selection);
+                if (classify || cleanup) {
+                    response = classifyChunked(response, file.getOriginalFilename(), classify, cleanup, usage);
+                }
+                if (fullTextIndexService.isEnabled()) {
+                    fullTextIndexService.indexDocumentAsync(file.getOriginalFilename(), response.sections());
+                }
 
                 // Save to output directory
                 saveChunkedOutputFiles(response, file.getOriginalFilename());
@@ -164,43 +249,193 @@ public class DocumentController {
         } catch (IOException e) {
             log.error("Error processing file: {}", file.getOriginalFilename(), e);
             return ResponseEntity.internalServerError().build();
+        } catch (IllegalArgumentException | DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Unexpected error analyzing document: {}", file.getOriginalFilename(), e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
-    @GetMapping("/health")
-    public ResponseEntity<String> health() {
-        return ResponseEntity.ok("OK");
+    @PostMapping(value = "/documents/analyze-chunked/markdown", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MARKDOWN)
+    public ResponseEntity<StreamingResponseBody> analyzeDocumentChunkedMarkdown(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "pages", required = false) String pages) throws IOException {
+
+        log.info("Streaming chunked markdown for: {}", file.getOriginalFilename());
+        PageSelection selection = PageSelection.parse(pages);
+
+        if (file.isEmpty() || !isPdfFile(file)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        Path tempFile = Files.createTempFile("upload-", ".pdf");
+        Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+        // Each chunk's markdown is written to the response as soon as it is analyzed
+        StreamingResponseBody body = out -> {
+            try {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                chunkedAnalysisService.analyzeDocumentInChunks(tempFile, selection, writer);
+                writer.flush();
+            } finally {
+                Files.deleteIfExists(tempFile);
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(MARKDOWN)).body(body);
     }
 
-    @PostMapping("/documents/convert-to-yaml")
-    public ResponseEntity<String> convertJsonToYaml(@RequestParam("filename") String filename) {
-        log.info("Converting JSON to YAML: {}", filename);
+    @PostMapping(value = "/documents/profile", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<DocumentProfile> profileDocument(@RequestParam("file") MultipartFile file) {
+        log.info("Profiling document: {}", file.getOriginalFilename());
+
+        if (file.isEmpty() || !isPdfFile(file)) {
+            return ResponseEntity.badRequest().build();
+        }
 
         try {
-            // Find JSON file in output directory
-            Path jsonPath = Paths.get(OUTPUT_DIR, filename);
+            return ResponseEntity.ok(documentProfiler.profile(file.getOriginalFilename(), file.getBytes()));
+        } catch (IOException e) {
+            log.error("Error profiling file: {}", file.getOriginalFilename(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            if (!Files.exists(jsonPath)) {
-                log.warn("File not found: {}", jsonPath);
-                return ResponseEntity.notFound().build();
-            }
+    @PostMapping(value = "/jobs", consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AnalysisJob> submitJob(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "pages", required = false) String pages) throws IOException {
+
+        log.info("Queueing chunked analysis job for: {}", file.getOriginalFilename());
+        PageSelection selection = PageSelection.parse(pages);
+
+        if (!jobQueueService.isEnabled()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (file.isEmpty() || !isPdfFile(file)) {
+            return ResponseEntity.badRequest().build();
+        }
 
-            if (!filename.endsWith(".json")) {
-                return ResponseEntity.badRequest().body("File must be a JSON file");
+        AnalysisJob job = jobQueueService.submit(file.getOriginalFilename(), file.getInputStream(), selection);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping(value = "/jobs/{id}", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AnalysisJob> getJob(@PathVariable("id") String id) throws IOException {
+        return ResponseEntity.of(jobQueueService.find(id));
+    }
+
+    @GetMapping(value = "/jobs/{id}/result", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Resource> getJobResult(@PathVariable("id") String id) throws IOException {
+        Optional<Path> result = jobQueueService.resultFile(id);
+        if (result.isPresent()) {
+            return ResponseEntity.ok(new FileSystemResource(result.get()));
+        }
+        // Known but unfinished jobs answer 409 so pollers can tell them from unknown ids
+        return jobQueueService.find(id).isPresent()
+                ? ResponseEntity.status(HttpStatus.CONFLICT).build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping(value = "/documents/tables", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<?> extractTables(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(value = "format", defaultValue = "json") String format,
+            @RequestParam(value = "table", defaultValue = "1") int table,
+            @RequestParam(value = "pages", required = false) String pages) {
+
+        log.info("Extracting tables ({}) from: {}", format, file.getOriginalFilename());
+        PageSelection selection = PageSelection.parse(pages);
+
+        if (file.isEmpty() || !isPdfFile(file)) {
+            return ResponseEntity.badRequest().build();
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"json".equalsIgnoreCase(format)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        try {
+            Path tempFile = Files.createTempFile("upload-", ".pdf");
+            Files.copy(file.getInputStream(), tempFile, StandardCopyOption.REPLACE_EXISTING);
+
+            try {
+                List<TableData> tables = chunkedAnalysisService
+                        .analyzeDocumentInChunks(tempFile, selection, Writer.nullWriter())
+                        .tables();
+                if (!csv) {
+                    return ResponseEntity.ok(tables);
+                }
+                if (table < 1 || table > tables.size()) {
+                    return ResponseEntity.notFound().build();
+                }
+
+                StringWriter body = new StringWriter();
+                SparseTable.writeCsv(tables.get(table - 1), body);
+                return ResponseEntity.ok()
+                        .contentType(MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                        .body(body.toString());
+            } finally {
+                Files.deleteIfExists(tempFile);
             }
 
-            // Generate YAML filename
-            String yamlFilename = filename.replace(".json", ".yml");
-            Path yamlPath = Paths.get(OUTPUT_DIR, yamlFilename);
+        } catch (IllegalArgumentException | DependencyUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Error extracting tables from: {}", file.getOriginalFilename(), e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
 
-            // Convert and save
-            yamlExportService.convertJsonFileToYaml(jsonPath, yamlPath);
+    @GetMapping(value = "/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<ChunkSearchResult>> search(
+            @RequestParam("q") String query,
+            @RequestParam(value = "k", defaultValue = "5") int k) {
+        if (query.isBlank() || k < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(embeddingService.search(query, Math.min(k, 100)));
+    }
 
-            log.info("Conversion complete: {}", yamlPath);
-            return ResponseEntity.ok("YAML file created: " + yamlFilename);
+    @GetMapping(value = "/sections/search", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<List<SectionSearchHit>> searchSections(
+            @RequestParam("q") String query,
+            @RequestParam(value = "role", required = false) String role,
+            @RequestParam(value = "limit", defaultValue = "20") int limit) {
+        if (query.isBlank() || limit < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(fullTextIndexService.search(query, role, Math.min(limit, 500)));
+    }
+
+    /**
+     * Always answers without touching DI or the LLMs; {@code DEGRADED} when a dependency's breaker is not closed.
+     */
+    @GetMapping(value = "/health", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<HealthResponse> health() {
+        var dependencies = dependencyGuard.health();
+        boolean degraded = dependencies.values().stream().anyMatch(d -> !"CLOSED".equals(d.state()));
+        return ResponseEntity.ok(new HealthResponse(degraded ? "DEGRADED" : "UP", dependencies));
+    }
+
+    @PostMapping("/documents/convert-to-yaml")
+    public ResponseEntity<String> convertJsonToYaml(@RequestParam("filename") String filename) {
+        log.info("Converting JSON to YAML: {}", filename);
+
+        if (!filename.endsWith(".json")) {
+            return ResponseEntity.badRequest().body("File must be a JSON file");
+        }
+
+        try {
+            // Read through the store, so results saved to Redis convert as well as files in the output directory
+            Optional<String> yamlFilename = yamlExportService.convertStoredResult(store, filename);
+            if (yamlFilename.isEmpty()) {
+                log.warn("Result not found: {}", filename);
+                return ResponseEntity.notFound().build();
+            }
+
+            log.info("Conversion complete: {}", yamlFilename.get());
+            return ResponseEntity.ok("YAML file created: " + yamlFilename.get());
 
         } catch (IOException e) {
             log.error("Error converting to YAML", e);
@@ -208,6 +443,62 @@ public class DocumentController {
         }
     }
 
+    @PostMapping(value = "/documents/convert-to-yaml/all", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<YamlConversionReport> convertAllJsonToYaml() {
+        log.info("Converting all stored JSON results to YAML");
+
+        try {
+            return ResponseEntity.ok(yamlExportService.convertStoredResults(store));
+        } catch (IOException e) {
+            log.error("Error converting stored results to YAML", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * Adds the LLM document type and section classifications, and the usage of the calls that produced them.
+     */
+    private ChunkedAnalysisResponse classifyChunked(ChunkedAnalysisResponse response, String fileName,
+            boolean classify, boolean cleanup, LlmUsageRecorder.UsageScope usage) {
+        QualityMetrics quality = response.qualityMetrics();
+        int pageCount = quality != null && quality.pages() != null ? quality.pages().size() : 0;
+        String documentType = classify
+                ? processingService.classifyDocument(new AnalysisResult(fileName, pageCount, response.sections(),
+                        quality))
+                : null;
+        List<EnrichedSection> classifiedSections = cleanup ? cleanupService.classifySections(response.sections())
+                : null;
+        return new ChunkedAnalysisResponse(response.sections(), response.content(), quality, response.tables(),
+                documentType, classifiedSections, usage.summary(pageCount));
+    }
+
+    private AnalysisOutcome analyzeOrReuse(Path pdfPath, String fileName, PageSelection selection)
+            throws IOException {
+        // A page subset is neither looked up nor registered as the whole document
+        if (!selection.isAll()) {
+            return new AnalysisOutcome(analysisService.analyzeDocument(pdfPath, selection), null, false);
+        }
+        if (!nearDuplicateService.isEnabled()) {
+            return new AnalysisOutcome(analysisService.analyzeDocument(pdfPath), null, false);
+        }
+
+        // Only an upload with the same bytes skips Azure DI; a similar one may differ in the clauses that matter
+        String contentHash = nearDuplicateService.contentHash(pdfPath);
+        Optional<DuplicateMatch> exact = nearDuplicateService.findExact(contentHash);
+        if (exact.isPresent()) {
+            AnalysisResult stored = nearDuplicateService.loadAnalysis(exact.get());
+            return new AnalysisOutcome(new AnalysisResult(fileName, stored.pageCount(), stored.sections(),
+                    stored.quality(), stored.pageSources()), exact.get(), true);
+        }
+
+        // The analyzed text covers text-layer and scanned pages alike, so no separate extraction is needed
+        AnalysisResult result = analysisService.analyzeDocument(pdfPath);
+        Optional<long[]> fingerprint = nearDuplicateService.fingerprint(result.sections());
+        DuplicateMatch duplicate = fingerprint.flatMap(nearDuplicateService::findDuplicate).orElse(null);
+        nearDuplicateService.register(contentHash, fingerprint.orElse(null), fileName, result);
+        return new AnalysisOutcome(result, duplicate, false);
+    }
+
     private boolean isPdfFile(MultipartFile file) {
         if (file.getOriginalFilename() == null) {
             return false;
@@ -227,14 +518,14 @@ public class DocumentController {
 
         try {
             // Save JSON
-            Path jsonPath = Paths.get(OUTPUT_DIR, timestamp + "_" + filenameWithoutExt + ".json");
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(jsonPath.toFile(), response);
-            log.info("Saved JSON to: {}", jsonPath);
+            String jsonName = timestamp + "_" + filenameWithoutExt + ".json";
+            store.saveResult(jsonName, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(response));
+            log.info("Saved JSON as: {}", jsonName);
 
             // Save Markdown
-            Path mdPath = Paths.get(OUTPUT_DIR, timestamp + "_" + filenameWithoutExt + ".md");
-            Files.writeString(mdPath, response.markdown());
-            log.info("Saved Markdown to: {}", mdPath);
+            String mdName = timestamp + "_" + filenameWithoutExt + ".md";
+            store.saveResult(mdName, response.markdown());
+            log.info("Saved Markdown as: {}", mdName);
 
         } catch (IOException e) {
             log.error("Failed to save output files", e);
@@ -248,14 +539,14 @@ public class DocumentController {
 
         try {
             // Save JSON
-            Path jsonPath = Paths.get(OUTPUT_DIR, timestamp + "_" + filenameWithoutExt + "_chunked.json");
-            objectMapper.writerWithDefaultPrettyPrinter().writeValue(jsonPath.toFile(), response);
-            log.info("Saved chunked JSON to: {}", jsonPath);
+            String jsonName = timestamp + "_" + filenameWithoutExt + "_chunked.json";
+            store.saveResult(jsonName, objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(response));
+            log.info("Saved chunked JSON as: {}", jsonName);
 
             // Save Markdown
-            Path mdPath = Paths.get(OUTPUT_DIR, timestamp + "_" + filenameWithoutExt + "_chunked.md");
-            Files.writeString(mdPath, response.content());
-            log.info("Saved chunked Markdown to: {}", mdPath);
+            String mdName = timestamp + "_" + filenameWithoutExt + "_chunked.md";
+            store.saveResult(mdName, response.content());
+            log.info("Saved chunked Markdown as: {}", mdName);
 
         } catch (IOException e) {
             log.error("Failed to save chunked output files", e);
@@ -268,4 +559,10 @@ public class DocumentController {
         }
         return filename.replaceAll("[^a-zA-Z0-9.-]", "_");
     }
-}
\ No newline at end of file
+
+    /**
+     * {@code reused}: the result is the stored analysis of {@code duplicateOf}, not of the upload.
+     */
+    private record AnalysisOutcome(AnalysisResult result, DuplicateMatch duplicateOf, boolean reused) {
+    }
+}
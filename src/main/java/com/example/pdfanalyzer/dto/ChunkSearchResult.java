@@ -0,0 +1,10 @@
+package com.example.pdfanalyzer.dto;
+
+public record ChunkSearchResult(
+        String chunkId,
+        String fileName,
+        int startPage,
+        int endPage,
+        double score,
+        String content) {
+}
@@ -1,10 +1,29 @@
 package com.example.pdfanalyzer.dto;
 
+import com.example.pdfanalyzer.model.EnrichedSection;
+import com.example.pdfanalyzer.model.LlmUsageSummary;
+import com.example.pdfanalyzer.model.QualityMetrics;
 import com.example.pdfanalyzer.model.Section;
+import com.example.pdfanalyzer.model.TableData;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import java.util.List;
 
+/**
+ * Chunked analysis of a document. {@code documentType}, {@code classifiedSections} and {@code llmUsage} are
+ * only present when the request asked for LLM classification or cleanup.
+ */
 public record ChunkedAnalysisResponse(
         List<Section> sections,
-        String content) {
-}
\ No newline at end of file
+        String content,
+        QualityMetrics qualityMetrics,
+        List<TableData> tables,
+        @JsonInclude(JsonInclude.Include.NON_NULL) String documentType,
+        @JsonInclude(JsonInclude.Include.NON_NULL) List<EnrichedSection> classifiedSections,
+        @JsonInclude(JsonInclude.Include.NON_NULL) LlmUsageSummary llmUsage) {
+
+    public ChunkedAnalysisResponse(List<Section> sections, String content, QualityMetrics qualityMetrics,
+            List<TableData> tables) {
+        this(sections, content, qualityMetrics, tables, null, null, null);
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.pdfanalyzer.dto;
+
+public record DependencyHealth(
+        String state,
+        float failureRate,
+        float slowCallRate,
+        int bufferedCalls,
+        int availableConcurrentCalls,
+        int maxConcurrentCalls) {
+}
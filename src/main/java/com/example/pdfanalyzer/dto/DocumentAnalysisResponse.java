@@ -1,6 +1,8 @@
 package com.example.pdfanalyzer.dto;
 
 import com.example.pdfanalyzer.model.DocumentChunk;
+import com.example.pdfanalyzer.model.DocumentOutline;
+import com.example.pdfanalyzer.model.PageSources;
 import com.example.pdfanalyzer.model.QualityMetrics;
 import com.example.pdfanalyzer.model.Section;
 
@@ -11,8 +13,11 @@ public record DocumentAnalysisResponse(
         int pageCount,
         List<Section> sections,
         List<DocumentChunk> chunks,
+        DocumentOutline outline,
         QualityMetrics qualityMetrics,
-        String markdown) {
+        PageSources pageSources,
+        String markdown,
+        DuplicateMatch duplicateOf) {
 
     public static Builder builder() {
         return new Builder();
@@ -23,8 +28,11 @@ public record DocumentAnalysisResponse(
         private int pageCount;
         private List<Section> sections;
         private List<DocumentChunk> chunks;
+        private DocumentOutline outline;
         private QualityMetrics qualityMetrics;
+        private PageSources pageSources;
         private String markdown;
+        private DuplicateMatch duplicateOf;
 
         public Builder fileName(String fileName) {
             this.fileName = fileName;
@@ -46,18 +54,34 @@ public record DocumentAnalysisResponse(
             return this;
         }
 
+        public Builder outline(DocumentOutline outline) {
+            this.outline = outline;
+            return this;
+        }
+
         public Builder qualityMetrics(QualityMetrics qualityMetrics) {
             this.qualityMetrics = qualityMetrics;
             return this;
         }
 
+        public Builder pageSources(PageSources pageSources) {
+            this.pageSources = pageSources;
+            return this;
+        }
+
         public Builder markdown(String markdown) {
             this.markdown = markdown;
             return this;
         }
 
+        public Builder duplicateOf(DuplicateMatch duplicateOf) {
+            this.duplicateOf = duplicateOf;
+            return this;
+        }
+
         public DocumentAnalysisResponse build() {
-            return new DocumentAnalysisResponse(fileName, pageCount, sections, chunks, qualityMetrics, markdown);
+            return new DocumentAnalysisResponse(fileName, pageCount, sections, chunks, outline, qualityMetrics,
+                    pageSources, markdown, duplicateOf);
         }
     }
 }
\ No newline at end of file
@@ -0,0 +1,7 @@
+package com.example.pdfanalyzer.dto;
+
+public record DuplicateMatch(
+        String id,
+        String fileName,
+        double similarity) {
+}
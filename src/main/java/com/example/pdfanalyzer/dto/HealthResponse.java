@@ -0,0 +1,8 @@
+package com.example.pdfanalyzer.dto;
+
+import java.util.Map;
+
+public record HealthResponse(
+        String status,
+        Map<String, DependencyHealth> dependencies) {
+}
@@ -0,0 +1,9 @@
+package com.example.pdfanalyzer.dto;
+
+public record SectionSearchHit(
+        String fileName,
+        int sectionIndex,
+        int pageNumber,
+        String role,
+        String snippet) {
+}
@@ -0,0 +1,10 @@
+package com.example.pdfanalyzer.dto;
+
+import java.util.List;
+
+public record YamlConversionReport(
+        int converted,
+        int skipped,
+        List<String> failed,
+        long elapsedMs) {
+}
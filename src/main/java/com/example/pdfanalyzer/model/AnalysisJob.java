@@ -0,0 +1,42 @@
+package com.example.pdfanalyzer.model;
+
+import java.time.Instant;
+
+/**
+ * A queued chunked analysis. {@code pages} is the page selection, {@code null} for the whole document;
+ * {@code attempts} counts the runs started so far, including one interrupted by a restart.
+ */
+public record AnalysisJob(
+        String id,
+        String fileName,
+        String pages,
+        Status status,
+        int attempts,
+        int completedChunks,
+        Instant createdAt,
+        Instant updatedAt,
+        String error) {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    public static AnalysisJob pending(String id, String fileName, String pages) {
+        Instant now = Instant.now();
+        return new AnalysisJob(id, fileName, pages, Status.PENDING, 0, 0, now, now, null);
+    }
+
+    public AnalysisJob started() {
+        return new AnalysisJob(id, fileName, pages, Status.RUNNING, attempts + 1, completedChunks, createdAt,
+                Instant.now(), null);
+    }
+
+    public AnalysisJob finished(Status status, int attempts, String error) {
+        return new AnalysisJob(id, fileName, pages, status, attempts, completedChunks, createdAt, Instant.now(),
+                error);
+    }
+
+    public AnalysisJob withCompletedChunks(int completedChunks) {
+        return new AnalysisJob(id, fileName, pages, status, attempts, completedChunks, createdAt, updatedAt, error);
+    }
+}
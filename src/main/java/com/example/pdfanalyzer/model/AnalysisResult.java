@@ -1,11 +1,15 @@
 package com.example.pdfanalyzer.model;
 
 import java.util.List;
-import java.util.Map;
 
 public record AnalysisResult(
         String fileName,
         int pageCount,
         List<Section> sections,
-        QualityMetrics quality) {
+        QualityMetrics quality,
+        PageSources pageSources) {
+
+    public AnalysisResult(String fileName, int pageCount, List<Section> sections, QualityMetrics quality) {
+        this(fileName, pageCount, sections, quality, null);
+    }
 }
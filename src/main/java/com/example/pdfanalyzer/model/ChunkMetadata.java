@@ -0,0 +1,15 @@
+package com.example.pdfanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ChunkMetadata(
+        String fileName,
+        int startPage,
+        int endPage,
+        int sectionCount,
+        String chunkingStrategy,
+        List<String> clauses) {
+}
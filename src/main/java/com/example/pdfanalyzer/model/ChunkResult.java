@@ -0,0 +1,16 @@
+package com.example.pdfanalyzer.model;
+
+import java.util.List;
+
+/**
+ * Everything one analyzed DI chunk contributes to a chunked analysis; saved as the chunk's checkpoint.
+ * {@code sections} include the tables and the copies for duplicate pages, {@code markdown} is the chunk's
+ * rendered part of the document markdown.
+ */
+public record ChunkResult(
+        List<Integer> pageNumbers,
+        List<Section> sections,
+        List<TableData> tables,
+        List<PageQuality> pages,
+        String markdown) {
+}
@@ -1,11 +1,16 @@
 package com.example.pdfanalyzer.model;
 
-import java.util.Map;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
 
+/**
+ * A chunk of document text. {@code content} is usually a view into a buffer shared by all chunks
+ * of the document and is only copied into a {@code String} when serialized or converted.
+ */
 public record DocumentChunk(
         String id,
-        String content,
+        @JsonSerialize(using = ToStringSerializer.class) CharSequence content,
         int chunkIndex,
         int pageNumber,
-        Map<String, Object> metadata) {
+        ChunkMetadata metadata) {
 }
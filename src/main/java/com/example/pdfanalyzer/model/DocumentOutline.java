@@ -0,0 +1,67 @@
+package com.example.pdfanalyzer.model;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Clause index over structure-aligned chunks: maps a normalized clause path such as
+ * {@code art.4/§2/pkt3} (and each of its prefixes) to the indices of the chunks containing it.
+ */
+public record DocumentOutline(
+        @JsonValue Map<String, List<Integer>> clauses) {
+
+    private static final Pattern MARKER = Pattern.compile("(Art\\.?|§|pkt)\\s*(\\d+[a-z]?)",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    public static DocumentOutline of(List<DocumentChunk> chunks) {
+        Map<String, List<Integer>> clauses = new LinkedHashMap<>();
+        for (DocumentChunk chunk : chunks) {
+            if (chunk.metadata() == null || chunk.metadata().clauses() == null) {
+                continue;
+            }
+            for (String clause : chunk.metadata().clauses()) {
+                String path = "";
+                for (String part : parts(clause)) {
+                    path = path.isEmpty() ? part : path + "/" + part;
+                    List<Integer> indices = clauses.computeIfAbsent(path, k -> new ArrayList<>());
+                    if (indices.isEmpty() || indices.get(indices.size() - 1) != chunk.chunkIndex()) {
+                        indices.add(chunk.chunkIndex());
+                    }
+                }
+            }
+        }
+        return new DocumentOutline(clauses);
+    }
+
+    /**
+     * Chunk indices for a clause reference like {@code "Art. 4 § 2"}, empty when unknown.
+     */
+    public List<Integer> chunksFor(String clause) {
+        return clauses.getOrDefault(normalize(clause), List.of());
+    }
+
+    public static String normalize(String clause) {
+        return String.join("/", parts(clause));
+    }
+
+    private static List<String> parts(String clause) {
+        List<String> parts = new ArrayList<>();
+        if (clause == null) {
+            return parts;
+        }
+        Matcher matcher = MARKER.matcher(clause);
+        while (matcher.find()) {
+            String marker = matcher.group(1).toLowerCase(Locale.ROOT);
+            String prefix = marker.startsWith("art") ? "art." : marker;
+            parts.add(prefix + matcher.group(2).toLowerCase(Locale.ROOT));
+        }
+        return parts;
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.pdfanalyzer.model;
+
+import java.util.List;
+import java.util.Map;
+
+public record DocumentProfile(
+        String fileName,
+        long fileBytes,
+        int pageCount,
+        Map<PageProfile.Kind, Integer> pagesByKind,
+        long imageBytes,
+        double estimatedDiCost,
+        long elapsedMs,
+        List<PageProfile> pages) {
+}
@@ -0,0 +1,10 @@
+package com.example.pdfanalyzer.model;
+
+public record LlmUsageSummary(
+        int calls,
+        long promptTokens,
+        long completionTokens,
+        long latencyMs,
+        double estimatedCost,
+        double tokensPerPage) {
+}
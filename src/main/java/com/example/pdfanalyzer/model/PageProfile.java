@@ -0,0 +1,25 @@
+package com.example.pdfanalyzer.model;
+
+/**
+ * Cheap per-page facts gathered before analysis, so later stages can treat pages differently.
+ */
+public record PageProfile(
+        int pageNumber,
+        int rotation,
+        int imageCount,
+        long imageBytes,
+        int glyphs,
+        Kind kind,
+        double estimatedDiCost) {
+
+    public enum Kind {
+        /** Text layer with little or no imagery. */
+        DIGITAL,
+        /** Images only, no text layer: needs OCR. */
+        SCANNED,
+        /** Text layer next to heavy images (scans with an OCR layer, figures). */
+        MIXED,
+        /** Neither text nor images. */
+        BLANK
+    }
+}
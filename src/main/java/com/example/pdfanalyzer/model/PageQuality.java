@@ -0,0 +1,26 @@
+package com.example.pdfanalyzer.model;
+
+import java.util.List;
+
+/**
+ * Per-page extraction quality, used to route badly recognized pages to re-OCR. {@code structureMarkers} counts
+ * sections mentioning {@code Art. n}, {@code § n} or {@code pkt n} anywhere; {@code leadingMarkers} counts those
+ * that open a structural unit with one, which is what the structure chunker splits on.
+ */
+public record PageQuality(
+        int pageNumber,
+        int chars,
+        int paragraphs,
+        int structureMarkers,
+        int leadingMarkers,
+        int words,
+        double avgWordConfidence,
+        int lowConfidenceWords,
+        List<LowConfidenceSpan> lowConfidenceSpans) {
+
+    /**
+     * Run of consecutive words below the confidence threshold; offsets refer to the DI result content.
+     */
+    public record LowConfidenceSpan(int offset, int length, String text, double minConfidence) {
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.pdfanalyzer.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Pages of a document to analyze, parsed from specs like {@code "3-7,10"}. Page numbers are 1-based and
+ * always refer to the original document. An empty selection means every page.
+ */
+public record PageSelection(List<PageRange> ranges) {
+
+    public static final PageSelection ALL = new PageSelection(List.of());
+
+    public record PageRange(int first, int last) {
+    }
+
+    public static PageSelection parse(String spec) {
+        if (spec == null || spec.isBlank()) {
+            return ALL;
+        }
+        List<PageRange> ranges = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String token = part.trim();
+            if (token.isEmpty()) {
+                continue;
+            }
+            int dash = token.indexOf('-');
+            try {
+                int first = Integer.parseInt((dash < 0 ? token : token.substring(0, dash)).trim());
+                int last = dash < 0 ? first : Integer.parseInt(token.substring(dash + 1).trim());
+                if (first < 1 || last < first) {
+                    throw new IllegalArgumentException("Invalid page range: " + token);
+                }
+                ranges.add(new PageRange(first, last));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid page range: " + token, e);
+            }
+        }
+        return ranges.isEmpty() ? ALL : new PageSelection(List.copyOf(ranges));
+    }
+
+    public boolean isAll() {
+        return ranges.isEmpty();
+    }
+
+    /**
+     * Sorted, distinct page numbers of this selection within a document of {@code totalPages} pages.
+     */
+    public List<Integer> resolve(int totalPages) {
+        if (isAll()) {
+            List<Integer> pages = new ArrayList<>(totalPages);
+            for (int page = 1; page <= totalPages; page++) {
+                pages.add(page);
+            }
+            return pages;
+        }
+        TreeSet<Integer> pages = new TreeSet<>();
+        for (PageRange range : ranges) {
+            if (range.last() > totalPages) {
+                throw new IllegalArgumentException(
+                        "Page range " + range.first() + "-" + range.last() + " exceeds document length " + totalPages);
+            }
+            for (int page = range.first(); page <= range.last(); page++) {
+                pages.add(page);
+            }
+        }
+        return new ArrayList<>(pages);
+    }
+
+    /**
+     * Compact spec for sorted page numbers, e.g. {@code [1, 2, 3, 5]} becomes {@code "1-3,5"}.
+     */
+    public static String format(List<Integer> sortedPages) {
+        StringBuilder spec = new StringBuilder();
+        for (int i = 0; i < sortedPages.size();) {
+            int first = sortedPages.get(i);
+            int last = first;
+            while (++i < sortedPages.size() && sortedPages.get(i) == last + 1) {
+                last++;
+            }
+            if (!spec.isEmpty()) {
+                spec.append(',');
+            }
+            spec.append(first);
+            if (last > first) {
+                spec.append('-').append(last);
+            }
+        }
+        return spec.toString();
+    }
+
+    @Override
+    public String toString() {
+        if (isAll()) {
+            return "all";
+        }
+        List<String> parts = new ArrayList<>(ranges.size());
+        for (PageRange range : ranges) {
+            parts.add(range.first() == range.last() ? Integer.toString(range.first())
+                    : range.first() + "-" + range.last());
+        }
+        return String.join(",", parts);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.pdfanalyzer.model;
+
+/**
+ * How many pages of an analysis came from each extraction path. {@code duplicate} pages repeat an analyzed page
+ * and took its sections; {@code blank} pages were skipped.
+ */
+public record PageSources(
+        int textLayer,
+        int documentIntelligence,
+        int cached,
+        int duplicate,
+        int blank) {
+}
@@ -1,8 +1,16 @@
 package com.example.pdfanalyzer.model;
 
+import java.util.List;
+
 public record QualityMetrics(
         double avgConfidence,
         int totalParagraphs,
         int totalChars,
-        boolean hasStructureMarkers) {
+        boolean hasStructureMarkers,
+        List<PageQuality> pages,
+        List<Integer> lowQualityPages) {
+
+    public QualityMetrics(double avgConfidence, int totalParagraphs, int totalChars, boolean hasStructureMarkers) {
+        this(avgConfidence, totalParagraphs, totalChars, hasStructureMarkers, List.of(), List.of());
+    }
 }
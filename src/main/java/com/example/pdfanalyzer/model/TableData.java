@@ -0,0 +1,15 @@
+package com.example.pdfanalyzer.model;
+
+import java.util.List;
+
+/**
+ * A table extracted from the document as structured rows. Spanned cells repeat their content in every
+ * row and column they cover; {@code columns} are built from the detected header rows.
+ */
+public record TableData(
+        int index,
+        int pageNumber,
+        int headerRows,
+        List<String> columns,
+        List<List<String>> rows) {
+}
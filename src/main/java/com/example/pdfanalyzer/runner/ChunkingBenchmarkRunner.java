@@ -0,0 +1,165 @@
+package com.example.pdfanalyzer.runner;
+
+import com.example.pdfanalyzer.config.ChunkingProperties;
+import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.QualityMetrics;
+import com.example.pdfanalyzer.model.Section;
+import com.example.pdfanalyzer.service.DocumentProcessingService;
+import com.sun.management.ThreadMXBean;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Measures allocated bytes and time per section of the chunkers on a synthetic document, next to
+ * the {@code StringBuilder} chunker they replaced. Allocation is read from the thread's allocation
+ * counter after warm-up iterations, so it covers what the JIT does not eliminate.
+ * Run with {@code --spring.profiles.active=chunking-benchmark}.
+ */
+@Component
+@Profile("chunking-benchmark")
+public class ChunkingBenchmarkRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkingBenchmarkRunner.class);
+    private static final String[] MARKERS = {"Art. ", "§ ", "pkt "};
+
+    private final ChunkingProperties chunkingProperties;
+    private final int sections;
+    private final int iterations;
+
+    public ChunkingBenchmarkRunner(ChunkingProperties chunkingProperties,
+            @Value("${app.chunking.benchmark.sections:100000}") int sections,
+            @Value("${app.chunking.benchmark.iterations:10}") int iterations) {
+        this.chunkingProperties = chunkingProperties;
+        this.sections = sections;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(String... args) {
+        AnalysisResult document = syntheticDocument(new Random(7));
+        ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+        System.out.println("✓ Chunking benchmark: " + sections + " sections, " + iterations + " iterations");
+        report("size (StringBuilder, before)", document, threads, this::legacyChunkBySize);
+        for (String strategy : List.of("size", "page-based", "structure")) {
+            // Chunking never reaches the LLM, so the service needs no router or classifier here
+            DocumentProcessingService service = new DocumentProcessingService(null, null,
+                    new ChunkingProperties(strategy, chunkingProperties.pagesPerChunk(),
+                            chunkingProperties.maxChunkSize(), chunkingProperties.overlap()));
+            report(strategy, document, threads, service::processAndChunk);
+        }
+        log.info("Chunking benchmark finished");
+    }
+
+    private void report(String name, AnalysisResult document, ThreadMXBean threads,
+            Function<AnalysisResult, List<?>> chunker) {
+        int chunks = 0;
+        for (int i = 0; i < iterations; i++) {
+            chunks = chunker.apply(document).size();
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            chunker.apply(document);
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        long runs = (long) iterations * sections;
+        System.out.println(String.format("%-30s %8d chunks %10.1f B/section %8.1f ns/section",
+                name, chunks, (double) allocated / runs, (double) elapsed / runs));
+    }
+
+    /**
+     * The size-based chunker as it was before the shared buffer, kept as the baseline.
+     */
+    private List<LegacyChunk> legacyChunkBySize(AnalysisResult analysisResult) {
+        int maxChunkSize = Math.max(1, chunkingProperties.maxChunkSize());
+        int overlapSize = Math.max(0, chunkingProperties.overlap());
+
+        List<LegacyChunk> chunks = new ArrayList<>();
+        StringBuilder buffer = new StringBuilder();
+        int startPage = -1;
+        int endPage = -1;
+        int sectionCount = 0;
+
+        for (Section section : analysisResult.sections()) {
+            String content = section.content() != null ? section.content().trim() : "";
+            if (content.isEmpty()) {
+                continue;
+            }
+            if (buffer.length() + content.length() + 2 > maxChunkSize && buffer.length() > 0) {
+                chunks.add(legacyChunk(analysisResult.fileName(), chunks.size(), buffer, startPage, endPage,
+                        sectionCount));
+                int lastChunkEndPage = endPage;
+                String overlapText = overlapSize > 0
+                        ? buffer.substring(Math.max(0, buffer.length() - overlapSize))
+                        : "";
+                buffer = new StringBuilder(overlapText);
+                startPage = overlapText.isEmpty() ? section.pageNumber() : lastChunkEndPage;
+                endPage = startPage;
+                sectionCount = overlapText.isEmpty() ? 0 : 1;
+            }
+            if (buffer.length() == 0) {
+                startPage = section.pageNumber();
+            }
+            buffer.append(content).append("\n\n");
+            endPage = section.pageNumber();
+            sectionCount++;
+        }
+        if (buffer.length() > 0) {
+            chunks.add(legacyChunk(analysisResult.fileName(), chunks.size(), buffer, startPage, endPage,
+                    sectionCount));
+        }
+        return chunks;
+    }
+
+    private LegacyChunk legacyChunk(String fileName, int chunkIndex, StringBuilder buffer,
+            int startPage, int endPage, int sectionCount) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("fileName", fileName);
+        metadata.put("startPage", startPage);
+        metadata.put("endPage", endPage);
+        metadata.put("sectionCount", sectionCount);
+        return new LegacyChunk(fileName + "-chunk-" + chunkIndex, buffer.toString().trim(), chunkIndex,
+                startPage, metadata);
+    }
+
+    private AnalysisResult syntheticDocument(Random random) {
+        List<Section> generated = new ArrayList<>(sections);
+        int totalChars = 0;
+        for (int i = 0; i < sections; i++) {
+            StringBuilder content = new StringBuilder(" ");
+            if (i % 12 == 0) {
+                content.append(MARKERS[(i / 12) % MARKERS.length]).append(1 + i / 12).append(". ");
+            }
+            int words = 10 + random.nextInt(60);
+            for (int w = 0; w < words; w++) {
+                content.append("słowo").append(random.nextInt(1000)).append(' ');
+            }
+            generated.add(new Section("paragraph", content.toString(), 1 + i / 20, 1.0));
+            totalChars += content.length();
+        }
+        int pages = 1 + (sections - 1) / 20;
+        return new AnalysisResult("benchmark.pdf", pages, generated,
+                new QualityMetrics(1.0, sections, totalChars, true));
+    }
+
+    private record LegacyChunk(String id, String content, int chunkIndex, int pageNumber,
+            Map<String, Object> metadata) {
+    }
+}
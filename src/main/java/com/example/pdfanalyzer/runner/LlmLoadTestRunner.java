@@ -0,0 +1,154 @@
+package com.example.pdfanalyzer.runner;
+
+import com.example.pdfanalyzer.config.LoadTestProperties;
+import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.LlmUsageSummary;
+import com.example.pdfanalyzer.model.QualityMetrics;
+import com.example.pdfanalyzer.model.Section;
+import com.example.pdfanalyzer.service.DocumentCleanupService;
+import com.example.pdfanalyzer.service.DocumentProcessingService;
+import com.example.pdfanalyzer.service.LlmUsageRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Open-loop load generator for the LLM paths. Requests are started at the target rate regardless
+ * of how long earlier ones take, so queueing shows up in the latency percentiles.
+ * Each request records its LLM usage in its own scope, so the report includes tokens and estimated
+ * cost per request. Run with {@code --spring.profiles.active=fake-llm,load-test} to benchmark offline.
+ */
+@Component
+@Profile("load-test")
+public class LlmLoadTestRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmLoadTestRunner.class);
+    private static final String[] SAMPLE_CONTENT = {
+            "§ 1. Ogólne Warunki Ubezpieczenia mają zastosowanie do umów zawieranych z Ubezpieczającym.",
+            "Art. 4 Przesłanki wypłaty świadczenia z tytułu uszkodzenia ciała wskutek wypadku.",
+            "WYJAŚNIENIA Objaśniamy niektóre postanowienia Umowy oraz trudne sformułowania.",
+            "pkt 2 ograniczenia oraz wyłączenia odpowiedzialności zakładu ubezpieczeń",
+            "N",
+            ":selected:"
+    };
+
+    private final DocumentCleanupService cleanupService;
+    private final DocumentProcessingService processingService;
+    private final LlmUsageRecorder usageRecorder;
+    private final LoadTestProperties properties;
+
+    public LlmLoadTestRunner(DocumentCleanupService cleanupService,
+            DocumentProcessingService processingService,
+            LlmUsageRecorder usageRecorder,
+            LoadTestProperties properties) {
+        this.cleanupService = cleanupService;
+        this.processingService = processingService;
+        this.usageRecorder = usageRecorder;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        String operation = properties.operation() != null ? properties.operation() : "cleanup";
+        double targetRps = properties.targetRps() > 0 ? properties.targetRps() : 1.0;
+        int durationSeconds = Math.max(1, properties.durationSeconds());
+        int totalRequests = (int) Math.ceil(targetRps * durationSeconds);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / targetRps);
+
+        List<Section> sections = sampleSections(Math.max(1, properties.sectionsPerRequest()));
+        AnalysisResult document = new AnalysisResult("load-test.pdf", 1, sections,
+                new QualityMetrics(1.0, sections.size(), 0, true));
+
+        log.info("Load test started: operation={}, target={} req/s, duration={}s, requests={}",
+                operation, targetRps, durationSeconds, totalRequests);
+
+        long[] latencies = new long[totalRequests];
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong lastCompletion = new AtomicLong();
+        ConcurrentLinkedQueue<LlmUsageSummary> usages = new ConcurrentLinkedQueue<>();
+
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < totalRequests; i++) {
+                long scheduledAt = start + i * intervalNanos;
+                long wait = scheduledAt - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+
+                int requestIndex = i;
+                executor.submit(() -> {
+                    try (LlmUsageRecorder.UsageScope usage = usageRecorder.openScope()) {
+                        try {
+                            runRequest(operation, document, sections);
+                        } finally {
+                            usages.add(usage.summary(document.pageCount()));
+                        }
+                    } catch (RuntimeException e) {
+                        failed.incrementAndGet();
+                    } finally {
+                        // Latency is measured from the scheduled start, so client-side backlog is included
+                        long end = System.nanoTime();
+                        latencies[requestIndex] = end - scheduledAt;
+                        lastCompletion.accumulateAndGet(end, Math::max);
+                        completed.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        double elapsedSeconds = (lastCompletion.get() - start) / 1e9;
+        Arrays.sort(latencies);
+
+        System.out.println("✓ Load test complete!");
+        System.out.println("Operation: " + operation);
+        System.out.println("Requests: " + completed.get() + " (failed: " + failed.get() + ")");
+        System.out.println("Throughput: " + String.format("%.2f req/s", completed.get() / elapsedSeconds));
+        System.out.println("p50 latency: " + String.format("%.1f ms", percentile(latencies, 0.50)));
+        System.out.println("p99 latency: " + String.format("%.1f ms", percentile(latencies, 0.99)));
+
+        int requests = Math.max(1, usages.size());
+        long tokens = usages.stream().mapToLong(u -> u.promptTokens() + u.completionTokens()).sum();
+        double cost = usages.stream().mapToDouble(LlmUsageSummary::estimatedCost).sum();
+        System.out.println("LLM calls: " + usages.stream().mapToInt(LlmUsageSummary::calls).sum());
+        System.out.println("Tokens/request: " + String.format("%.1f", (double) tokens / requests));
+        System.out.println("Estimated cost: " + String.format("%.4f total, %.6f/request", cost, cost / requests));
+    }
+
+    private void runRequest(String operation, AnalysisResult document, List<Section> sections) {
+        if ("classify".equalsIgnoreCase(operation)) {
+            processingService.classifyDocument(document);
+        } else {
+            cleanupService.classifySections(sections);
+        }
+    }
+
+    private List<Section> sampleSections(int count) {
+        List<Section> sections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            sections.add(new Section("paragraph", SAMPLE_CONTENT[i % SAMPLE_CONTENT.length], 1 + i / 20, 1.0));
+        }
+        return sections;
+    }
+
+    private double percentile(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0.0;
+        }
+        int index = Math.min(sortedNanos.length - 1, (int) Math.ceil(percentile * sortedNanos.length) - 1);
+        return sortedNanos[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.pdfanalyzer.runner;
+
+import com.example.pdfanalyzer.service.MinHashIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures recall, false positives and throughput of the MinHash/LSH near-duplicate index on a
+ * synthetic corpus: every base document gets one copy with a fraction of its words replaced,
+ * and an equal number of unrelated documents is used as negatives.
+ * Run with {@code --spring.profiles.active=dedup-benchmark}.
+ */
+@Component
+@Profile("dedup-benchmark")
+public class NearDuplicateBenchmarkRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(NearDuplicateBenchmarkRunner.class);
+    private static final int SHINGLE = 5;
+    private static final int VOCABULARY = 5000;
+    private static final int WORDS_PER_DOCUMENT = 2000;
+
+    private final int documents;
+    private final double mutationRate;
+    private final double threshold;
+
+    public NearDuplicateBenchmarkRunner(
+            @Value("${app.dedup.benchmark.documents:1000}") int documents,
+            @Value("${app.dedup.benchmark.mutation-rate:0.01}") double mutationRate,
+            @Value("${app.dedup.document-threshold:0.8}") double threshold) {
+        this.documents = documents;
+        this.mutationRate = mutationRate;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void run(String... args) {
+        Random random = new Random(7);
+        List<String> vocabulary = new ArrayList<>(VOCABULARY);
+        for (int i = 0; i < VOCABULARY; i++) {
+            vocabulary.add(randomWord(random));
+        }
+
+        List<String> base = new ArrayList<>(documents);
+        for (int i = 0; i < documents; i++) {
+            base.add(randomDocument(random, vocabulary));
+        }
+
+        MinHashIndex<Integer> index = new MinHashIndex<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            index.add(i, MinHashIndex.signature(base.get(i), SHINGLE));
+        }
+        double indexSeconds = (System.nanoTime() - start) / 1e9;
+
+        int found = 0;
+        int falsePositives = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < documents; i++) {
+            MinHashIndex.Match<Integer> match = index.nearest(
+                    MinHashIndex.signature(mutate(base.get(i), random, vocabulary), SHINGLE), threshold);
+            if (match != null && match.item() == i) {
+                found++;
+            }
+            if (index.nearest(MinHashIndex.signature(randomDocument(random, vocabulary), SHINGLE), threshold) != null) {
+                falsePositives++;
+            }
+        }
+        double querySeconds = (System.nanoTime() - start) / 1e9;
+
+        log.info("Near-duplicate benchmark finished");
+        System.out.println("✓ Near-duplicate benchmark complete!");
+        System.out.println("Documents: " + documents + " x " + WORDS_PER_DOCUMENT + " words, mutation rate "
+                + mutationRate + ", threshold " + threshold);
+        System.out.println("Recall: " + String.format("%.2f%%", 100.0 * found / documents));
+        System.out.println("False positives: " + String.format("%.2f%%", 100.0 * falsePositives / documents));
+        System.out.println("Indexing: " + String.format("%.0f docs/s", documents / indexSeconds));
+        System.out.println("Querying: " + String.format("%.0f queries/s", 2 * documents / querySeconds));
+    }
+
+    private String randomDocument(Random random, List<String> vocabulary) {
+        StringBuilder text = new StringBuilder();
+        for (int w = 0; w < WORDS_PER_DOCUMENT; w++) {
+            text.append(vocabulary.get(random.nextInt(vocabulary.size()))).append(' ');
+        }
+        return text.toString();
+    }
+
+    private String mutate(String document, Random random, List<String> vocabulary) {
+        String[] words = document.split(" ");
+        for (int w = 0; w < words.length; w++) {
+            if (random.nextDouble() < mutationRate) {
+                words[w] = vocabulary.get(random.nextInt(vocabulary.size()));
+            }
+        }
+        return String.join(" ", words);
+    }
+
+    private String randomWord(Random random) {
+        // Letters only: digits are normalized away by the shingler
+        char[] word = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+}
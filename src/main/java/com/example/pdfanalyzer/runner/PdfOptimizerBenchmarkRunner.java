@@ -0,0 +1,134 @@
+package com.example.pdfanalyzer.runner;
+
+import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
+import com.azure.ai.documentintelligence.models.AnalyzeDocumentRequest;
+import com.azure.ai.documentintelligence.models.AnalyzeResult;
+import com.example.pdfanalyzer.config.ChunkingProperties;
+import com.example.pdfanalyzer.model.PageSelection;
+import com.example.pdfanalyzer.service.PdfSplitterService;
+import com.example.pdfanalyzer.service.PdfSplitterService.PageChunk;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Checks that {@code PdfPayloadOptimizer} shrinks uploads without changing what DI reads. Every chunk is sent
+ * to DI twice, as split and as optimized, and the recognized words are compared.
+ * Run with {@code --spring.profiles.active=optimizer-benchmark [pdf]}; this calls the real DI endpoint.
+ */
+@Component
+@Profile("optimizer-benchmark")
+public class PdfOptimizerBenchmarkRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfOptimizerBenchmarkRunner.class);
+
+    private final PdfSplitterService splitterService;
+    private final DocumentIntelligenceClient client;
+    private final ChunkingProperties chunkingProperties;
+    private final String defaultPdfPath;
+    private final double minSimilarity;
+
+    public PdfOptimizerBenchmarkRunner(PdfSplitterService splitterService,
+            DocumentIntelligenceClient client,
+            ChunkingProperties chunkingProperties,
+            @Value("${app.input.pdf-path}") String defaultPdfPath,
+            @Value("${app.pdf-optimizer.benchmark.min-similarity:0.99}") double minSimilarity) {
+        this.splitterService = splitterService;
+        this.client = client;
+        this.chunkingProperties = chunkingProperties;
+        this.defaultPdfPath = defaultPdfPath;
+        this.minSimilarity = minSimilarity;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        Path pdfPath = Path.of(args.length > 0 ? args[0] : defaultPdfPath);
+        if (!Files.exists(pdfPath)) {
+            System.err.println("Error: File not found: " + pdfPath);
+            return;
+        }
+
+        int pagesPerChunk = Math.max(1, chunkingProperties.pagesPerChunk());
+        List<PageChunk> original = splitterService.splitPdfByPages(pdfPath, pagesPerChunk, PageSelection.ALL, false);
+        List<PageChunk> optimized = splitterService.splitPdfByPages(pdfPath, pagesPerChunk, PageSelection.ALL, true);
+
+        long originalBytes = 0;
+        long optimizedBytes = 0;
+        long originalMs = 0;
+        long optimizedMs = 0;
+        double worstSimilarity = 1.0;
+
+        for (int i = 0; i < original.size(); i++) {
+            long start = System.nanoTime();
+            String originalText = analyze(original.get(i).content());
+            long middle = System.nanoTime();
+            String optimizedText = analyze(optimized.get(i).content());
+            long end = System.nanoTime();
+
+            double similarity = similarity(originalText, optimizedText);
+            worstSimilarity = Math.min(worstSimilarity, similarity);
+            originalBytes += original.get(i).content().length;
+            optimizedBytes += optimized.get(i).content().length;
+            originalMs += (middle - start) / 1_000_000;
+            optimizedMs += (end - middle) / 1_000_000;
+
+            log.info("Chunk {} (pages {}): {} -> {} bytes, word similarity {}",
+                    i + 1, PageSelection.format(original.get(i).pageNumbers()),
+                    original.get(i).content().length, optimized.get(i).content().length,
+                    String.format(Locale.ROOT, "%.4f", similarity));
+        }
+
+        System.out.println("✓ Optimizer benchmark complete!");
+        System.out.println("Chunks: " + original.size());
+        System.out.printf(Locale.ROOT, "Bytes: %d -> %d (%.1f%%)%n", originalBytes, optimizedBytes,
+                originalBytes > 0 ? 100.0 * optimizedBytes / originalBytes : 100.0);
+        System.out.println("DI time: " + originalMs + " ms -> " + optimizedMs + " ms");
+        System.out.printf(Locale.ROOT, "Worst word similarity: %.4f (%s, threshold %.2f)%n", worstSimilarity,
+                worstSimilarity >= minSimilarity ? "OK" : "OCR OUTPUT CHANGED", minSimilarity);
+    }
+
+    private String analyze(byte[] pdfBytes) {
+        AnalyzeDocumentRequest request = new AnalyzeDocumentRequest();
+        request.setBase64Source(pdfBytes);
+        AnalyzeResult result = client.beginAnalyzeDocument(
+                "prebuilt-layout", null, "pl-PL", null, null, null, null, request).getFinalResult();
+        return result.getContent() != null ? result.getContent() : "";
+    }
+
+    /**
+     * Multiset overlap of the recognized words: 1.0 when both runs read exactly the same words.
+     */
+    private double similarity(String first, String second) {
+        Map<String, Integer> counts = new HashMap<>();
+        String[] firstWords = words(first);
+        String[] secondWords = words(second);
+        for (String word : firstWords) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        int common = 0;
+        for (String word : secondWords) {
+            Integer count = counts.get(word);
+            if (count != null && count > 0) {
+                counts.put(word, count - 1);
+                common++;
+            }
+        }
+        int longest = Math.max(firstWords.length, secondWords.length);
+        return longest == 0 ? 1.0 : (double) common / longest;
+    }
+
+    private String[] words(String text) {
+        String normalized = text.toLowerCase(Locale.ROOT).strip();
+        return normalized.isEmpty() ? new String[0] : normalized.split("[^\\p{L}\\p{N}]+");
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.pdfanalyzer.runner;
 
 import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.PageSelection;
 import com.example.pdfanalyzer.service.DocumentAnalysisService;
 import com.example.pdfanalyzer.service.MarkdownExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -14,8 +15,12 @@ import org.springframework.stereotype.Component;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
+/**
+ * Analyzes one PDF from the command line and writes its JSON and markdown next to it.
+ * Run with {@code --spring.profiles.active=local,cli [pdf-path] [pages]}.
+ */
 @Component
-@Profile("!web")
+@Profile("cli")
 public class PdfProcessorRunner implements CommandLineRunner {
 
     private static final Logger log = LoggerFactory.getLogger(PdfProcessorRunner.class);
@@ -24,15 +29,18 @@ public class PdfProcessorRunner implements CommandLineRunner {
     private final MarkdownExportService markdownExportService;
     private final ObjectMapper objectMapper;
     private final String defaultPdfPath;
+    private final String defaultPages;
 
     public PdfProcessorRunner(DocumentAnalysisService service,
             MarkdownExportService markdownExportService,
             ObjectMapper objectMapper,
-            @Value("${app.input.pdf-path}") String defaultPdfPath) {
+            @Value("${app.input.pdf-path}") String defaultPdfPath,
+            @Value("${app.input.pages:}") String defaultPages) {
         this.service = service;
         this.markdownExportService = markdownExportService;
         this.objectMapper = objectMapper;
         this.defaultPdfPath = defaultPdfPath;
+        this.defaultPages = defaultPages;
     }
 
     @Override
@@ -41,7 +49,8 @@ public class PdfProcessorRunner implements CommandLineRunner {
 
         String pdfPathString = args.length > 0 ? args[0] : defaultPdfPath;
         Path pdfPath = Path.of(pdfPathString);
-        log.info("Using PDF path: {}", pdfPath);
+        PageSelection pages = PageSelection.parse(args.length > 1 ? args[1] : defaultPages);
+        log.info("Using PDF path: {} (pages: {})", pdfPath, pages);
 
         if (!Files.exists(pdfPath)) {
             System.err.println("Error: File not found: " + pdfPath);
@@ -55,7 +64,7 @@ public class PdfProcessorRunner implements CommandLineRunner {
 
         log.info("Processing PDF: {}", pdfPath.toAbsolutePath());
 
-        AnalysisResult result = service.analyzeDocument(pdfPath);
+        AnalysisResult result = service.analyzeDocument(pdfPath, pages);
 
         // Save JSON
         Path jsonPath = pdfPath.resolveSibling(
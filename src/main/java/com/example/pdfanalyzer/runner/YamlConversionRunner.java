@@ -0,0 +1,51 @@
+package com.example.pdfanalyzer.runner;
+
+import com.example.pdfanalyzer.dto.YamlConversionReport;
+import com.example.pdfanalyzer.service.YamlExportService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Converts every analysis JSON in a directory to YAML, skipping files that are already up to date.
+ * Run with {@code --spring.profiles.active=yaml-convert [directory]}.
+ */
+@Component
+@Profile("yaml-convert")
+public class YamlConversionRunner implements CommandLineRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(YamlConversionRunner.class);
+
+    private final YamlExportService yamlExportService;
+    private final String defaultDirectory;
+
+    public YamlConversionRunner(YamlExportService yamlExportService,
+            @Value("${app.yaml.input-dir:output}") String defaultDirectory) {
+        this.yamlExportService = yamlExportService;
+        this.defaultDirectory = defaultDirectory;
+    }
+
+    @Override
+    public void run(String... args) throws Exception {
+        Path directory = Path.of(args.length > 0 ? args[0] : defaultDirectory);
+        if (!Files.isDirectory(directory)) {
+            System.err.println("Error: Directory not found: " + directory);
+            return;
+        }
+
+        log.info("Converting JSON files in {} to YAML", directory.toAbsolutePath());
+        YamlConversionReport report = yamlExportService.convertDirectory(directory);
+
+        System.out.println("✓ YAML conversion complete!");
+        System.out.println("Converted: " + report.converted());
+        System.out.println("Up to date: " + report.skipped());
+        System.out.println("Failed: " + report.failed().size() + (report.failed().isEmpty() ? "" : " " + report.failed()));
+        System.out.println("Time: " + report.elapsedMs() + " ms");
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.pdfanalyzer.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage shared by every instance of the service: the analysis caches, the saved results, and the in-flight
+ * claims that keep two instances from sending the same document to DI at once. {@code app.store.type} selects
+ * {@link FileSystemAnalysisStore} (one node, or a shared volume) or {@link RedisAnalysisStore}.
+ * <p>
+ * The store is an optimization: cache and claim operations that fail are logged and behave like a miss or a
+ * granted claim, so an unreachable store costs DI calls but never fails an analysis.
+ */
+public interface AnalysisStore {
+
+    Optional<Object> get(String cache, String key);
+
+    void put(String cache, String key, Object value);
+
+    void evict(String cache, String key);
+
+    void clear(String cache);
+
+    /**
+     * Saves an output file (analysis JSON, markdown) under {@code name}.
+     */
+    void saveResult(String name, String content) throws IOException;
+
+    /**
+     * Opens a saved result for reading; empty if there is none under {@code name}.
+     */
+    Optional<InputStream> openResult(String name) throws IOException;
+
+    /**
+     * Names of all saved results.
+     */
+    List<String> listResults() throws IOException;
+
+    /**
+     * Claims {@code key} for {@code lease}; false while another thread or instance holds an unexpired claim.
+     */
+    boolean tryAcquire(String key, Duration lease);
+
+    void release(String key);
+}
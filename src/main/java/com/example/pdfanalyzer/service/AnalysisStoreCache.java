@@ -0,0 +1,69 @@
+package com.example.pdfanalyzer.service;
+
+import org.springframework.cache.support.AbstractValueAdaptingCache;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Spring {@link org.springframework.cache.Cache} over an {@link AnalysisStore}, so {@code @Cacheable} and the
+ * page cache are shared by every instance using the same store.
+ */
+public class AnalysisStoreCache extends AbstractValueAdaptingCache {
+
+    private final String name;
+    private final AnalysisStore store;
+
+    public AnalysisStoreCache(String name, AnalysisStore store) {
+        super(false);
+        this.name = name;
+        this.store = store;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return store;
+    }
+
+    @Override
+    protected Object lookup(Object key) {
+        return store.get(name, key.toString()).orElse(null);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        Object cached = lookup(key);
+        if (cached != null) {
+            return (T) cached;
+        }
+        try {
+            T value = valueLoader.call();
+            put(key, value);
+            return value;
+        } catch (Exception e) {
+            throw new ValueRetrievalException(key, valueLoader, e);
+        }
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value != null) {
+            store.put(name, key.toString(), value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        store.evict(name, key.toString());
+    }
+
+    @Override
+    public void clear() {
+        store.clear(name);
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.pdfanalyzer.service;
+
+/**
+ * Append-only text buffer shared by all chunks of one document.
+ * Section text is trimmed by index while copying in, and chunks are handed out as
+ * {@link CharSequence} views over offset ranges, so overlapping chunks share the same characters
+ * instead of copying them into a new builder for every split.
+ */
+final class ChunkBuffer {
+
+    static final String SEPARATOR = "\n\n";
+
+    private final StringBuilder text;
+
+    ChunkBuffer(int capacityHint) {
+        this.text = new StringBuilder(Math.max(16, capacityHint));
+    }
+
+    int length() {
+        return text.length();
+    }
+
+    /**
+     * Appends the trimmed section content followed by a blank line.
+     *
+     * @return the number of characters appended, 0 when the content is blank
+     */
+    int appendSection(String content) {
+        if (content == null) {
+            return 0;
+        }
+        int start = 0;
+        int end = content.length();
+        while (start < end && content.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && content.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        if (start == end) {
+            return 0;
+        }
+        text.append(content, start, end).append(SEPARATOR);
+        return end - start + SEPARATOR.length();
+    }
+
+    /**
+     * Length the section would occupy once trimmed and separated, without appending it.
+     */
+    static int trimmedLength(String content) {
+        if (content == null) {
+            return 0;
+        }
+        int start = 0;
+        int end = content.length();
+        while (start < end && content.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && content.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start;
+    }
+
+    /**
+     * Whitespace-trimmed view of {@code [start, end)}.
+     */
+    CharSequence view(int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return new View(text, start, end);
+    }
+
+    private record View(StringBuilder text, int start, int end) implements CharSequence {
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= length()) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            if (from < 0 || to > length() || from > to) {
+                throw new IndexOutOfBoundsException("[" + from + ", " + to + ") of " + length());
+            }
+            return new View(text, start + from, start + to);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(start, end);
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.EmbeddingProperties;
+import com.example.pdfanalyzer.dto.ChunkSearchResult;
+import com.example.pdfanalyzer.model.DocumentChunk;
+import com.example.pdfanalyzer.service.DependencyGuard.Dependency;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.embedding.EmbeddingModel;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Embeds document chunks in batches and keeps them in a local HNSW index for top-k search.
+ * Identical chunk texts are embedded once and share a vector. Analysis requests hand their chunks
+ * to a background thread, so a failing or slow embedding API never fails a paid-for analysis;
+ * embedding calls go through the OpenAI bulkhead and circuit breaker. The index and the chunk
+ * references are written to {@code app.embedding.index-dir} at most every {@code save-interval-ms}
+ * and on shutdown, as one numbered generation: both files are written first and the manifest naming
+ * the generation last, so a crash mid-save leaves the previous generation in place.
+ */
+@Service
+public class ChunkEmbeddingService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkEmbeddingService.class);
+    private static final String MANIFEST_FILE = "chunks-manifest.json";
+
+    private final EmbeddingModel embeddingModel;
+    private final EmbeddingProperties properties;
+    private final ObjectMapper objectMapper;
+    private final DependencyGuard dependencyGuard;
+    private final HnswIndex index;
+    private final List<IndexedNode> nodes = new ArrayList<>();
+    private final Map<String, Integer> nodeByContentHash = new HashMap<>();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(
+            Thread.ofPlatform().name("chunk-indexer").daemon().factory());
+    private final ScheduledExecutorService saver = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chunk-index-saver").daemon().factory());
+    private boolean dirty;
+    private long generation;
+
+    public ChunkEmbeddingService(@Lazy @Qualifier("chunks") EmbeddingModel embeddingModel,
+            EmbeddingProperties properties,
+            ObjectMapper objectMapper,
+            DependencyGuard dependencyGuard) {
+        this.embeddingModel = embeddingModel;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.dependencyGuard = dependencyGuard;
+        this.index = new HnswIndex(properties.m(), properties.efConstruction());
+        load();
+        long interval = Math.max(1000, properties.saveIntervalMs());
+        saver.scheduleWithFixedDelay(this::saveIfDirty, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Indexes the chunks on the background thread; failures are logged, not thrown.
+     */
+    public void indexChunksAsync(List<DocumentChunk> chunks) {
+        indexer.execute(() -> {
+            try {
+                indexChunks(chunks);
+            } catch (RuntimeException e) {
+                log.error("Failed to index {} chunks for search", chunks.size(), e);
+            }
+        });
+    }
+
+    public synchronized void indexChunks(List<DocumentChunk> chunks) {
+        // Group chunks by text so each distinct text is embedded once
+        Map<String, List<DocumentChunk>> pending = new LinkedHashMap<>();
+        Map<String, String> textByHash = new HashMap<>();
+        int reused = 0;
+        for (DocumentChunk chunk : chunks) {
+            String text = chunk.content().toString();
+            String hash = contentHash(text);
+            Integer existing = nodeByContentHash.get(hash);
+            if (existing != null) {
+                nodes.get(existing).addChunk(ChunkRef.of(chunk));
+                reused++;
+                continue;
+            }
+            pending.computeIfAbsent(hash, k -> new ArrayList<>()).add(chunk);
+            textByHash.putIfAbsent(hash, text);
+        }
+
+        List<String> hashes = new ArrayList<>(pending.keySet());
+        int batchSize = Math.max(1, properties.batchSize());
+        for (int from = 0; from < hashes.size(); from += batchSize) {
+            List<String> batchHashes = hashes.subList(from, Math.min(hashes.size(), from + batchSize));
+            List<float[]> vectors = dependencyGuard.call(Dependency.OPENAI,
+                    () -> embeddingModel.embed(batchHashes.stream().map(textByHash::get).toList()));
+
+            for (int i = 0; i < batchHashes.size(); i++) {
+                String hash = batchHashes.get(i);
+                int node = index.add(vectors.get(i));
+                IndexedNode indexedNode = new IndexedNode(hash, new ArrayList<>());
+                pending.get(hash).forEach(chunk -> indexedNode.addChunk(ChunkRef.of(chunk)));
+                nodes.add(indexedNode);
+                nodeByContentHash.put(hash, node);
+            }
+        }
+
+        log.info("Indexed {} chunks: {} embedded in {} batches, {} reused existing vectors",
+                chunks.size(), hashes.size(), (hashes.size() + batchSize - 1) / batchSize, reused);
+        dirty = true;
+    }
+
+    public List<ChunkSearchResult> search(String query, int k) {
+        float[] vector = dependencyGuard.call(Dependency.OPENAI, () -> embeddingModel.embed(query));
+        List<HnswIndex.Neighbor> neighbors = index.search(vector, k, Math.max(k, properties.efSearch()));
+
+        List<ChunkSearchResult> results = new ArrayList<>();
+        synchronized (this) {
+            for (HnswIndex.Neighbor neighbor : neighbors) {
+                double score = 1.0 - neighbor.distance();
+                for (ChunkRef chunk : nodes.get(neighbor.node()).chunks()) {
+                    results.add(new ChunkSearchResult(chunk.chunkId(), chunk.fileName(), chunk.startPage(),
+                            chunk.endPage(), score, chunk.content()));
+                }
+            }
+        }
+        return results.size() > k ? results.subList(0, k) : results;
+    }
+
+    private void load() {
+        Path manifestPath = indexDir().resolve(MANIFEST_FILE);
+        if (!Files.exists(manifestPath)) {
+            return;
+        }
+        try {
+            Manifest manifest = objectMapper.readValue(manifestPath.toFile(), Manifest.class);
+            generation = manifest.generation();
+            List<IndexedNode> stored = objectMapper.readValue(nodesPath(generation).toFile(),
+                    new TypeReference<List<IndexedNode>>() {
+                    });
+            index.load(indexPath(generation));
+            if (stored.size() != index.size()) {
+                // Node ids are positions in both files; a mismatch would attach results to the wrong chunks
+                log.warn("Chunk index generation {} has {} vectors but {} chunk references, starting empty",
+                        generation, index.size(), stored.size());
+                index.clear();
+                return;
+            }
+            nodes.addAll(stored);
+            for (int i = 0; i < nodes.size(); i++) {
+                nodeByContentHash.put(nodes.get(i).contentHash(), i);
+            }
+            log.info("Loaded chunk index generation {} with {} vectors from {}", generation, index.size(),
+                    indexDir());
+        } catch (IOException e) {
+            log.warn("Failed to load chunk index from {}, starting empty", indexDir(), e);
+            index.clear();
+        }
+    }
+
+    private synchronized void saveIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        long next = generation + 1;
+        try {
+            Files.createDirectories(indexDir());
+            index.save(indexPath(next));
+            objectMapper.writeValue(nodesPath(next).toFile(), nodes);
+            // The manifest is the commit point: until it moves into place, load() reads the previous generation
+            Path manifestPath = indexDir().resolve(MANIFEST_FILE);
+            Path tmp = manifestPath.resolveSibling(MANIFEST_FILE + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), new Manifest(next, nodes.size()));
+            Files.move(tmp, manifestPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to persist chunk index to {}", indexDir(), e);
+            return;
+        }
+        long previous = generation;
+        generation = next;
+        dirty = false;
+        try {
+            // The index may still read vectors mapped from the previous file; an unlinked file stays mapped
+            Files.deleteIfExists(indexPath(previous));
+            Files.deleteIfExists(nodesPath(previous));
+        } catch (IOException e) {
+            log.warn("Failed to delete chunk index generation {} in {}", previous, indexDir(), e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        indexer.shutdown();
+        if (!indexer.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Chunk indexing still running at shutdown, saving what is indexed");
+            indexer.shutdownNow();
+        }
+        saver.shutdownNow();
+        saveIfDirty();
+    }
+
+    private Path indexDir() {
+        return Path.of(properties.indexDir() != null ? properties.indexDir() : "output/index");
+    }
+
+    private Path indexPath(long generation) {
+        return indexDir().resolve("chunks-" + generation + ".hnsw");
+    }
+
+    private Path nodesPath(long generation) {
+        return indexDir().resolve("chunks-" + generation + ".json");
+    }
+
+    private static String contentHash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Manifest(long generation, int vectors) {
+    }
+
+    private record IndexedNode(String contentHash, List<ChunkRef> chunks) {
+        void addChunk(ChunkRef chunk) {
+            if (chunks.stream().noneMatch(c -> c.chunkId().equals(chunk.chunkId()))) {
+                chunks.add(chunk);
+            }
+        }
+    }
+
+    private record ChunkRef(String chunkId, String fileName, int startPage, int endPage, String content) {
+        static ChunkRef of(DocumentChunk chunk) {
+            return new ChunkRef(chunk.id(), chunk.metadata().fileName(), chunk.metadata().startPage(),
+                    chunk.metadata().endPage(), chunk.content().toString());
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.pdfanalyzer.service;
+
+import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Narrows a page's resources to the entries its content stream actually names, so a chunk does not carry
+ * every font and image of a resource dictionary shared by the whole source document.
+ * <p>
+ * The page gets a new resource dictionary; the values are the original indirect objects, so pages of one chunk
+ * still share them and the source dictionary is left as it was. Every name operand counts as a reference,
+ * which keeps a few unused entries in rare cases but never drops a used one.
+ */
+final class ChunkResourcePruner {
+
+    private static final int MAX_FORM_DEPTH = 8;
+    private static final COSName[] CATEGORIES = { COSName.FONT, COSName.XOBJECT, COSName.EXT_G_STATE,
+            COSName.COLORSPACE, COSName.PATTERN, COSName.SHADING, COSName.PROPERTIES };
+
+    /**
+     * Replaces the page resources with the referenced subset and returns the number of entries dropped. Pages
+     * whose content cannot be parsed keep their resources.
+     */
+    int prune(PDPage page) {
+        PDResources resources = page.getResources();
+        if (resources == null) {
+            return 0;
+        }
+        COSDictionary source = resources.getCOSObject();
+
+        Set<COSName> used = new HashSet<>();
+        try {
+            collect(page, source, used, Collections.newSetFromMap(new IdentityHashMap<>()), 0);
+        } catch (IOException | RuntimeException e) {
+            return 0;
+        }
+
+        COSDictionary pruned = new COSDictionary(source);
+        int dropped = 0;
+        for (COSName category : CATEGORIES) {
+            if (!(source.getDictionaryObject(category) instanceof COSDictionary entries)) {
+                continue;
+            }
+            COSDictionary kept = new COSDictionary();
+            for (COSName name : entries.keySet()) {
+                if (used.contains(name)) {
+                    kept.setItem(name, entries.getItem(name));
+                } else {
+                    dropped++;
+                }
+            }
+            pruned.setItem(category, kept);
+        }
+        page.setResources(new PDResources(pruned));
+        return dropped;
+    }
+
+    /**
+     * Adds the names used by the content, descending into forms and tiling patterns that have no resources of
+     * their own and therefore draw from the page resources.
+     */
+    private void collect(PDContentStream content, COSDictionary resources, Set<COSName> used,
+            Set<COSBase> visited, int depth) throws IOException {
+        if (depth > MAX_FORM_DEPTH) {
+            throw new IOException("Form nesting deeper than " + MAX_FORM_DEPTH);
+        }
+        PDFStreamParser parser = new PDFStreamParser(content);
+        for (Object token = parser.parseNextToken(); token != null; token = parser.parseNextToken()) {
+            if (token instanceof COSName name) {
+                if (used.add(name)) {
+                    collectInherited(name, resources, used, visited, depth);
+                }
+            } else if (token instanceof Operator operator && operator.getImageParameters() != null) {
+                // Inline images name their colour space inside the BI dictionary
+                for (COSBase value : operator.getImageParameters().getValues()) {
+                    if (value instanceof COSName name) {
+                        used.add(name);
+                    }
+                }
+            }
+        }
+    }
+
+    private void collectInherited(COSName name, COSDictionary resources, Set<COSName> used, Set<COSBase> visited,
+            int depth) throws IOException {
+        for (COSName category : new COSName[] { COSName.XOBJECT, COSName.PATTERN }) {
+            if (!(resources.getDictionaryObject(category) instanceof COSDictionary entries)
+                    || !(entries.getDictionaryObject(name) instanceof COSStream stream)
+                    || stream.getCOSDictionary(COSName.RESOURCES) != null
+                    || !visited.add(stream)) {
+                continue;
+            }
+            boolean form = COSName.XOBJECT.equals(category) && COSName.FORM.equals(stream.getCOSName(COSName.SUBTYPE));
+            if (form || COSName.PATTERN.equals(category)) {
+                collect(new PDFormXObject(stream), resources, used, visited, depth + 1);
+            }
+        }
+        // A Type 3 font without resources draws its glyphs with the page resources, which are not tracked here
+        if (resources.getDictionaryObject(COSName.FONT) instanceof COSDictionary fonts
+                && fonts.getDictionaryObject(name) instanceof COSDictionary font
+                && COSName.TYPE3.equals(font.getCOSName(COSName.SUBTYPE))
+                && font.getCOSDictionary(COSName.RESOURCES) == null) {
+            throw new IOException("Type 3 font " + name.getName() + " uses the page resources");
+        }
+    }
+}
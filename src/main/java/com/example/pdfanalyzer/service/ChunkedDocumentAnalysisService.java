@@ -9,78 +9,220 @@ import com.azure.ai.documentintelligence.models.DocumentParagraph;
 import com.azure.ai.documentintelligence.models.DocumentTable;
 import com.example.pdfanalyzer.config.ChunkingProperties;
 import com.example.pdfanalyzer.dto.ChunkedAnalysisResponse;
+import com.example.pdfanalyzer.model.ChunkResult;
+import com.example.pdfanalyzer.model.PageSelection;
 import com.example.pdfanalyzer.model.Section;
+import com.example.pdfanalyzer.model.TableData;
+import com.example.pdfanalyzer.service.DependencyGuard.Dependency;
+import com.example.pdfanalyzer.service.PdfSplitterService.PageChunk;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.IntUnaryOperator;
 
 @Service
 public class ChunkedDocumentAnalysisService {
 
     private static final Logger log = LoggerFactory.getLogger(ChunkedDocumentAnalysisService.class);
     private static final Set<String> EXCLUDED_ROLES = Set.of("pageHeader", "pageFooter", "pageNumber");
+    static final String CHUNK_CACHE = "chunks";
 
     private final DocumentIntelligenceClient client;
     private final PdfSplitterService splitterService;
     private final ChunkingProperties chunkingProperties;
+    private final RunningHeaderFilter runningHeaderFilter;
+    private final DependencyGuard dependencyGuard;
+    private final ChunkCheckpoints sharedCheckpoints;
+
+    /**
+     * Storage for finished chunks, so an interrupted analysis resumes after the last one. Keys are derived from
+     * the file content and the chunk's pages, so saving the same chunk again just overwrites it.
+     */
+    public interface ChunkCheckpoints {
+
+        ChunkCheckpoints NONE = new ChunkCheckpoints() {
+            @Override
+            public Optional<ChunkResult> load(String key) {
+                return Optional.empty();
+            }
+
+            @Override
+            public void save(String key, ChunkResult result) {
+            }
+        };
+
+        Optional<ChunkResult> load(String key) throws IOException;
+
+        void save(String key, ChunkResult result) throws IOException;
+    }
 
     public ChunkedDocumentAnalysisService(DocumentIntelligenceClient client,
             PdfSplitterService splitterService,
-            ChunkingProperties chunkingProperties) {
+            ChunkingProperties chunkingProperties,
+            RunningHeaderFilter runningHeaderFilter,
+            DependencyGuard dependencyGuard,
+            CacheManager cacheManager) {
         this.client = client;
         this.splitterService = splitterService;
         this.chunkingProperties = chunkingProperties;
+        this.runningHeaderFilter = runningHeaderFilter;
+        this.dependencyGuard = dependencyGuard;
+        this.sharedCheckpoints = cacheCheckpoints(cacheManager.getCache(CHUNK_CACHE));
     }
 
-    public ChunkedAnalysisResponse analyzeDocumentInChunks(Path pdfPath) throws IOException {
-        log.info("Starting chunked analysis for: {}", pdfPath);
+    public ChunkedAnalysisResponse analyzeDocumentInChunks(Path pdfPath, PageSelection pages) throws IOException {
+        StringWriter markdown = new StringWriter();
+        ChunkedAnalysisResponse response = analyzeDocumentInChunks(pdfPath, pages, markdown);
+        return new ChunkedAnalysisResponse(response.sections(), markdown.toString(), response.qualityMetrics(),
+                response.tables());
+    }
+
+    /**
+     * Analyzes the document chunk by chunk, writing each chunk's markdown to {@code markdown} as soon as it is
+     * analyzed. The returned response carries no {@code content}. Only the selected pages are sent to DI; section
+     * page numbers refer to the original document. Chunks any instance analyzed before for the same content are
+     * taken from the shared {@code chunks} cache.
+     */
+    public ChunkedAnalysisResponse analyzeDocumentInChunks(Path pdfPath, PageSelection pages, Writer markdown)
+            throws IOException {
+        return analyzeDocumentInChunks(pdfPath, pages, markdown, sharedCheckpoints);
+    }
+
+    /**
+     * Same as {@link #analyzeDocumentInChunks(Path, PageSelection, Writer)}, but chunks found in
+     * {@code checkpoints} are not sent to DI again and every newly analyzed chunk is saved there.
+     */
+    public ChunkedAnalysisResponse analyzeDocumentInChunks(Path pdfPath, PageSelection pages, Writer markdown,
+            ChunkCheckpoints checkpoints) throws IOException {
+        log.info("Starting chunked analysis for: {} (pages: {})", pdfPath, pages);
 
         int pagesPerChunk = Math.max(1, chunkingProperties.pagesPerChunk());
-        List<byte[]> pdfChunks = splitterService.splitPdfByPages(pdfPath, pagesPerChunk);
+        List<PageChunk> pdfChunks = splitterService.splitPdfByPages(pdfPath, pagesPerChunk, pages);
+        String documentKey = checkpoints != ChunkCheckpoints.NONE ? documentKey(pdfPath) : null;
 
         List<Section> allSections = new ArrayList<>();
-        StringBuilder markdownBuilder = new StringBuilder();
-        int pageOffset = 0;
+        List<TableData> tables = new ArrayList<>();
+        QualityMetricsAccumulator quality = new QualityMetricsAccumulator();
+        MarkdownRenderer md = new MarkdownRenderer(markdown);
+        md.heading(1, "Document Analysis");
+        int restored = 0;
 
         for (int i = 0; i < pdfChunks.size(); i++) {
-            log.info("Analyzing chunk {}/{}", i + 1, pdfChunks.size());
+            PageChunk chunk = pdfChunks.get(i);
+            String key = documentKey + "-" + PageSelection.format(chunk.pageNumbers());
+            Optional<ChunkResult> checkpoint = documentKey != null ? checkpoints.load(key) : Optional.empty();
+
+            ChunkResult chunkResult;
+            if (checkpoint.isPresent()) {
+                log.info("Chunk {}/{} restored from checkpoint", i + 1, pdfChunks.size());
+                chunkResult = checkpoint.get();
+                restored++;
+            } else {
+                log.info("Analyzing chunk {}/{}", i + 1, pdfChunks.size());
+                chunkResult = analyzeChunk(chunk, i + 1);
+                if (documentKey != null) {
+                    checkpoints.save(key, chunkResult);
+                }
+            }
+
+            allSections.addAll(chunkResult.sections());
+            for (TableData table : chunkResult.tables()) {
+                tables.add(new TableData(tables.size() + 1, table.pageNumber(), table.headerRows(), table.columns(),
+                        table.rows()));
+            }
+            chunkResult.pages().forEach(quality::addPage);
 
-            byte[] chunkBytes = pdfChunks.get(i);
-            AnalyzeResult result = analyzeChunk(chunkBytes);
+            // Stream markdown for this chunk
+            md.raw(chunkResult.markdown());
+            markdown.flush();
+        }
+        if (restored > 0) {
+            log.info("Reused {} of {} chunks from checkpoints", restored, pdfChunks.size());
+        }
 
-            // Extract sections with page offset
-            List<Section> chunkSections = extractSections(result, pageOffset);
-            allSections.addAll(chunkSections);
+        md.finish();
+        allSections.sort(Comparator.comparingInt(Section::pageNumber));
+        // The markdown is already streamed; running headers are stripped from the sections only
+        List<Section> sections = runningHeaderFilter.strip(allSections);
+        log.info("Chunked analysis completed. Total sections: {}, tables: {}", sections.size(), tables.size());
 
-            // Extract tables as sections
-            List<Section> tableSections = extractTables(result, pageOffset);
-            allSections.addAll(tableSections);
+        return new ChunkedAnalysisResponse(sections, null, quality.build(), tables);
+    }
 
-            // Build markdown for this chunk
-            String chunkMarkdown = buildMarkdownForChunk(chunkSections, tableSections, result, i + 1);
-            markdownBuilder.append(chunkMarkdown);
+    private ChunkResult analyzeChunk(PageChunk chunk, int chunkNumber) throws IOException {
+        IntUnaryOperator documentPage = chunk::documentPage;
+        AnalyzeResult result = callDocumentIntelligence(chunk.content());
+        QualityMetricsAccumulator quality = new QualityMetricsAccumulator();
+        quality.addPages(result.getPages(), documentPage);
 
-            // Update page offset for next chunk
-            if (result.getPages() != null) {
-                pageOffset += result.getPages().size();
+        // Extract sections with original page numbers
+        List<Section> chunkSections = extractSections(result, documentPage, quality);
+
+        // Extract tables as sections
+        List<TableData> tables = new ArrayList<>();
+        List<Section> tableSections = extractTables(result, documentPage, quality, tables);
+
+        List<Section> sections = new ArrayList<>(chunkSections);
+        sections.addAll(tableSections);
+        // Pages identical to one in this chunk were not sent; they get its sections
+        sections.addAll(copySections(chunk, chunkSections));
+        sections.addAll(copySections(chunk, tableSections));
+
+        StringWriter markdown = new StringWriter();
+        MarkdownRenderer md = new MarkdownRenderer(markdown);
+        renderChunk(md, chunk, chunkSections, tableSections, result, chunkNumber);
+        md.finish();
+
+        return new ChunkResult(chunk.pageNumbers(), sections, tables, quality.build().pages(), markdown.toString());
+    }
+
+    private static ChunkCheckpoints cacheCheckpoints(Cache cache) {
+        return new ChunkCheckpoints() {
+            @Override
+            public Optional<ChunkResult> load(String key) {
+                return Optional.ofNullable(cache.get(key, ChunkResult.class));
             }
-        }
 
-        String fullMarkdown = markdownBuilder.toString();
-        log.info("Chunked analysis completed. Total sections: {}, Total markdown length: {}",
-                allSections.size(), fullMarkdown.length());
+            @Override
+            public void save(String key, ChunkResult result) {
+                cache.put(key, result);
+            }
+        };
+    }
 
-        return new ChunkedAnalysisResponse(allSections, fullMarkdown);
+    private static String documentKey(Path pdfPath) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(pdfPath), sha)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(sha.digest());
     }
 
-    private AnalyzeResult analyzeChunk(byte[] pdfBytes) {
+    private AnalyzeResult callDocumentIntelligence(byte[] pdfBytes) {
         AnalyzeDocumentRequest request = new AnalyzeDocumentRequest();
         request.setBase64Source(pdfBytes);
 
@@ -90,7 +232,7 @@ public class ChunkedDocumentAnalysisService {
                 DocumentAnalysisFeature.KEY_VALUE_PAIRS // Key-value pairs
         );
 
-        var poller = client.beginAnalyzeDocument(
+        return dependencyGuard.call(Dependency.DOCUMENT_INTELLIGENCE, () -> client.beginAnalyzeDocument(
                 "prebuilt-layout",
                 null, // pages - null = all pages
                 "pl-PL", // locale for better Polish OCR
@@ -98,104 +240,73 @@ public class ChunkedDocumentAnalysisService {
                 features, // features: tables, styles, etc.
                 null, // queryFields
                 ContentFormat.MARKDOWN, // outputContentFormat: MARKDOWN
-                request);
-
-        return poller.getFinalResult();
+                request).getFinalResult());
     }
 
-    private List<Section> extractSections(AnalyzeResult result, int pageOffset) {
+    private List<Section> extractSections(AnalyzeResult result, IntUnaryOperator documentPage,
+            QualityMetricsAccumulator quality) {
         if (result.getParagraphs() == null) {
             return List.of();
         }
 
-        return result.getParagraphs().stream()
-                .filter(p -> !isExcludedRole(p.getRole()))
-                .map(p -> mapToSection(p, pageOffset))
-                .collect(Collectors.toList());
+        List<Section> sections = new ArrayList<>();
+        for (DocumentParagraph paragraph : result.getParagraphs()) {
+            if (isExcludedRole(paragraph.getRole())) {
+                continue;
+            }
+            Section section = mapToSection(paragraph, documentPage, quality);
+            sections.add(section);
+            quality.addSection(section);
+        }
+        return sections;
     }
 
-    private List<Section> extractTables(AnalyzeResult result, int pageOffset) {
+    private List<Section> extractTables(AnalyzeResult result, IntUnaryOperator documentPage,
+            QualityMetricsAccumulator quality,
+            List<TableData> tables) throws IOException {
         if (result.getTables() == null) {
             return List.of();
         }
 
         List<Section> tableSections = new ArrayList<>();
         for (DocumentTable table : result.getTables()) {
+            SparseTable sparse = SparseTable.of(table);
+            if (sparse.isEmpty()) {
+                continue;
+            }
+
             // Get table page number
-            int pageNumber = 1;
+            int pageNumber = documentPage.applyAsInt(1);
             if (table.getBoundingRegions() != null && !table.getBoundingRegions().isEmpty()) {
                 Integer pageNum = table.getBoundingRegions().get(0).getPageNumber();
-                pageNumber = (pageNum != null ? pageNum : 1) + pageOffset;
+                pageNumber = documentPage.applyAsInt(pageNum != null ? pageNum : 1);
             }
 
+            tables.add(sparse.toTableData(tables.size() + 1, pageNumber));
+
             // Build markdown table
-            String tableMarkdown = buildTableMarkdown(table);
-            tableSections.add(new Section("table", tableMarkdown, pageNumber, 1.0));
+            StringWriter tableMarkdown = new StringWriter();
+            sparse.writeMarkdown(tableMarkdown);
+            Section section = new Section("table", tableMarkdown.toString(), pageNumber,
+                    quality.confidence(table.getSpans()));
+            tableSections.add(section);
+            quality.addSection(section);
         }
 
         return tableSections;
     }
 
-    private String buildTableMarkdown(DocumentTable table) {
-        if (table.getCells() == null || table.getCells().isEmpty()) {
-            return "";
-        }
-
-        Integer rowCount = table.getRowCount();
-        Integer columnCount = table.getColumnCount();
-
-        if (rowCount == null || columnCount == null || rowCount == 0 || columnCount == 0) {
-            return "";
-        }
-
-        // Initialize table structure
-        String[][] tableData = new String[rowCount][columnCount];
-        for (int i = 0; i < rowCount; i++) {
-            for (int j = 0; j < columnCount; j++) {
-                tableData[i][j] = "";
-            }
-        }
-
-        // Fill table data
-        table.getCells().forEach(cell -> {
-            Integer rowIdx = cell.getRowIndex();
-            Integer colIdx = cell.getColumnIndex();
-            String content = cell.getContent() != null ? cell.getContent() : "";
-
-            if (rowIdx != null && colIdx != null &&
-                    rowIdx >= 0 && rowIdx < rowCount &&
-                    colIdx >= 0 && colIdx < columnCount) {
-                tableData[rowIdx][colIdx] = content;
-            }
-        });
-
-        // Build markdown
-        StringBuilder md = new StringBuilder();
-
-        // Header row
-        md.append("|");
-        for (int j = 0; j < columnCount; j++) {
-            md.append(" ").append(tableData[0][j]).append(" |");
-        }
-        md.append("\\n");
-
-        // Separator
-        md.append("|");
-        for (int j = 0; j < columnCount; j++) {
-            md.append("---|");
+    private List<Section> copySections(PageChunk chunk, List<Section> sections) {
+        if (chunk.copies().isEmpty()) {
+            return List.of();
         }
-        md.append("\\n");
-
-        // Data rows
-        for (int i = 1; i < rowCount; i++) {
-            md.append("|");
-            for (int j = 0; j < columnCount; j++) {
-                md.append(" ").append(tableData[i][j]).append(" |");
+        List<Section> copies = new ArrayList<>();
+        for (Section section : sections) {
+            for (int copy : chunk.copiesOf(section.pageNumber())) {
+                copies.add(new Section(section.role(), section.content(), copy, section.confidence()));
             }
-            md.append("\\n");
         }
-
-        return md.toString();
+        return copies;
     }
 
     private boolean isExcludedRole(com.azure.ai.documentintelligence.models.ParagraphRole role) {
@@ -205,11 +316,12 @@ public class ChunkedDocumentAnalysisService {
         return EXCLUDED_ROLES.contains(role.toString());
     }
 
-    private Section mapToSection(DocumentParagraph paragraph, int pageOffset) {
+    private Section mapToSection(DocumentParagraph paragraph, IntUnaryOperator documentPage,
+            QualityMetricsAccumulator quality) {
         String role = paragraph.getRole() != null ? paragraph.getRole().toString() : "paragraph";
         String content = paragraph.getContent() != null ? paragraph.getContent() : "";
-        int pageNumber = extractPageNumber(paragraph) + pageOffset;
-        Double confidence = 1.0;
+        int pageNumber = documentPage.applyAsInt(extractPageNumber(paragraph));
+        Double confidence = quality.confidence(paragraph.getSpans());
 
         return new Section(role, content, pageNumber, confidence);
     }
@@ -222,55 +334,31 @@ public class ChunkedDocumentAnalysisService {
         return 1;
     }
 
-    private String buildMarkdownForChunk(List<Section> sections, List<Section> tables, AnalyzeResult result,
-            int chunkNumber) {
-        StringBuilder md = new StringBuilder();
-
-        if (chunkNumber == 1) {
-            md.append("# Document Analysis\n\n");
+    private void renderChunk(MarkdownRenderer md, PageChunk chunk, List<Section> sections, List<Section> tables,
+            AnalyzeResult result, int chunkNumber) throws IOException {
+        md.heading(2, "Chunk " + chunkNumber);
+        for (var entry : chunk.copies().entrySet()) {
+            md.quote("Duplicate",
+                    "Pages " + PageSelection.format(entry.getValue()) + " repeat page " + entry.getKey());
         }
 
-        md.append("## Chunk ").append(chunkNumber).append("\n\n");
-
         // If Azure DI returned markdown content directly, use it
         if (result.getContent() != null && !result.getContent().isEmpty()) {
-            md.append(result.getContent()).append("\n\n");
-            return md.toString();
+            md.raw(result.getContent()).blankLine().blankLine();
+            return;
         }
 
         // Otherwise build from sections
-        int currentPage = -1;
         for (Section section : sections) {
-            if (section.pageNumber() != currentPage) {
-                currentPage = section.pageNumber();
-                md.append("\n### Page ").append(currentPage).append("\n\n");
-            }
-
-            String content = section.content().trim();
-            if (content.isEmpty()) {
-                continue;
-            }
-
-            String formattedSection = formatSectionForMarkdown(section.role(), content);
-            md.append(formattedSection).append("\n\n");
+            md.page(section.pageNumber()).section(section.role(), section.content());
         }
 
         // Add tables
         if (!tables.isEmpty()) {
-            md.append("\n### Tables\n\n");
+            md.heading(3, "Tables");
             for (Section table : tables) {
-                md.append(table.content()).append("\n\n");
+                md.raw(table.content()).blankLine().blankLine();
             }
         }
-
-        return md.toString();
-    }
-
-    private String formatSectionForMarkdown(String role, String content) {
-        return switch (role.toLowerCase()) {
-            case "title" -> "# " + content;
-            case "sectionheading" -> "## " + content;
-            default -> content;
-        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.model.SectionClassification;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental parser for the section classification answer.
+ * Fragments can be fed as they are streamed; every complete {@code "index": "LABEL"} pair is
+ * picked up as soon as it arrives, so markdown fences, surrounding prose or a truncated tail
+ * do not invalidate the entries that were already received.
+ */
+class ClassificationResponseParser {
+
+    private static final Pattern ENTRY = Pattern.compile(
+            "\"?(\\d{1,9})\"?\\s*:\\s*\"(KEEP|REMOVE|AUXILIARY)\"",
+            Pattern.CASE_INSENSITIVE);
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final Map<Integer, SectionClassification> result = new HashMap<>();
+    private int scanFrom = 0;
+
+    void accept(String fragment) {
+        if (fragment == null || fragment.isEmpty()) {
+            return;
+        }
+        buffer.append(fragment);
+
+        Matcher matcher = ENTRY.matcher(buffer);
+        while (matcher.find(scanFrom)) {
+            int index = Integer.parseInt(matcher.group(1));
+            result.put(index, SectionClassification.valueOf(matcher.group(2).toUpperCase()));
+            scanFrom = matcher.end();
+        }
+    }
+
+    Map<Integer, SectionClassification> result() {
+        return result;
+    }
+}
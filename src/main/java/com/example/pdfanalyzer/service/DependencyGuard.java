@@ -0,0 +1,129 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.ResilienceProperties;
+import com.example.pdfanalyzer.config.ResilienceProperties.Limits;
+import com.example.pdfanalyzer.dto.DependencyHealth;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bulkhead and circuit breaker per external dependency.
+ * <p>
+ * Each dependency gets its own semaphore bulkhead, so a slow one holds at most {@code maxConcurrentCalls}
+ * request threads and callers beyond that give up after {@code maxWaitMs} instead of queuing behind it. The
+ * circuit breaker opens on a high failure or slow-call rate and then rejects calls immediately until
+ * {@code openStateMs} has passed. Rejections surface as {@link DependencyUnavailableException}.
+ */
+@Service
+public class DependencyGuard {
+
+    private static final Logger log = LoggerFactory.getLogger(DependencyGuard.class);
+
+    public enum Dependency {
+        DOCUMENT_INTELLIGENCE("document-intelligence"),
+        OPENAI("openai"),
+        ANTHROPIC("anthropic");
+
+        private final String key;
+
+        Dependency(String key) {
+            this.key = key;
+        }
+
+        public String key() {
+            return key;
+        }
+    }
+
+    private final Map<Dependency, Bulkhead> bulkheads = new EnumMap<>(Dependency.class);
+    private final Map<Dependency, CircuitBreaker> breakers = new EnumMap<>(Dependency.class);
+
+    public DependencyGuard(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.ofDefaults();
+        CircuitBreakerRegistry breakerRegistry = CircuitBreakerRegistry.ofDefaults();
+        Map<String, Limits> configured = properties.dependencies() != null ? properties.dependencies() : Map.of();
+
+        for (Dependency dependency : Dependency.values()) {
+            Limits limits = configured.getOrDefault(dependency.key(), Limits.DEFAULT);
+            bulkheads.put(dependency, bulkheadRegistry.bulkhead(dependency.key(), BulkheadConfig.custom()
+                    .maxConcurrentCalls(limits.maxConcurrentCalls())
+                    .maxWaitDuration(Duration.ofMillis(limits.maxWaitMs()))
+                    .build()));
+
+            CircuitBreaker breaker = breakerRegistry.circuitBreaker(dependency.key(), CircuitBreakerConfig.custom()
+                    .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                    .slidingWindowSize(limits.windowSize())
+                    .minimumNumberOfCalls(limits.minimumCalls())
+                    .failureRateThreshold(limits.failureRateThreshold())
+                    .slowCallDurationThreshold(Duration.ofMillis(limits.slowCallMs()))
+                    .slowCallRateThreshold(limits.slowCallRateThreshold())
+                    .waitDurationInOpenState(Duration.ofMillis(limits.openStateMs()))
+                    .permittedNumberOfCallsInHalfOpenState(Math.max(1, limits.minimumCalls() / 2))
+                    // A rejected page selection or bad input is the caller's fault, not the dependency's
+                    .ignoreExceptions(IllegalArgumentException.class)
+                    .build());
+            breaker.getEventPublisher().onStateTransition(event -> log.warn("Circuit breaker {}: {}",
+                    dependency.key(), event.getStateTransition()));
+            breakers.put(dependency, breaker);
+        }
+
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(breakerRegistry).bindTo(meterRegistry);
+    }
+
+    public <T> T call(Dependency dependency, Supplier<T> call) {
+        Supplier<T> guarded = Bulkhead.decorateSupplier(bulkheads.get(dependency),
+                CircuitBreaker.decorateSupplier(breakers.get(dependency), call));
+        try {
+            return guarded.get();
+        } catch (CallNotPermittedException e) {
+            throw new DependencyUnavailableException(dependency,
+                    dependency.key() + " is unavailable (circuit breaker open)", e);
+        } catch (BulkheadFullException e) {
+            throw new DependencyUnavailableException(dependency,
+                    dependency.key() + " is at its concurrency limit", e);
+        }
+    }
+
+    /**
+     * Whether a call would currently be let through; an open breaker rejects every call until it half-opens.
+     */
+    public boolean isAvailable(Dependency dependency) {
+        CircuitBreaker.State state = breakers.get(dependency).getState();
+        return state != CircuitBreaker.State.OPEN && state != CircuitBreaker.State.FORCED_OPEN;
+    }
+
+    public Map<String, DependencyHealth> health() {
+        Map<String, DependencyHealth> health = new LinkedHashMap<>();
+        for (Dependency dependency : Dependency.values()) {
+            CircuitBreaker.Metrics metrics = breakers.get(dependency).getMetrics();
+            Bulkhead bulkhead = bulkheads.get(dependency);
+            health.put(dependency.key(), new DependencyHealth(
+                    breakers.get(dependency).getState().name(),
+                    metrics.getFailureRate(),
+                    metrics.getSlowCallRate(),
+                    metrics.getNumberOfBufferedCalls(),
+                    bulkhead.getMetrics().getAvailableConcurrentCalls(),
+                    bulkhead.getMetrics().getMaxAllowedConcurrentCalls()));
+        }
+        return health;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.pdfanalyzer.service;
+
+/**
+ * Thrown instead of calling a dependency whose circuit breaker is open or whose bulkhead is full.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final DependencyGuard.Dependency dependency;
+
+    public DependencyUnavailableException(DependencyGuard.Dependency dependency, String message, Throwable cause) {
+        super(message, cause);
+        this.dependency = dependency;
+    }
+
+    public DependencyGuard.Dependency dependency() {
+        return dependency;
+    }
+}
@@ -2,25 +2,41 @@ package com.example.pdfanalyzer.service;
 
 import com.azure.ai.documentintelligence.DocumentIntelligenceClient;
 import com.azure.ai.documentintelligence.models.*;
+import com.example.pdfanalyzer.config.StoreProperties;
 import com.example.pdfanalyzer.model.AnalysisResult;
-import com.example.pdfanalyzer.model.QualityMetrics;
+import com.example.pdfanalyzer.model.PageQuality;
+import com.example.pdfanalyzer.model.PageSelection;
+import com.example.pdfanalyzer.model.PageSources;
 import com.example.pdfanalyzer.model.Section;
+import com.example.pdfanalyzer.service.DependencyGuard.Dependency;
+import com.example.pdfanalyzer.service.DuplicatePageDetector.PageGroups;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.pdmodel.PDDocument;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
-import java.util.regex.Pattern;
-import java.util.stream.Collectors;
+import java.util.function.IntUnaryOperator;
 
 @Service
 public class DocumentAnalysisService {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentAnalysisService.class);
+    static final String PAGE_CACHE = "pages";
+    private static final String IN_FLIGHT = "analysis:";
     private static final Set<String> EXCLUDED_ROLES = Set.of(
             "pageHeader",
             "pageFooter",
@@ -30,60 +46,263 @@ public class DocumentAnalysisService {
     // "caption", // podpisy
     // "formulaBlock" // formuły
     );
-    private static final Pattern STRUCTURE_MARKERS = Pattern.compile("§\\s*\\d+|Art\\.\\s*\\d+|pkt\\s+\\d+");
 
     private final DocumentIntelligenceClient client;
+    private final TextLayerExtractor textLayerExtractor;
+    private final DuplicatePageDetector duplicateDetector;
+    private final RunningHeaderFilter runningHeaderFilter;
+    private final DependencyGuard dependencyGuard;
+    private final AnalysisStore store;
+    private final StoreProperties storeProperties;
+    private final Cache pageCache;
 
-    public DocumentAnalysisService(DocumentIntelligenceClient client) {
+    /**
+     * Sections and quality of one analyzed page, cached per document content hash and page number. Not private,
+     * so a shared store can instantiate it when reading it back.
+     */
+    record CachedPage(List<Section> sections, PageQuality quality) {
+    }
+
+    public DocumentAnalysisService(DocumentIntelligenceClient client,
+            TextLayerExtractor textLayerExtractor,
+            DuplicatePageDetector duplicateDetector,
+            RunningHeaderFilter runningHeaderFilter,
+            DependencyGuard dependencyGuard,
+            AnalysisStore store,
+            StoreProperties storeProperties,
+            CacheManager cacheManager) {
         this.client = client;
+        this.textLayerExtractor = textLayerExtractor;
+        this.duplicateDetector = duplicateDetector;
+        this.runningHeaderFilter = runningHeaderFilter;
+        this.dependencyGuard = dependencyGuard;
+        this.store = store;
+        this.storeProperties = storeProperties;
+        this.pageCache = cacheManager.getCache(PAGE_CACHE);
     }
 
-    @Cacheable(value = "documents", key = "#pdfPath.fileName.toString() + '-' + #pdfPath.toFile().length()")
+    /**
+     * Analyzes every page. Not cached as a whole: uploads arrive under random temp names, and repeated content is
+     * served from the page cache, which is keyed by content hash.
+     */
     public AnalysisResult analyzeDocument(Path pdfPath) {
-        log.info("Starting document analysis for: {}", pdfPath);
+        return analyzeDocument(pdfPath, PageSelection.ALL);
+    }
+
+    /**
+     * Analyzes the selected pages. Pages analyzed before for the same file content come from the page cache,
+     * pages with a usable text layer are extracted locally, and of the remaining ones only the first of each
+     * group of identical pages is sent to DI; blank pages are skipped. Section page numbers refer to the original
+     * document. While one thread or instance sends a document to DI, others asking for the same content wait for
+     * it and take its pages from the page cache.
+     */
+    public AnalysisResult analyzeDocument(Path pdfPath, PageSelection selection) {
+        log.info("Starting document analysis for: {} (pages: {})", pdfPath, selection);
+        String fileName = pdfPath.getFileName().toString();
 
         try {
             byte[] documentBytes = Files.readAllBytes(pdfPath);
+            String documentKey = documentKey(documentBytes);
+            Map<Integer, CachedPage> analyzed = new HashMap<>();
+            List<Integer> missing;
+            List<Integer> pages;
+            int totalPages;
+            int textLayerPages = 0;
+            PageGroups groups;
 
-            log.debug("Sending document to Azure Document Intelligence...");
-
-            AnalyzeDocumentRequest request = new AnalyzeDocumentRequest();
-            request.setBase64Source(documentBytes);
+            try (PDDocument document = Loader.loadPDF(documentBytes)) {
+                totalPages = document.getNumberOfPages();
+                pages = selection.resolve(totalPages);
+                missing = loadCached(documentKey, pages, analyzed);
 
-            var poller = client.beginAnalyzeDocument(
-                    "prebuilt-layout",
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    null,
-                    request);
+                // Born-digital pages skip OCR
+                if (textLayerExtractor.isEnabled() && !missing.isEmpty()) {
+                    var extracted = textLayerExtractor.extract(document, missing);
+                    for (var entry : extracted.entrySet()) {
+                        CachedPage page = new CachedPage(entry.getValue().sections(), entry.getValue().quality());
+                        pageCache.put(documentKey + "#" + entry.getKey(), page);
+                        analyzed.put(entry.getKey(), page);
+                    }
+                    missing.removeAll(extracted.keySet());
+                    textLayerPages = extracted.size();
+                }
+                groups = duplicateDetector.detect(document, missing);
+            }
+            int cachedPages = pages.size() - missing.size() - textLayerPages;
+            List<Integer> toAnalyze = groups.unique();
 
-            AnalyzeResult result = poller.getFinalResult();
-            log.info("Document analysis completed. Pages: {}", result.getPages().size());
+            if (!toAnalyze.isEmpty()) {
+                claim(documentKey, fileName);
+                try {
+                    // Pages another instance analyzed while this one waited are in the page cache now
+                    List<Integer> unique = toAnalyze;
+                    toAnalyze = loadCached(documentKey, unique, analyzed);
+                    cachedPages += unique.size() - toAnalyze.size();
+                    if (!toAnalyze.isEmpty()) {
+                        log.debug("Sending {} of {} pages to Azure Document Intelligence ({} cached)...",
+                                toAnalyze.size(), totalPages, analyzed.size());
+                        String diPages = toAnalyze.size() == totalPages ? null : PageSelection.format(toAnalyze);
+                        AnalysisResult result = mapToAnalysisResult(fileName, analyze(documentBytes, diPages));
+                        cachePages(documentKey, toAnalyze, result, analyzed);
+                    }
+                } finally {
+                    store.release(IN_FLIGHT + documentKey);
+                }
+            }
+            cacheCopies(documentKey, groups, analyzed);
 
-            return mapToAnalysisResult(pdfPath.getFileName().toString(), result);
+            PageSources sources = new PageSources(textLayerPages, toAnalyze.size(), cachedPages,
+                    groups.duplicateCount(), groups.blank().size());
+            log.info("Pages by source: {} text layer, {} Document Intelligence, {} cached, {} duplicate, {} blank",
+                    sources.textLayer(), sources.documentIntelligence(), sources.cached(), sources.duplicate(),
+                    sources.blank());
+            return assemble(fileName, pages, analyzed, sources);
 
+        } catch (IllegalArgumentException | DependencyUnavailableException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error analyzing document: {}", pdfPath, e);
             throw new RuntimeException("Failed to analyze document: " + e.getMessage(), e);
         }
     }
 
+    private AnalyzeResult analyze(byte[] documentBytes, String pages) {
+        AnalyzeDocumentRequest request = new AnalyzeDocumentRequest();
+        request.setBase64Source(documentBytes);
+
+        AnalyzeResult result = dependencyGuard.call(Dependency.DOCUMENT_INTELLIGENCE, () -> client
+                .beginAnalyzeDocument(
+                        "prebuilt-layout",
+                        pages,
+                        null,
+                        null,
+                        null,
+                        null,
+                        null,
+                        request)
+                .getFinalResult());
+        log.info("Document analysis completed. Pages: {}", result.getPages().size());
+        return result;
+    }
+
+    private void cachePages(String documentKey, List<Integer> pages, AnalysisResult result,
+            Map<Integer, CachedPage> analyzed) {
+        Map<Integer, List<Section>> sectionsByPage = new HashMap<>();
+        for (Section section : result.sections()) {
+            sectionsByPage.computeIfAbsent(section.pageNumber(), p -> new ArrayList<>()).add(section);
+        }
+        Map<Integer, PageQuality> qualityByPage = new HashMap<>();
+        for (PageQuality quality : result.quality().pages()) {
+            qualityByPage.put(quality.pageNumber(), quality);
+        }
+
+        for (int page : pages) {
+            CachedPage cached = new CachedPage(
+                    List.copyOf(sectionsByPage.getOrDefault(page, List.of())),
+                    qualityByPage.getOrDefault(page, new PageQuality(page, 0, 0, 0, 0, 0, 0.0, 0, List.of())));
+            pageCache.put(documentKey + "#" + page, cached);
+            analyzed.put(page, cached);
+        }
+    }
+
+    /**
+     * Fans the results of each analyzed page out to its identical pages and caches blank pages as empty.
+     */
+    private void cacheCopies(String documentKey, PageGroups groups, Map<Integer, CachedPage> analyzed) {
+        for (var entry : groups.copies().entrySet()) {
+            CachedPage original = analyzed.get(entry.getKey());
+            for (int copy : entry.getValue()) {
+                List<Section> sections = original.sections().stream()
+                        .map(s -> new Section(s.role(), s.content(), copy, s.confidence()))
+                        .toList();
+                PageQuality q = original.quality();
+                CachedPage cached = new CachedPage(sections, new PageQuality(copy, q.chars(), q.paragraphs(),
+                        q.structureMarkers(), q.leadingMarkers(), q.words(), q.avgWordConfidence(), q.lowConfidenceWords(),
+                        q.lowConfidenceSpans()));
+                pageCache.put(documentKey + "#" + copy, cached);
+                analyzed.put(copy, cached);
+            }
+        }
+        for (int page : groups.blank()) {
+            CachedPage cached = new CachedPage(List.of(), new PageQuality(page, 0, 0, 0, 0, 0, 0.0, 0, List.of()));
+            pageCache.put(documentKey + "#" + page, cached);
+            analyzed.put(page, cached);
+        }
+    }
+
+    private AnalysisResult assemble(String fileName, List<Integer> pages, Map<Integer, CachedPage> analyzed,
+            PageSources sources) {
+        QualityMetricsAccumulator quality = new QualityMetricsAccumulator();
+        List<Section> sections = new ArrayList<>();
+        for (int page : pages) {
+            CachedPage cached = analyzed.get(page);
+            sections.addAll(cached.sections());
+            quality.addPage(cached.quality());
+        }
+        // Pages are cached unfiltered; repeated headers only show across the assembled selection
+        return new AnalysisResult(fileName, pages.size(), runningHeaderFilter.strip(sections), quality.build(),
+                sources);
+    }
+
+    private List<Integer> loadCached(String documentKey, List<Integer> pages, Map<Integer, CachedPage> analyzed) {
+        List<Integer> missing = new ArrayList<>();
+        for (int page : pages) {
+            CachedPage cached = pageCache.get(documentKey + "#" + page, CachedPage.class);
+            if (cached != null) {
+                analyzed.put(page, cached);
+            } else {
+                missing.add(page);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Waits until no other thread or instance is analyzing the same content. A claim whose holder died expires
+     * after {@code app.store.in-flight-lease-ms}.
+     */
+    private void claim(String documentKey, String fileName) {
+        Duration lease = Duration.ofMillis(storeProperties.inFlightLeaseMs());
+        if (store.tryAcquire(IN_FLIGHT + documentKey, lease)) {
+            return;
+        }
+        log.info("{} is already being analyzed, waiting for its pages", fileName);
+        long started = System.nanoTime();
+        try {
+            do {
+                Thread.sleep(storeProperties.inFlightPollMs());
+            } while (!store.tryAcquire(IN_FLIGHT + documentKey, lease));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the analysis of " + fileName, e);
+        }
+        log.info("Waited {} ms for the concurrent analysis of {}", (System.nanoTime() - started) / 1_000_000,
+                fileName);
+    }
+
+    private static String documentKey(byte[] documentBytes) throws NoSuchAlgorithmException {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(documentBytes));
+    }
+
     private AnalysisResult mapToAnalysisResult(String fileName, AnalyzeResult azureResult) {
         int pageCount = azureResult.getPages() != null ? azureResult.getPages().size() : 0;
 
-        List<Section> sections = azureResult.getParagraphs() != null
-                ? azureResult.getParagraphs().stream()
-                        .filter(p -> !isExcludedRole(p.getRole()))
-                        .map(this::mapToSection)
-                        .collect(Collectors.toList())
-                : List.of();
+        QualityMetricsAccumulator quality = new QualityMetricsAccumulator();
+        quality.addPages(azureResult.getPages(), IntUnaryOperator.identity());
 
-        QualityMetrics quality = calculateQualityMetrics(sections);
+        List<Section> sections = new ArrayList<>();
+        if (azureResult.getParagraphs() != null) {
+            for (DocumentParagraph paragraph : azureResult.getParagraphs()) {
+                if (isExcludedRole(paragraph.getRole())) {
+                    continue;
+                }
+                Section section = mapToSection(paragraph, quality);
+                sections.add(section);
+                quality.addSection(section);
+            }
+        }
 
-        return new AnalysisResult(fileName, pageCount, sections, quality);
+        return new AnalysisResult(fileName, pageCount, sections, quality.build());
     }
 
     private boolean isExcludedRole(ParagraphRole role) {
@@ -94,11 +313,12 @@ public class DocumentAnalysisService {
         return EXCLUDED_ROLES.contains(roleStr);
     }
 
-    private Section mapToSection(DocumentParagraph paragraph) {
+    private Section mapToSection(DocumentParagraph paragraph, QualityMetricsAccumulator quality) {
         String role = paragraph.getRole() != null ? paragraph.getRole().toString() : "paragraph";
         String content = paragraph.getContent() != null ? paragraph.getContent() : "";
         int pageNumber = extractPageNumber(paragraph);
-        Double confidence = 1.0; // Azure DI beta.4 doesn't expose confidence at paragraph level
+        // DI has no paragraph confidence; average the OCR confidence of the words it spans
+        Double confidence = quality.confidence(paragraph.getSpans());
 
         return new Section(role, content, pageNumber, confidence);
     }
@@ -110,26 +330,4 @@ public class DocumentAnalysisService {
         }
         return 1;
     }
-
-    private QualityMetrics calculateQualityMetrics(List<Section> sections) {
-        if (sections.isEmpty()) {
-            return new QualityMetrics(0.0, 0, 0, false);
-        }
-
-        double avgConfidence = sections.stream()
-                .mapToDouble(s -> s.confidence() != null ? s.confidence() : 0.0)
-                .average()
-                .orElse(0.0);
-
-        int totalParagraphs = sections.size();
-
-        int totalChars = sections.stream()
-                .mapToInt(s -> s.content().length())
-                .sum();
-
-        boolean hasStructureMarkers = sections.stream()
-                .anyMatch(s -> STRUCTURE_MARKERS.matcher(s.content()).find());
-
-        return new QualityMetrics(avgConfidence, totalParagraphs, totalChars, hasStructureMarkers);
-    }
 }
@@ -1,51 +1,83 @@
 package com.example.pdfanalyzer.service;
 
 import com.example.pdfanalyzer.config.ChunkingProperties;
+import com.example.pdfanalyzer.config.CleanupProperties;
 import com.example.pdfanalyzer.model.EnrichedSection;
 import com.example.pdfanalyzer.model.Section;
 import com.example.pdfanalyzer.model.SectionClassification;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.pdfanalyzer.service.DependencyGuard.Dependency;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.ai.openai.api.ResponseFormat;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
 public class DocumentCleanupService {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentCleanupService.class);
+    // JSON mode needs a model that supports response_format json_object, which gpt-4 does not
+    private static final String DEFAULT_MODEL = "gpt-4o";
     private final ChatClient openAiClient;
-    private final ObjectMapper objectMapper;
     private final ChunkingProperties chunkingProperties;
+    private final CleanupProperties cleanupProperties;
+    private final LlmUsageRecorder usageRecorder;
+    private final NearDuplicateService nearDuplicateService;
+    private final DependencyGuard dependencyGuard;
 
     public DocumentCleanupService(
-            @Qualifier("openai") ChatClient openAiClient,
-            ObjectMapper objectMapper,
-            ChunkingProperties chunkingProperties) {
+            @Lazy @Qualifier("openai") ChatClient openAiClient,
+            ChunkingProperties chunkingProperties,
+            CleanupProperties cleanupProperties,
+            LlmUsageRecorder usageRecorder,
+            NearDuplicateService nearDuplicateService,
+            DependencyGuard dependencyGuard) {
         this.openAiClient = openAiClient;
-        this.objectMapper = objectMapper;
         this.chunkingProperties = chunkingProperties;
+        this.cleanupProperties = cleanupProperties;
+        this.usageRecorder = usageRecorder;
+        this.nearDuplicateService = nearDuplicateService;
+        this.dependencyGuard = dependencyGuard;
     }
 
     public List<EnrichedSection> classifySections(List<Section> sections) {
         log.info("Starting section classification for {} sections", sections.size());
 
-        List<SectionChunk> chunks = chunkSections(sections);
-        log.info("Created {} chunks from sections", chunks.size());
-
+        // Near-identical sections seen in earlier documents reuse their classification
         Map<Integer, SectionClassification> classifications = new HashMap<>();
+        List<IndexedSection> pending = new ArrayList<>();
+        for (int i = 0; i < sections.size(); i++) {
+            Optional<SectionClassification> known = nearDuplicateService.isEnabled()
+                    ? nearDuplicateService.findSectionClassification(sections.get(i))
+                    : Optional.empty();
+            if (known.isPresent()) {
+                classifications.put(i, known.get());
+            } else {
+                pending.add(new IndexedSection(i, sections.get(i)));
+            }
+        }
+        log.info("Reused {} section classifications from near-duplicates", classifications.size());
+
+        List<SectionChunk> chunks = chunkSections(pending);
+        log.info("Created {} chunks from sections", chunks.size());
 
         for (int i = 0; i < chunks.size(); i++) {
             log.info("Analyzing chunk {}/{}", i + 1, chunks.size());
             Map<Integer, SectionClassification> chunkClassifications = analyzeChunk(chunks.get(i));
             classifications.putAll(chunkClassifications);
+            if (nearDuplicateService.isEnabled()) {
+                chunkClassifications.forEach((index, classification) -> nearDuplicateService
+                        .registerSectionClassification(sections.get(index), classification));
+            }
         }
 
         log.info("Classified {} sections: KEEP={}, REMOVE={}, AUXILIARY={}",
@@ -63,7 +95,7 @@ public class DocumentCleanupService {
         return enriched;
     }
 
-    private List<SectionChunk> chunkSections(List<Section> sections) {
+    private List<SectionChunk> chunkSections(List<IndexedSection> sections) {
         int chunkSize = Math.max(1, chunkingProperties.maxChunkSize());
         int overlapSize = Math.max(0, chunkingProperties.overlap());
 
@@ -71,9 +103,8 @@ public class DocumentCleanupService {
         List<IndexedSection> currentChunk = new ArrayList<>();
         int currentSize = 0;
 
-        for (int i = 0; i < sections.size(); i++) {
-            Section section = sections.get(i);
-            int sectionSize = section.content().length();
+        for (IndexedSection indexed : sections) {
+            int sectionSize = indexed.section().content().length();
 
             if (currentSize + sectionSize > chunkSize && !currentChunk.isEmpty()) {
                 chunks.add(new SectionChunk(new ArrayList<>(currentChunk)));
@@ -98,7 +129,7 @@ public class DocumentCleanupService {
                 }
             }
 
-            currentChunk.add(new IndexedSection(i, section));
+            currentChunk.add(indexed);
             currentSize += sectionSize;
         }
 
@@ -110,28 +141,80 @@ public class DocumentCleanupService {
     }
 
     private Map<Integer, SectionClassification> analyzeChunk(SectionChunk chunk) {
+        Map<Integer, SectionClassification> result = new HashMap<>(requestClassifications(chunk));
+        Set<Integer> chunkIndices = chunk.sections().stream().map(IndexedSection::index).collect(Collectors.toSet());
+        result.keySet().retainAll(chunkIndices);
+
+        // Re-ask only for the sections that came back missing or invalid
+        int maxRetries = Math.max(0, cleanupProperties.maxRetries());
+        for (int attempt = 1; attempt <= maxRetries; attempt++) {
+            List<IndexedSection> missing = chunk.sections().stream()
+                    .filter(s -> !result.containsKey(s.index()))
+                    .collect(Collectors.toList());
+            if (missing.isEmpty()) {
+                break;
+            }
+
+            log.info("Retrying classification for {} of {} sections (attempt {}/{})",
+                    missing.size(), chunk.sections().size(), attempt, maxRetries);
+            Set<Integer> missingIndices = missing.stream().map(IndexedSection::index).collect(Collectors.toSet());
+            requestClassifications(new SectionChunk(missing)).forEach((index, classification) -> {
+                if (missingIndices.contains(index)) {
+                    result.put(index, classification);
+                }
+            });
+        }
+
+        return result;
+    }
+
+    private Map<Integer, SectionClassification> requestClassifications(SectionChunk chunk) {
         String prompt = buildPrompt(chunk);
+        ClassificationResponseParser parser = new ClassificationResponseParser();
+        AtomicReference<ChatResponse> lastResponse = new AtomicReference<>();
+        long start = System.nanoTime();
 
         try {
-            OpenAiChatOptions options = OpenAiChatOptions.builder()
-                    .withModel("gpt-4")
+            OpenAiChatOptions.Builder options = OpenAiChatOptions.builder()
+                    .withModel(cleanupProperties.model() != null && !cleanupProperties.model().isBlank()
+                            ? cleanupProperties.model() : DEFAULT_MODEL)
                     .withTemperature(0.0)
-                    .build();
+                    .withStreamUsage(true);
+            if (cleanupProperties.jsonMode()) {
+                options.withResponseFormat(ResponseFormat.builder()
+                        .type(ResponseFormat.Type.JSON_OBJECT)
+                        .build());
+            }
 
-            String response = openAiClient.prompt()
+            // Entries are parsed as they stream in, so a broken connection or truncated
+            // answer still keeps every classification received up to that point
+            dependencyGuard.call(Dependency.OPENAI, () -> openAiClient.prompt()
                     .user(prompt)
-                    .options(options)
-                    .call()
-                    .content();
-
-            log.debug("LLM response: {}", response);
+                    .options(options.build())
+                    .stream()
+                    .chatResponse()
+                    .doOnNext(response -> {
+                        lastResponse.set(response);
+                        if (response.getResult() != null && response.getResult().getOutput() != null) {
+                            parser.accept(response.getResult().getOutput().getContent());
+                        }
+                    })
+                    .blockLast());
 
-            return parseClassificationResponse(response);
+            // With stream usage enabled the final streamed response carries the token counts
+            usageRecorder.record("cleanup-classification", "openai", lastResponse.get(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
 
+        } catch (DependencyUnavailableException e) {
+            // Unclassified sections default to KEEP
+            log.warn("Skipping chunk classification: {}", e.getMessage());
         } catch (Exception e) {
-            log.error("Error analyzing chunk", e);
-            return new HashMap<>();
+            usageRecorder.recordFailure("cleanup-classification", "openai",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            log.error("Error analyzing chunk, keeping {} partial classifications", parser.result().size(), e);
         }
+
+        return parser.result();
     }
 
     private String buildPrompt(SectionChunk chunk) {
@@ -162,32 +245,6 @@ public class DocumentCleanupService {
         return sb.toString();
     }
 
-    private Map<Integer, SectionClassification> parseClassificationResponse(String response) {
-        try {
-            Map<String, String> rawMap = objectMapper.readValue(
-                    response,
-                    new TypeReference<Map<String, String>>() {
-                    });
-
-            Map<Integer, SectionClassification> result = new HashMap<>();
-            for (Map.Entry<String, String> entry : rawMap.entrySet()) {
-                try {
-                    int index = Integer.parseInt(entry.getKey());
-                    SectionClassification classification = SectionClassification
-                            .valueOf(entry.getValue().toUpperCase());
-                    result.put(index, classification);
-                } catch (Exception e) {
-                    log.warn("Invalid classification entry: {} -> {}", entry.getKey(), entry.getValue());
-                }
-            }
-            return result;
-
-        } catch (JsonProcessingException e) {
-            log.error("Failed to parse classification response", e);
-            return new HashMap<>();
-        }
-    }
-
     private record SectionChunk(List<IndexedSection> sections) {
     }
 
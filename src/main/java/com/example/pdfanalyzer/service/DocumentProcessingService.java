@@ -2,16 +2,16 @@ package com.example.pdfanalyzer.service;
 
 import com.example.pdfanalyzer.config.ChunkingProperties;
 import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.ChunkMetadata;
 import com.example.pdfanalyzer.model.DocumentChunk;
+import com.example.pdfanalyzer.model.DocumentOutline;
 import com.example.pdfanalyzer.model.Section;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.ai.chat.client.ChatClient;
-import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.ai.chat.model.ChatResponse;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -21,16 +21,16 @@ public class DocumentProcessingService {
 
     private static final Logger log = LoggerFactory.getLogger(DocumentProcessingService.class);
 
-    private final ChatClient openAiClient;
-    private final ChatClient anthropicClient;
+    private final LlmRouter llmRouter;
+    private final DocumentTypeClassifier documentTypeClassifier;
     private final ChunkingProperties chunkingProperties;
 
     public DocumentProcessingService(
-            @Qualifier("openai") ChatClient openAiClient,
-            @Qualifier("anthropic") ChatClient anthropicClient,
+            LlmRouter llmRouter,
+            DocumentTypeClassifier documentTypeClassifier,
             ChunkingProperties chunkingProperties) {
-        this.openAiClient = openAiClient;
-        this.anthropicClient = anthropicClient;
+        this.llmRouter = llmRouter;
+        this.documentTypeClassifier = documentTypeClassifier;
         this.chunkingProperties = chunkingProperties;
     }
 
@@ -40,6 +40,8 @@ public class DocumentProcessingService {
 
         if ("page-based".equalsIgnoreCase(chunkingProperties.strategy())) {
             return chunkByPages(analysisResult);
+        } else if ("structure".equalsIgnoreCase(chunkingProperties.strategy())) {
+            return chunkByStructure(analysisResult);
         } else {
             return chunkBySize(analysisResult);
         }
@@ -52,6 +54,7 @@ public class DocumentProcessingService {
         List<DocumentChunk> chunks = new ArrayList<>();
         Map<Integer, List<Section>> sectionsByPage = analysisResult.sections().stream()
                 .collect(Collectors.groupingBy(Section::pageNumber));
+        ChunkBuffer buffer = newBuffer(analysisResult);
 
         int chunkIndex = 0;
         int currentPage = 1;
@@ -60,37 +63,20 @@ public class DocumentProcessingService {
         while (currentPage <= maxPage) {
             int startPage = currentPage;
             int endPage = Math.min(currentPage + pagesPerChunk - 1, maxPage);
-
-            StringBuilder content = new StringBuilder();
+            int chunkStart = buffer.length();
             int sectionCount = 0;
 
             for (int page = startPage; page <= endPage; page++) {
-                List<Section> pageSections = sectionsByPage.getOrDefault(page, List.of());
-                for (Section section : pageSections) {
-                    String text = section.content() != null ? section.content().trim() : "";
-                    if (!text.isEmpty()) {
-                        content.append(text).append("\n\n");
+                for (Section section : sectionsByPage.getOrDefault(page, List.of())) {
+                    if (buffer.appendSection(section.content()) > 0) {
                         sectionCount++;
                     }
                 }
             }
 
-            if (content.length() > 0) {
-                Map<String, Object> metadata = new HashMap<>();
-                metadata.put("fileName", analysisResult.fileName());
-                metadata.put("startPage", startPage);
-                metadata.put("endPage", endPage);
-                metadata.put("sectionCount", sectionCount);
-                metadata.put("chunkingStrategy", "page-based");
-
-                DocumentChunk chunk = new DocumentChunk(
-                        analysisResult.fileName() + "-chunk-" + chunkIndex,
-                        content.toString().trim(),
-                        chunkIndex,
-                        startPage,
-                        metadata);
-
-                chunks.add(chunk);
+            if (buffer.length() > chunkStart) {
+                chunks.add(buildChunk(analysisResult.fileName(), chunkIndex, buffer.view(chunkStart, buffer.length()),
+                        startPage, endPage, sectionCount, "page-based", null));
                 chunkIndex++;
             }
 
@@ -106,74 +92,149 @@ public class DocumentProcessingService {
         int overlapSize = Math.max(0, chunkingProperties.overlap());
 
         List<DocumentChunk> chunks = new ArrayList<>();
-        StringBuilder buffer = new StringBuilder();
+        ChunkBuffer buffer = newBuffer(analysisResult);
+        int chunkStart = 0;
         int chunkIndex = 0;
         int startPage = -1;
         int endPage = -1;
         int sectionCount = 0;
-        int lastChunkEndPage = -1;
 
         for (Section section : analysisResult.sections()) {
-            String content = section.content() != null ? section.content().trim() : "";
-            if (content.isEmpty()) {
+            int contentLength = ChunkBuffer.trimmedLength(section.content());
+            if (contentLength == 0) {
                 continue;
             }
 
-            int incomingLength = content.length() + 2;
-            if (buffer.length() + incomingLength > maxChunkSize && buffer.length() > 0) {
-                chunks.add(buildChunk(analysisResult.fileName(), chunkIndex, buffer, startPage, endPage,
-                        sectionCount));
-                lastChunkEndPage = endPage;
+            int currentLength = buffer.length() - chunkStart;
+            int incomingLength = contentLength + ChunkBuffer.SEPARATOR.length();
+            if (currentLength + incomingLength > maxChunkSize && currentLength > 0) {
+                chunks.add(buildChunk(analysisResult.fileName(), chunkIndex, buffer.view(chunkStart, buffer.length()),
+                        startPage, endPage, sectionCount, null, null));
+                int lastChunkEndPage = endPage;
                 chunkIndex++;
 
-                String overlapText = "";
-                if (overlapSize > 0 && buffer.length() > 0) {
-                    int overlapStart = Math.max(0, buffer.length() - overlapSize);
-                    overlapText = buffer.substring(overlapStart);
-                }
-
-                buffer = new StringBuilder(overlapText);
-                startPage = overlapText.isEmpty() ? section.pageNumber() : lastChunkEndPage;
-                endPage = overlapText.isEmpty() ? section.pageNumber() : lastChunkEndPage;
-                sectionCount = overlapText.isEmpty() ? 0 : 1;
+                // The overlap is already in the shared buffer, the next chunk simply starts inside it
+                int overlapLength = Math.min(overlapSize, currentLength);
+                chunkStart = buffer.length() - overlapLength;
+                startPage = overlapLength == 0 ? section.pageNumber() : lastChunkEndPage;
+                endPage = startPage;
+                sectionCount = overlapLength == 0 ? 0 : 1;
             }
 
-            if (buffer.length() == 0) {
+            if (buffer.length() == chunkStart) {
                 startPage = section.pageNumber();
             }
 
-            buffer.append(content).append("\n\n");
+            buffer.appendSection(section.content());
             endPage = section.pageNumber();
             sectionCount++;
         }
 
-        if (buffer.length() > 0) {
-            chunks.add(buildChunk(analysisResult.fileName(), chunkIndex, buffer, startPage, endPage,
-                    sectionCount));
+        if (buffer.length() > chunkStart) {
+            chunks.add(buildChunk(analysisResult.fileName(), chunkIndex, buffer.view(chunkStart, buffer.length()),
+                    startPage, endPage, sectionCount, null, null));
         }
 
         log.info("Created {} size-based chunks from document", chunks.size());
         return chunks;
     }
 
+    /**
+     * One chunk per article / paragraph ({@code Art. n}, {@code § n}); points ({@code pkt n}) stay
+     * inside their parent. Units larger than {@code max-chunk-size} are split at section
+     * boundaries without overlap, and every chunk lists the clauses it contains for the outline.
+     */
+    private List<DocumentChunk> chunkByStructure(AnalysisResult analysisResult) {
+        int maxChunkSize = Math.max(1, chunkingProperties.maxChunkSize());
+
+        List<DocumentChunk> chunks = new ArrayList<>();
+        ChunkBuffer buffer = newBuffer(analysisResult);
+        StructureCursor cursor = new StructureCursor();
+        List<String> clauses = new ArrayList<>();
+        int chunkStart = 0;
+        int startPage = -1;
+        int endPage = -1;
+        int sectionCount = 0;
+        int unitSections = 0;
+
+        for (Section section : analysisResult.sections()) {
+            int contentLength = ChunkBuffer.trimmedLength(section.content());
+            if (contentLength == 0) {
+                continue;
+            }
+
+            LegalStructure.Marker marker = LegalStructure.leadingMarker(section.content());
+            int currentLength = buffer.length() - chunkStart;
+
+            // A unit holding only its own heading absorbs the first nested marker instead of becoming a chunk
+            boolean opensUnit = marker != null && marker.level() != LegalStructure.Level.POINT
+                    && !(unitSections == 1 && cursor.isDeeper(marker));
+            boolean oversize = currentLength + contentLength + ChunkBuffer.SEPARATOR.length() > maxChunkSize;
+
+            if (currentLength > 0 && (opensUnit || oversize)) {
+                chunks.add(buildChunk(analysisResult.fileName(), chunks.size(),
+                        buffer.view(chunkStart, buffer.length()), startPage, endPage, sectionCount, "structure",
+                        List.copyOf(clauses)));
+                chunkStart = buffer.length();
+                sectionCount = 0;
+                clauses.clear();
+                if (!opensUnit && cursor.path() != null) {
+                    // Continuation of an oversize unit still belongs to the same clause
+                    clauses.add(cursor.path());
+                }
+            }
+
+            if (marker != null) {
+                cursor.enter(marker);
+                clauses.add(cursor.path());
+                unitSections = opensUnit ? 0 : unitSections;
+            }
+
+            if (buffer.length() == chunkStart) {
+                startPage = section.pageNumber();
+            }
+            buffer.appendSection(section.content());
+            endPage = section.pageNumber();
+            sectionCount++;
+            unitSections++;
+        }
+
+        if (buffer.length() > chunkStart) {
+            chunks.add(buildChunk(analysisResult.fileName(), chunks.size(), buffer.view(chunkStart, buffer.length()),
+                    startPage, endPage, sectionCount, "structure", List.copyOf(clauses)));
+        }
+
+        log.info("Created {} structure-aligned chunks from document", chunks.size());
+        return chunks;
+    }
+
+    private ChunkBuffer newBuffer(AnalysisResult analysisResult) {
+        int capacityHint = analysisResult.quality() != null
+                ? analysisResult.quality().totalChars() + analysisResult.sections().size() * 2
+                : 0;
+        return new ChunkBuffer(capacityHint);
+    }
+
     private DocumentChunk buildChunk(String fileName,
             int chunkIndex,
-            StringBuilder buffer,
+            CharSequence content,
             int startPage,
             int endPage,
-            int sectionCount) {
-        Map<String, Object> metadata = new HashMap<>();
-        metadata.put("fileName", fileName);
-        metadata.put("startPage", startPage);
-        metadata.put("endPage", endPage);
-        metadata.put("sectionCount", sectionCount);
-
+            int sectionCount,
+            String strategy,
+            List<String> clauses) {
+        // Metadata is built eagerly: every chunk's metadata is read by the response, the outline and the
+        // embedding index, so deferring it would not save the allocation, only move it
         return new DocumentChunk(
                 fileName + "-chunk-" + chunkIndex,
-                buffer.toString().trim(),
+                content,
                 chunkIndex,
                 startPage,
-                metadata);
+                new ChunkMetadata(fileName, startPage, endPage, sectionCount, strategy, clauses));
+    }
+
+    public DocumentOutline buildOutline(List<DocumentChunk> chunks) {
+        return DocumentOutline.of(chunks);
     }
 
     public String classifyDocument(AnalysisResult result) {
@@ -189,6 +250,31 @@ public class DocumentProcessingService {
             return "UNKNOWN";
         }
 
+        DocumentTypeClassifier.Prediction local = documentTypeClassifier.classify(content);
+        boolean confident = documentTypeClassifier.isConfident(local);
+        if (confident && !documentTypeClassifier.shouldShadow()) {
+            log.info("Document classified locally as: {} (confidence {})", local.label(), local.confidence());
+            documentTypeClassifier.recordOutcome("local", local, null);
+            return local.label();
+        }
+
+        String category = classifyWithLlm(content);
+        if (category == null) {
+            log.warn("LLM classification unavailable, using local label {}", local.label());
+            documentTypeClassifier.recordOutcome("local", local, null);
+            return local.label();
+        }
+        boolean validLabel = DocumentTypeClassifier.LABELS.contains(category);
+        if (validLabel) {
+            documentTypeClassifier.learn(category, content);
+        }
+        documentTypeClassifier.recordOutcome(confident ? "shadow" : "llm", local, validLabel ? category : null);
+
+        // Shadowed documents keep the local answer; the LLM call only feeds the agreement metric
+        return confident ? local.label() : category;
+    }
+
+    private String classifyWithLlm(String content) {
         String prompt = """
                 Classify the following document into one of these categories:
                 - CONTRACT
@@ -204,17 +290,57 @@ public class DocumentProcessingService {
                 """.formatted(content);
 
         try {
-            String category = openAiClient.prompt()
+            ChatResponse response = llmRouter.call("classify-document", client -> client.prompt()
                     .user(prompt)
                     .call()
-                    .content();
+                    .chatResponse());
+            String category = response.getResult().getOutput().getContent();
 
             log.info("Document classified as: {}", category);
             return category.trim().toUpperCase();
 
+        } catch (DependencyUnavailableException e) {
+            return null;
         } catch (Exception e) {
+            // Both providers failed; the caller falls back to the local label
             log.error("Error during document classification", e);
-            return "ERROR";
+            return null;
+        }
+    }
+
+    /**
+     * Current position in the article / paragraph / point hierarchy.
+     */
+    private static final class StructureCursor {
+
+        private final String[] numbers = new String[LegalStructure.Level.values().length];
+        private LegalStructure.Level deepest;
+
+        void enter(LegalStructure.Marker marker) {
+            int level = marker.level().ordinal();
+            numbers[level] = marker.number();
+            for (int i = level + 1; i < numbers.length; i++) {
+                numbers[i] = null;
+            }
+            deepest = marker.level();
+        }
+
+        boolean isDeeper(LegalStructure.Marker marker) {
+            return deepest != null && marker.level().ordinal() > deepest.ordinal();
+        }
+
+        String path() {
+            StringBuilder path = new StringBuilder();
+            for (LegalStructure.Level level : LegalStructure.Level.values()) {
+                String number = numbers[level.ordinal()];
+                if (number != null) {
+                    if (path.length() > 0) {
+                        path.append(' ');
+                    }
+                    path.append(level.label(number));
+                }
+            }
+            return path.length() > 0 ? path.toString() : null;
         }
     }
 }
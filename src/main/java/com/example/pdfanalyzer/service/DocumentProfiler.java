@@ -0,0 +1,210 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.ProfilerProperties;
+import com.example.pdfanalyzer.config.TextLayerProperties;
+import com.example.pdfanalyzer.model.DocumentProfile;
+import com.example.pdfanalyzer.model.PageProfile;
+import com.example.pdfanalyzer.model.PageProfile.Kind;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.contentstream.PDContentStream;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.cos.COSString;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Parallel per-page profile of a PDF: images, text glyphs, rotation and expected DI cost.
+ * <p>
+ * Works on the COS level only: image sizes come from the encoded stream lengths and glyphs are estimated from
+ * the string operands of the text-showing operators, so nothing is decoded or rendered. {@link PDDocument} is
+ * not thread-safe, so every worker loads its own copy of the document and profiles a contiguous page range.
+ */
+@Service
+public class DocumentProfiler {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentProfiler.class);
+    private static final int MAX_FORM_DEPTH = 8;
+
+    private final ProfilerProperties properties;
+    private final TextLayerProperties textLayerProperties;
+
+    public DocumentProfiler(ProfilerProperties properties, TextLayerProperties textLayerProperties) {
+        this.properties = properties;
+        this.textLayerProperties = textLayerProperties;
+    }
+
+    public DocumentProfile profile(String fileName, byte[] pdfBytes) throws IOException {
+        long start = System.nanoTime();
+
+        int pageCount;
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            pageCount = document.getNumberOfPages();
+        }
+
+        int workers = Math.max(1, Math.min(parallelism(), pageCount / 16 + 1));
+        int pagesPerWorker = (pageCount + workers - 1) / Math.max(1, workers);
+        List<Future<List<PageProfile>>> parts = new ArrayList<>(workers);
+        try (ExecutorService executor = Executors.newFixedThreadPool(workers)) {
+            for (int first = 1; first <= pageCount; first += pagesPerWorker) {
+                int from = first;
+                int to = Math.min(pageCount, first + pagesPerWorker - 1);
+                parts.add(executor.submit(() -> profilePages(pdfBytes, from, to)));
+            }
+        }
+
+        List<PageProfile> pages = new ArrayList<>(pageCount);
+        for (Future<List<PageProfile>> part : parts) {
+            try {
+                pages.addAll(part.get());
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof IOException io ? io : new IOException(e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while profiling " + fileName, e);
+            }
+        }
+
+        Map<Kind, Integer> byKind = new EnumMap<>(Kind.class);
+        long imageBytes = 0;
+        double cost = 0;
+        for (PageProfile page : pages) {
+            byKind.merge(page.kind(), 1, Integer::sum);
+            imageBytes += page.imageBytes();
+            cost += page.estimatedDiCost();
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Profiled {} pages of {} in {} ms using {} workers: {}", pageCount, fileName, elapsedMs, workers,
+                byKind);
+        return new DocumentProfile(fileName, pdfBytes.length, pageCount, byKind, imageBytes, cost, elapsedMs, pages);
+    }
+
+    private List<PageProfile> profilePages(byte[] pdfBytes, int from, int to) throws IOException {
+        List<PageProfile> pages = new ArrayList<>(to - from + 1);
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            for (int pageNumber = from; pageNumber <= to; pageNumber++) {
+                pages.add(profilePage(pageNumber, document.getPage(pageNumber - 1)));
+            }
+        }
+        return pages;
+    }
+
+    private PageProfile profilePage(int pageNumber, PDPage page) throws IOException {
+        PageCounter counter = new PageCounter();
+        counter.countContent(page, 0);
+        if (page.getResources() != null) {
+            counter.countImages(page.getResources().getCOSObject(), 0);
+        }
+
+        Kind kind;
+        if (counter.glyphs == 0) {
+            kind = counter.images == 0 ? Kind.BLANK : Kind.SCANNED;
+        } else {
+            kind = counter.imageBytes >= properties.heavyImageBytes() ? Kind.MIXED : Kind.DIGITAL;
+        }
+
+        // Digital and blank pages are handled by the text layer fast path when it is on
+        boolean needsOcr = !textLayerProperties.enabled() || kind == Kind.SCANNED || kind == Kind.MIXED;
+        return new PageProfile(pageNumber, page.getRotation(), counter.images, counter.imageBytes, counter.glyphs,
+                kind, needsOcr ? properties.diCostPerPage() : 0.0);
+    }
+
+    private int parallelism() {
+        return properties.parallelism() > 0 ? properties.parallelism() : Runtime.getRuntime().availableProcessors();
+    }
+
+    private static final class PageCounter {
+
+        private final Set<COSBase> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        private int images;
+        private long imageBytes;
+        private int glyphs;
+
+        void countImages(COSDictionary resources, int depth) throws IOException {
+            COSDictionary xobjects = resources.getCOSDictionary(COSName.XOBJECT);
+            if (xobjects == null || depth > MAX_FORM_DEPTH) {
+                return;
+            }
+            for (COSName name : xobjects.keySet()) {
+                if (!(xobjects.getDictionaryObject(name) instanceof COSStream stream) || !seen.add(stream)) {
+                    continue;
+                }
+                COSName subtype = stream.getCOSName(COSName.SUBTYPE);
+                if (COSName.IMAGE.equals(subtype)) {
+                    images++;
+                    imageBytes += stream.getLength();
+                } else if (COSName.FORM.equals(subtype)) {
+                    countContent(new PDFormXObject(stream), depth + 1);
+                    COSDictionary formResources = stream.getCOSDictionary(COSName.RESOURCES);
+                    if (formResources != null) {
+                        countImages(formResources, depth + 1);
+                    }
+                }
+            }
+        }
+
+        void countContent(PDContentStream content, int depth) throws IOException {
+            if (depth > MAX_FORM_DEPTH) {
+                return;
+            }
+            PDFStreamParser parser = new PDFStreamParser(content);
+            List<COSBase> operands = new ArrayList<>();
+            for (Object token = parser.parseNextToken(); token != null; token = parser.parseNextToken()) {
+                if (!(token instanceof Operator operator)) {
+                    if (token instanceof COSBase operand) {
+                        operands.add(operand);
+                    }
+                    continue;
+                }
+                switch (operator.getName()) {
+                    case "Tj", "'", "\"" -> glyphs += lastStringLength(operands);
+                    case "TJ" -> {
+                        if (!operands.isEmpty() && operands.get(operands.size() - 1) instanceof COSArray array) {
+                            for (COSBase item : array) {
+                                if (item instanceof COSString string) {
+                                    glyphs += string.getBytes().length;
+                                }
+                            }
+                        }
+                    }
+                    case "BI" -> {
+                        images++;
+                        imageBytes += operator.getImageData() != null ? operator.getImageData().length : 0;
+                    }
+                    default -> {
+                    }
+                }
+                operands.clear();
+            }
+        }
+
+        private static int lastStringLength(List<COSBase> operands) {
+            return !operands.isEmpty() && operands.get(operands.size() - 1) instanceof COSString string
+                    ? string.getBytes().length
+                    : 0;
+        }
+    }
+}
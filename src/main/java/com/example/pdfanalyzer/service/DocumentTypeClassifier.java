@@ -0,0 +1,255 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.DocumentTypeProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process multinomial naive Bayes classifier for the document type labels.
+ * Starts from keyword priors and keeps learning from every label the LLM returns, so the share
+ * of documents answered locally grows with use. Counts are persisted as JSON between restarts,
+ * at most once per {@code save-interval-ms} and on shutdown.
+ * <p>
+ * Every label is seeded with the same token mass and tokens no label has seen are ignored, so a
+ * long excerpt of unknown words does not drift towards the label with the fewest tokens. The
+ * log-likelihood is scaled down to {@code evidence-tokens} tokens before the softmax, so the
+ * confidence reflects how well the excerpt matches a label per token rather than its length.
+ */
+@Service
+public class DocumentTypeClassifier {
+
+    private static final Logger log = LoggerFactory.getLogger(DocumentTypeClassifier.class);
+
+    public static final List<String> LABELS = List.of(
+            "CONTRACT", "TERMS_AND_CONDITIONS", "INVOICE", "LEGAL_DOCUMENT", "OTHER");
+
+    /**
+     * Seed tokens per label, spread evenly over its keywords.
+     */
+    private static final int SEED_MASS = 60;
+    private static final Map<String, List<String>> SEED_KEYWORDS = Map.of(
+            "CONTRACT", List.of("umowa", "umowy", "strony", "zleceniodawca", "wykonawca", "contract", "parties",
+                    "agreement", "podpis", "zawarta"),
+            "TERMS_AND_CONDITIONS", List.of("ogólne", "warunki", "ubezpieczenia", "owu", "regulamin", "ubezpieczony",
+                    "ubezpieczający", "świadczenia", "terms", "conditions"),
+            "INVOICE", List.of("faktura", "vat", "netto", "brutto", "nip", "sprzedawca", "nabywca", "invoice",
+                    "kwota", "zapłaty"),
+            "LEGAL_DOCUMENT", List.of("ustawa", "ustawy", "rozporządzenie", "dziennik", "kodeks", "wyrok", "sąd",
+                    "postanowienie", "przepisy", "legal"),
+            "OTHER", List.of("raport", "prezentacja", "notatka", "report", "informacja", "sprawozdanie"));
+
+    private final DocumentTypeProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final ObjectMapper objectMapper;
+    private final Map<String, Map<String, Integer>> tokenCounts = new HashMap<>();
+    private final Map<String, Integer> totalTokens = new HashMap<>();
+    private final Map<String, Integer> documentCounts = new HashMap<>();
+    private final Set<String> vocabulary = new HashSet<>();
+    private final ScheduledExecutorService saver;
+    private boolean dirty;
+
+    public DocumentTypeClassifier(DocumentTypeProperties properties,
+            MeterRegistry meterRegistry,
+            ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.objectMapper = objectMapper;
+        seed();
+        load();
+        this.saver = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("document-type-model").daemon().factory());
+        long interval = Math.max(1000, properties.saveIntervalMs());
+        saver.scheduleWithFixedDelay(this::saveIfDirty, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public record Prediction(String label, double confidence) {
+    }
+
+    public synchronized Prediction classify(String text) {
+        Map<String, Integer> tokens = tokenize(text);
+        tokens.keySet().retainAll(vocabulary);
+        int known = tokens.values().stream().mapToInt(Integer::intValue).sum();
+        double evidenceScale = known > 0 ? Math.min(1.0, (double) evidenceTokens() / known) : 0.0;
+        int vocabularySize = Math.max(1, vocabulary.size());
+        int totalDocuments = documentCounts.values().stream().mapToInt(Integer::intValue).sum();
+
+        Map<String, Double> logScores = new LinkedHashMap<>();
+        for (String label : LABELS) {
+            Map<String, Integer> counts = tokenCounts.get(label);
+            double denominator = totalTokens.get(label) + vocabularySize;
+            double likelihood = 0.0;
+            for (Map.Entry<String, Integer> token : tokens.entrySet()) {
+                likelihood += token.getValue()
+                        * Math.log((counts.getOrDefault(token.getKey(), 0) + 1.0) / denominator);
+            }
+            double prior = Math.log((documentCounts.get(label) + 1.0) / (totalDocuments + LABELS.size()));
+            logScores.put(label, prior + evidenceScale * likelihood);
+        }
+
+        // Softmax over log scores gives the posterior of the best label
+        double max = logScores.values().stream().mapToDouble(Double::doubleValue).max().orElse(0.0);
+        double sum = 0.0;
+        String best = "OTHER";
+        double bestScore = Double.NEGATIVE_INFINITY;
+        for (Map.Entry<String, Double> entry : logScores.entrySet()) {
+            sum += Math.exp(entry.getValue() - max);
+            if (entry.getValue() > bestScore) {
+                bestScore = entry.getValue();
+                best = entry.getKey();
+            }
+        }
+        return new Prediction(best, Math.exp(bestScore - max) / sum);
+    }
+
+    public boolean isConfident(Prediction prediction) {
+        return prediction.confidence() >= properties.confidenceThreshold();
+    }
+
+    /**
+     * Whether a confident local answer should still be checked against the LLM to keep the
+     * agreement rate measured on the documents the classifier handles alone.
+     */
+    public boolean shouldShadow() {
+        return ThreadLocalRandom.current().nextDouble() < properties.shadowSampleRate();
+    }
+
+    public synchronized void learn(String label, String text) {
+        if (!LABELS.contains(label)) {
+            return;
+        }
+        Map<String, Integer> counts = tokenCounts.get(label);
+        tokenize(text).forEach((token, count) -> {
+            counts.merge(token, count, Integer::sum);
+            totalTokens.merge(label, count, Integer::sum);
+            vocabulary.add(token);
+        });
+        documentCounts.merge(label, 1, Integer::sum);
+        dirty = true;
+    }
+
+    public void recordOutcome(String source, Prediction local, String llmLabel) {
+        meterRegistry.counter("document.type.classification", "source", source, "label", local.label())
+                .increment();
+        if (llmLabel != null) {
+            boolean agree = local.label().equals(llmLabel);
+            meterRegistry.counter("document.type.agreement",
+                    "outcome", agree ? "agree" : "disagree",
+                    "confident", String.valueOf(isConfident(local))).increment();
+        }
+    }
+
+    private int evidenceTokens() {
+        return properties.evidenceTokens() > 0 ? properties.evidenceTokens() : 10;
+    }
+
+    private Map<String, Integer> tokenize(String text) {
+        Map<String, Integer> tokens = new HashMap<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}]+")) {
+            if (token.length() >= 3) {
+                tokens.merge(token, 1, Integer::sum);
+            }
+        }
+        return tokens;
+    }
+
+    private void seed() {
+        for (String label : LABELS) {
+            List<String> keywords = SEED_KEYWORDS.getOrDefault(label, List.of());
+            Map<String, Integer> counts = new HashMap<>();
+            keywords.forEach(keyword -> counts.put(keyword, SEED_MASS / keywords.size()));
+            tokenCounts.put(label, counts);
+            totalTokens.put(label, counts.values().stream().mapToInt(Integer::intValue).sum());
+            documentCounts.put(label, 0);
+            vocabulary.addAll(counts.keySet());
+        }
+    }
+
+    private void load() {
+        Path modelPath = modelPath();
+        if (modelPath == null || !Files.exists(modelPath)) {
+            return;
+        }
+        try {
+            ModelState state = objectMapper.readValue(modelPath.toFile(), ModelState.class);
+            state.tokenCounts().forEach((label, counts) -> {
+                if (LABELS.contains(label)) {
+                    tokenCounts.put(label, new HashMap<>(counts));
+                    totalTokens.put(label, counts.values().stream().mapToInt(Integer::intValue).sum());
+                    vocabulary.addAll(counts.keySet());
+                }
+            });
+            state.documentCounts().forEach((label, count) -> {
+                if (LABELS.contains(label)) {
+                    documentCounts.put(label, count);
+                }
+            });
+            log.info("Loaded document type model from {}", modelPath);
+        } catch (IOException e) {
+            log.warn("Failed to load document type model from {}, using keyword priors", modelPath, e);
+        }
+    }
+
+    private void saveIfDirty() {
+        Path modelPath = modelPath();
+        ModelState state;
+        synchronized (this) {
+            if (!dirty || modelPath == null) {
+                return;
+            }
+            Map<String, Map<String, Integer>> counts = new HashMap<>();
+            tokenCounts.forEach((label, tokens) -> counts.put(label, new HashMap<>(tokens)));
+            state = new ModelState(counts, new HashMap<>(documentCounts));
+            dirty = false;
+        }
+        try {
+            Path temp = modelPath.resolveSibling(modelPath.getFileName() + ".tmp");
+            objectMapper.writeValue(temp.toFile(), state);
+            Files.move(temp, modelPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("Failed to save document type model to {}", modelPath, e);
+            synchronized (this) {
+                dirty = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        saver.shutdownNow();
+        saveIfDirty();
+    }
+
+    private Path modelPath() {
+        return properties.modelPath() != null && !properties.modelPath().isBlank()
+                ? Path.of(properties.modelPath())
+                : null;
+    }
+
+    private record ModelState(
+            Map<String, Map<String, Integer>> tokenCounts,
+            Map<String, Integer> documentCounts) {
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.DuplicatePageProperties;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.cos.COSArray;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSNumber;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdfparser.PDFStreamParser;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.Raster;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Groups identical pages so only one page of each group is analyzed, and finds blank pages.
+ * <p>
+ * Pages are first compared by a digest of their content stream, the images, forms and fonts it draws, and
+ * the appearance of their annotations. Pages without visible text (scans) are rendered in grayscale at a low
+ * DPI: nearly unpainted renders are blank, and a 32x32 block-mean hash finds candidate copies of the same
+ * sheet. Pages printed on one template share that hash, so a candidate only counts as a copy once both pages,
+ * rendered at OCR resolution, differ in no more than {@code max-diff-pixels} pixels after allowing for a
+ * shift of a couple of pixels; merging two pages that merely look alike would lose content.
+ */
+@Service
+public class DuplicatePageDetector {
+
+    private static final Logger log = LoggerFactory.getLogger(DuplicatePageDetector.class);
+    private static final int HASH_SIZE = 32;
+    private static final int MAX_FORM_DEPTH = 8;
+    private static final int INK_LEVEL = 128;
+    private static final int DIFF_LEVEL = 64;
+    private static final int MAX_SHIFT = 2;
+    private static final Set<String> TEXT_OPERATORS = Set.of("Tj", "TJ", "'", "\"");
+    private static final Set<String> PAINT_OPERATORS = Set.of(
+            "Do", "BI", "sh", "f", "F", "f*", "B", "B*", "b", "b*", "S", "s");
+
+    private final DuplicatePageProperties properties;
+
+    /**
+     * Result of grouping the selected pages: the pages to analyze, the pages each of them stands for, and
+     * the blank pages to skip. {@code copies} is keyed by the analyzed page.
+     */
+    public record PageGroups(List<Integer> unique, Map<Integer, List<Integer>> copies, List<Integer> blank) {
+
+        public static PageGroups allUnique(List<Integer> pages) {
+            return new PageGroups(pages, Map.of(), List.of());
+        }
+
+        public int duplicateCount() {
+            return copies.values().stream().mapToInt(List::size).sum();
+        }
+    }
+
+    public DuplicatePageDetector(DuplicatePageProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    public PageGroups detect(PDDocument document, List<Integer> pages) throws IOException {
+        if (!properties.enabled() || pages.isEmpty()) {
+            return PageGroups.allUnique(pages);
+        }
+
+        List<Integer> unique = new ArrayList<>();
+        Map<Integer, List<Integer>> copies = new LinkedHashMap<>();
+        List<Integer> blank = new ArrayList<>();
+        Map<String, Integer> byDigest = new HashMap<>();
+        Set<String> blankDigests = new HashSet<>();
+        Map<Integer, long[]> scanHashes = new LinkedHashMap<>();
+        Map<COSStream, byte[]> streamDigests = new IdentityHashMap<>();
+        PDFRenderer renderer = null;
+
+        for (int pageNumber : pages) {
+            PDPage page = document.getPage(pageNumber - 1);
+            Marks marks = new Marks();
+            try {
+                marks.scan(page);
+            } catch (IOException | RuntimeException e) {
+                log.debug("Cannot parse page {}, analyzing it as is: {}", pageNumber, e.getMessage());
+                unique.add(pageNumber);
+                continue;
+            }
+            if (!marks.paints && !hasAppearances(page)) {
+                blank.add(pageNumber);
+                continue;
+            }
+
+            String digest = contentDigest(page, streamDigests);
+            Integer first = byDigest.get(digest);
+            if (first != null) {
+                copies.computeIfAbsent(first, p -> new ArrayList<>()).add(pageNumber);
+                continue;
+            }
+            if (blankDigests.contains(digest)) {
+                blank.add(pageNumber);
+                continue;
+            }
+
+            // Scans never repeat byte for byte; compare how they look instead
+            if (!marks.visibleText) {
+                if (renderer == null) {
+                    renderer = new PDFRenderer(document);
+                }
+                BufferedImage render = renderer.renderImageWithDPI(pageNumber - 1, properties.renderDpi(),
+                        ImageType.GRAY);
+                if (inkRatio(render) < properties.blankInkRatio()) {
+                    blankDigests.add(digest);
+                    blank.add(pageNumber);
+                    continue;
+                }
+                long[] hash = blockHash(render);
+                Integer similar = findCopy(renderer, scanHashes, hash, pageNumber);
+                if (similar != null) {
+                    copies.computeIfAbsent(similar, p -> new ArrayList<>()).add(pageNumber);
+                    continue;
+                }
+                scanHashes.put(pageNumber, hash);
+            }
+
+            byDigest.put(digest, pageNumber);
+            unique.add(pageNumber);
+        }
+
+        PageGroups groups = new PageGroups(unique, copies, blank);
+        log.info("Page groups: {} unique, {} duplicates, {} blank of {} pages",
+                unique.size(), groups.duplicateCount(), blank.size(), pages.size());
+        return groups;
+    }
+
+    /**
+     * First earlier scan whose hash is close and whose OCR-resolution render matches the page.
+     */
+    private Integer findCopy(PDFRenderer renderer, Map<Integer, long[]> scanHashes, long[] hash, int pageNumber)
+            throws IOException {
+        BufferedImage page = null;
+        for (Map.Entry<Integer, long[]> entry : scanHashes.entrySet()) {
+            int distance = 0;
+            for (int i = 0; i < hash.length && distance <= properties.maxHashDistance(); i++) {
+                distance += Long.bitCount(hash[i] ^ entry.getValue()[i]);
+            }
+            if (distance > properties.maxHashDistance()) {
+                continue;
+            }
+            if (page == null) {
+                page = renderer.renderImageWithDPI(pageNumber - 1, properties.confirmDpi(), ImageType.GRAY);
+            }
+            BufferedImage candidate = renderer.renderImageWithDPI(entry.getKey() - 1, properties.confirmDpi(),
+                    ImageType.GRAY);
+            int differing = differingPixels(page, candidate, properties.maxDiffPixels());
+            if (differing <= properties.maxDiffPixels()) {
+                return entry.getKey();
+            }
+            log.debug("Page {} looks like page {} but differs in {} pixels", pageNumber, entry.getKey(), differing);
+        }
+        return null;
+    }
+
+    /**
+     * Pixels of either image with no pixel of similar gray within {@link #MAX_SHIFT} pixels in the other, so a
+     * slightly shifted rescan still matches; counting stops once {@code limit} is exceeded.
+     */
+    private static int differingPixels(BufferedImage a, BufferedImage b, int limit) {
+        if (a.getWidth() != b.getWidth() || a.getHeight() != b.getHeight()) {
+            return Integer.MAX_VALUE;
+        }
+        int width = a.getWidth();
+        int height = a.getHeight();
+        int[] left = a.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        int[] right = b.getRaster().getSamples(0, 0, width, height, 0, (int[]) null);
+        int differing = 0;
+        for (int y = 0; y < height && differing <= limit; y++) {
+            for (int x = 0; x < width && differing <= limit; x++) {
+                int i = y * width + x;
+                if (Math.abs(left[i] - right[i]) <= DIFF_LEVEL) {
+                    continue;
+                }
+                if (!hasNear(right, width, height, x, y, left[i]) || !hasNear(left, width, height, x, y, right[i])) {
+                    differing++;
+                }
+            }
+        }
+        return differing;
+    }
+
+    private static boolean hasNear(int[] pixels, int width, int height, int x, int y, int value) {
+        for (int dy = Math.max(0, y - MAX_SHIFT); dy <= Math.min(height - 1, y + MAX_SHIFT); dy++) {
+            for (int dx = Math.max(0, x - MAX_SHIFT); dx <= Math.min(width - 1, x + MAX_SHIFT); dx++) {
+                if (Math.abs(pixels[dy * width + dx] - value) <= DIFF_LEVEL) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static double inkRatio(BufferedImage render) {
+        Raster raster = render.getRaster();
+        int[] row = new int[raster.getWidth()];
+        long ink = 0;
+        for (int y = 0; y < raster.getHeight(); y++) {
+            raster.getSamples(0, y, raster.getWidth(), 1, 0, row);
+            for (int value : row) {
+                if (value < INK_LEVEL) {
+                    ink++;
+                }
+            }
+        }
+        return (double) ink / Math.max(1L, (long) raster.getWidth() * raster.getHeight());
+    }
+
+    /**
+     * One bit per cell of a 32x32 grid: set when the cell is darker than the page average.
+     */
+    private static long[] blockHash(BufferedImage render) {
+        Raster raster = render.getRaster();
+        int width = raster.getWidth();
+        int height = raster.getHeight();
+        double[] cells = new double[HASH_SIZE * HASH_SIZE];
+        long[] counts = new long[cells.length];
+        int[] row = new int[width];
+        double total = 0;
+        for (int y = 0; y < height; y++) {
+            raster.getSamples(0, y, width, 1, 0, row);
+            int cellRow = Math.min(HASH_SIZE - 1, y * HASH_SIZE / height);
+            for (int x = 0; x < width; x++) {
+                int cell = cellRow * HASH_SIZE + Math.min(HASH_SIZE - 1, x * HASH_SIZE / width);
+                cells[cell] += row[x];
+                counts[cell]++;
+                total += row[x];
+            }
+        }
+        double mean = total / Math.max(1L, (long) width * height);
+        long[] hash = new long[cells.length / Long.SIZE];
+        for (int i = 0; i < cells.length; i++) {
+            if (counts[i] > 0 && cells[i] / counts[i] < mean) {
+                hash[i / Long.SIZE] |= 1L << (i % Long.SIZE);
+            }
+        }
+        return hash;
+    }
+
+    private String contentDigest(PDPage page, Map<COSStream, byte[]> streamDigests) throws IOException {
+        MessageDigest sha = sha256();
+        update(sha, page.getRotation() + "|" + page.getMediaBox());
+        try (InputStream contents = page.getContents()) {
+            sha.update(contents.readAllBytes());
+        }
+        if (page.getResources() != null) {
+            updateResources(sha, page.getResources().getCOSObject(), streamDigests, 0);
+        }
+        updateAnnotations(sha, page, streamDigests);
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Whether any annotation brings its own appearance, so a page with an empty content stream is not blank.
+     */
+    private static boolean hasAppearances(PDPage page) {
+        if (!(page.getCOSObject().getDictionaryObject(COSName.ANNOTS) instanceof COSArray annots)) {
+            return false;
+        }
+        for (int i = 0; i < annots.size(); i++) {
+            if (annots.getObject(i) instanceof COSDictionary annotation
+                    && annotation.getDictionaryObject(COSName.AP) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds each annotation's type, position, flags and field value, and the normal appearance it renders with:
+     * stamps, filled-in form fields and signatures are content that the content stream does not show.
+     */
+    private void updateAnnotations(MessageDigest sha, PDPage page, Map<COSStream, byte[]> streamDigests)
+            throws IOException {
+        if (!(page.getCOSObject().getDictionaryObject(COSName.ANNOTS) instanceof COSArray annots)) {
+            return;
+        }
+        for (int i = 0; i < annots.size(); i++) {
+            if (!(annots.getObject(i) instanceof COSDictionary annotation)) {
+                continue;
+            }
+            update(sha, "A" + annotation.getNameAsString(COSName.SUBTYPE) + "|"
+                    + annotation.getDictionaryObject(COSName.RECT) + "|" + annotation.getInt(COSName.F)
+                    + "|" + annotation.getDictionaryObject(COSName.V)
+                    + "|" + annotation.getDictionaryObject(COSName.CONTENTS));
+            if (!(annotation.getDictionaryObject(COSName.AP) instanceof COSDictionary appearances)) {
+                continue;
+            }
+            COSBase normal = appearances.getDictionaryObject(COSName.N);
+            if (normal instanceof COSDictionary states && !(normal instanceof COSStream)) {
+                // Check boxes and radio buttons keep one appearance per state; /AS selects the drawn one
+                COSName state = annotation.getCOSName(COSName.AS);
+                normal = state != null ? states.getDictionaryObject(state) : null;
+            }
+            if (normal instanceof COSStream appearance) {
+                sha.update(streamDigest(appearance, streamDigests));
+                if (appearance.getDictionaryObject(COSName.RESOURCES) instanceof COSDictionary resources) {
+                    updateResources(sha, resources, streamDigests, 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the drawn objects by name: image and form bytes, and each font's name and embedded program.
+     */
+    private void updateResources(MessageDigest sha, COSDictionary resources, Map<COSStream, byte[]> streamDigests,
+            int depth) throws IOException {
+        if (depth > MAX_FORM_DEPTH) {
+            return;
+        }
+        if (resources.getDictionaryObject(COSName.XOBJECT) instanceof COSDictionary xobjects) {
+            for (COSName name : new TreeSet<>(xobjects.keySet())) {
+                if (xobjects.getDictionaryObject(name) instanceof COSStream stream) {
+                    update(sha, "X" + name.getName());
+                    sha.update(streamDigest(stream, streamDigests));
+                    if (stream.getDictionaryObject(COSName.RESOURCES) instanceof COSDictionary formResources) {
+                        updateResources(sha, formResources, streamDigests, depth + 1);
+                    }
+                }
+            }
+        }
+        if (resources.getDictionaryObject(COSName.FONT) instanceof COSDictionary fonts) {
+            for (COSName name : new TreeSet<>(fonts.keySet())) {
+                if (fonts.getDictionaryObject(name) instanceof COSDictionary font) {
+                    update(sha, "F" + name.getName() + "=" + font.getNameAsString(COSName.BASE_FONT));
+                    if (font.getCOSDictionary(COSName.FONT_DESC) instanceof COSDictionary descriptor) {
+                        for (COSName key : new COSName[] { COSName.FONT_FILE, COSName.FONT_FILE2,
+                                COSName.FONT_FILE3 }) {
+                            if (descriptor.getDictionaryObject(key) instanceof COSStream program) {
+                                sha.update(streamDigest(program, streamDigests));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static byte[] streamDigest(COSStream stream, Map<COSStream, byte[]> streamDigests) throws IOException {
+        byte[] cached = streamDigests.get(stream);
+        if (cached != null) {
+            return cached;
+        }
+        MessageDigest sha = sha256();
+        update(sha, String.valueOf(stream.getItem(COSName.FILTER)));
+        try (InputStream raw = stream.createRawInputStream()) {
+            sha.update(raw.readAllBytes());
+        }
+        byte[] digest = sha.digest();
+        streamDigests.put(stream, digest);
+        return digest;
+    }
+
+    private static void update(MessageDigest sha, String value) {
+        sha.update(value.getBytes(StandardCharsets.UTF_8));
+        sha.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Whether a page paints anything at all and whether it shows text that is not invisible (render mode 3,
+     * the OCR layer of searchable scans).
+     */
+    private static final class Marks {
+
+        private boolean paints;
+        private boolean visibleText;
+
+        void scan(PDPage page) throws IOException {
+            PDFStreamParser parser = new PDFStreamParser(page);
+            int renderMode = 0;
+            COSBase lastOperand = null;
+            for (Object token = parser.parseNextToken(); token != null; token = parser.parseNextToken()) {
+                if (!(token instanceof Operator operator)) {
+                    lastOperand = token instanceof COSBase operand ? operand : null;
+                    continue;
+                }
+                String name = operator.getName();
+                if ("Tr".equals(name) && lastOperand instanceof COSNumber mode) {
+                    renderMode = mode.intValue();
+                } else if (TEXT_OPERATORS.contains(name)) {
+                    paints = true;
+                    visibleText |= renderMode != 3;
+                } else if (PAINT_OPERATORS.contains(name)) {
+                    paints = true;
+                }
+                lastOperand = null;
+            }
+        }
+    }
+}
@@ -8,134 +8,69 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
+import java.util.EnumMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 
 @Service
 public class EnrichedMarkdownExportService {
 
     private static final Logger log = LoggerFactory.getLogger(EnrichedMarkdownExportService.class);
-    private static final Pattern LIST_ITEM_PATTERN = Pattern.compile("^[·•\\-*]\\s+.*");
 
     public void exportToMarkdown(AnalysisResult result, List<EnrichedSection> enrichedSections, Path outputPath) {
         log.info("Exporting enriched markdown: {}", outputPath);
 
-        StringBuilder md = new StringBuilder();
+        try (Writer writer = Files.newBufferedWriter(outputPath)) {
+            writeMarkdown(result, enrichedSections, writer);
+            log.info("Markdown export complete: {}", outputPath);
+        } catch (IOException e) {
+            log.error("Failed to write markdown file", e);
+            throw new RuntimeException("Failed to write markdown: " + e.getMessage(), e);
+        }
+    }
 
-        // Header
-        md.append("# ").append(result.fileName()).append("\n\n");
+    public void writeMarkdown(AnalysisResult result, List<EnrichedSection> enrichedSections, Writer writer)
+            throws IOException {
+        MarkdownRenderer md = new MarkdownRenderer(writer);
 
-        // Metadata
-        md.append("## Document Information\n\n");
-        md.append("- **File**: ").append(result.fileName()).append("\n");
-        md.append("- **Pages**: ").append(result.pageCount()).append("\n");
-        md.append("- **Total Sections**: ").append(enrichedSections.size()).append("\n");
+        Map<SectionClassification, Integer> counts = new EnumMap<>(SectionClassification.class);
+        for (EnrichedSection section : enrichedSections) {
+            if (section.classification() == null) {
+                continue;
+            }
+            counts.merge(section.classification(), 1, Integer::sum);
+        }
 
-        long keptSections = enrichedSections.stream()
-                .filter(s -> s.classification() == SectionClassification.KEEP)
-                .count();
-        long auxiliarySections = enrichedSections.stream()
-                .filter(s -> s.classification() == SectionClassification.AUXILIARY)
-                .count();
-        long removedSections = enrichedSections.stream()
-                .filter(s -> s.classification() == SectionClassification.REMOVE)
-                .count();
+        md.heading(1, result.fileName());
 
-        md.append("- **Content Sections**: ").append(keptSections).append("\n");
-        md.append("- **Auxiliary Sections**: ").append(auxiliarySections).append("\n");
-        md.append("- **Removed Sections**: ").append(removedSections).append("\n");
-        md.append("- **Average Confidence**: ").append(String.format("%.2f%%", result.quality().avgConfidence() * 100))
-                .append("\n\n");
+        // Metadata
+        md.heading(2, "Document Information")
+                .field("File", result.fileName())
+                .field("Pages", result.pageCount())
+                .field("Total Sections", enrichedSections.size())
+                .field("Content Sections", counts.getOrDefault(SectionClassification.KEEP, 0))
+                .field("Auxiliary Sections", counts.getOrDefault(SectionClassification.AUXILIARY, 0))
+                .field("Removed Sections", counts.getOrDefault(SectionClassification.REMOVE, 0))
+                .field("Average Confidence", MarkdownRenderer.percent(result.quality().avgConfidence()))
+                .blankLine();
 
         // Content by page
-        md.append("## Document Content\n\n");
-
-        int currentPage = -1;
-        List<EnrichedSection> currentList = new ArrayList<>();
-
+        md.heading(2, "Document Content");
         for (EnrichedSection section : enrichedSections) {
-            // Skip removed sections
             if (section.classification() == SectionClassification.REMOVE) {
                 continue;
             }
-
-            // Page header
-            if (section.pageNumber() != currentPage) {
-                flushList(md, currentList);
-                currentList.clear();
-                currentPage = section.pageNumber();
-                md.append("\n### Page ").append(currentPage).append("\n\n");
-            }
-
-            String content = section.content().trim();
-            if (content.isEmpty()) {
-                continue;
-            }
-
-            // Handle auxiliary sections
+            md.page(section.pageNumber());
             if (section.classification() == SectionClassification.AUXILIARY) {
-                flushList(md, currentList);
-                currentList.clear();
-                md.append("> **[AUXILIARY]** ").append(content).append("\n\n");
-                continue;
+                md.quote("AUXILIARY", section.content());
+            } else {
+                md.section(section.role(), section.content());
             }
-
-            // Handle list items
-            if (isListItem(content)) {
-                currentList.add(section);
-                continue;
-            }
-
-            // Flush accumulated list
-            flushList(md, currentList);
-            currentList.clear();
-
-            // Format section based on role
-            String formattedSection = formatSectionHeader(section.role(), content);
-            md.append(formattedSection).append("\n\n");
         }
 
-        flushList(md, currentList);
-
-        try {
-            Files.writeString(outputPath, md.toString());
-            log.info("Markdown export complete: {}", outputPath);
-        } catch (IOException e) {
-            log.error("Failed to write markdown file", e);
-            throw new RuntimeException("Failed to write markdown: " + e.getMessage(), e);
-        }
-    }
-
-    private boolean isListItem(String content) {
-        return LIST_ITEM_PATTERN.matcher(content).matches();
-    }
-
-    private void flushList(StringBuilder md, List<EnrichedSection> listItems) {
-        if (listItems.isEmpty()) {
-            return;
-        }
-
-        for (EnrichedSection item : listItems) {
-            String content = item.content().trim();
-            if (!content.startsWith("-") && !content.startsWith("*") && !content.startsWith("•")
-                    && !content.startsWith("·")) {
-                content = "- " + content;
-            } else if (content.startsWith("•") || content.startsWith("·")) {
-                content = "- " + content.substring(1).trim();
-            }
-            md.append(content).append("\n");
-        }
-        md.append("\n");
-    }
-
-    private String formatSectionHeader(String role, String content) {
-        return switch (role) {
-            case "title" -> "# " + content;
-            case "sectionHeading" -> "## " + content;
-            default -> content;
-        };
+        md.finish();
     }
 }
@@ -0,0 +1,181 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.FakeLlmProperties;
+import org.springframework.ai.chat.messages.AssistantMessage;
+import org.springframework.ai.chat.metadata.ChatResponseMetadata;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatModel;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.ai.chat.model.Generation;
+import org.springframework.ai.chat.prompt.Prompt;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline stand-in for the OpenAI/Anthropic chat models.
+ * Recognises the section cleanup and document classification prompts and answers them with
+ * schema-valid output, after a log-normally distributed delay and with a configurable failure
+ * rate. Labels depend only on the prompt text, so runs are reproducible.
+ */
+public class FakeChatModel implements ChatModel {
+
+    private static final Pattern SECTION_HEADER = Pattern.compile("^\\[(\\d+)] role=\\S*, page=\\d+$",
+            Pattern.MULTILINE);
+    private static final Pattern SECTION_CONTENT = Pattern.compile("^content: (.*)$", Pattern.MULTILINE);
+
+    private final String model;
+    private final FakeLlmProperties properties;
+    private final Random random;
+
+    public FakeChatModel(String model, FakeLlmProperties properties) {
+        this.model = model;
+        this.properties = properties;
+        this.random = new Random(properties.seed());
+    }
+
+    @Override
+    public ChatResponse call(Prompt prompt) {
+        String request = prompt.getContents();
+        simulateLatencyAndFailure();
+        return response(answer(request), request, true);
+    }
+
+    @Override
+    public Flux<ChatResponse> stream(Prompt prompt) {
+        String request = prompt.getContents();
+        simulateLatencyAndFailure();
+
+        String answer = answer(request);
+        int fragments = Math.max(1, properties.streamFragments());
+        int fragmentLength = Math.max(1, (answer.length() + fragments - 1) / fragments);
+
+        List<ChatResponse> responses = new ArrayList<>();
+        for (int start = 0; start < answer.length(); start += fragmentLength) {
+            String fragment = answer.substring(start, Math.min(answer.length(), start + fragmentLength));
+            responses.add(response(fragment, request, false));
+        }
+        // Like OpenAI with stream usage enabled, token counts arrive on the last response
+        responses.add(usageOnly(answer, request));
+        return Flux.fromIterable(responses);
+    }
+
+    private String answer(String request) {
+        if (SECTION_HEADER.matcher(request).find()) {
+            return classifySections(request);
+        }
+        if (request.contains("Classify the following document")) {
+            return classifyDocument(request);
+        }
+        return "OK";
+    }
+
+    private String classifySections(String request) {
+        List<String> indices = new ArrayList<>();
+        Matcher header = SECTION_HEADER.matcher(request);
+        while (header.find()) {
+            indices.add(header.group(1));
+        }
+        List<String> contents = new ArrayList<>();
+        Matcher content = SECTION_CONTENT.matcher(request);
+        while (content.find()) {
+            contents.add(content.group(1).trim());
+        }
+
+        StringBuilder json = new StringBuilder("{");
+        for (int i = 0; i < indices.size(); i++) {
+            String text = i < contents.size() ? contents.get(i) : "";
+            if (i > 0) {
+                json.append(", ");
+            }
+            json.append('"').append(indices.get(i)).append("\": \"").append(sectionLabel(text)).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    private String sectionLabel(String content) {
+        if (content.length() <= 2 || content.startsWith(":selected:") || content.startsWith(":unselected:")) {
+            return "REMOVE";
+        }
+        String lower = content.toLowerCase(Locale.ROOT);
+        if (lower.startsWith("wyjaśnienia") || lower.startsWith("przykład") || lower.startsWith("ważne")) {
+            return "AUXILIARY";
+        }
+        return "KEEP";
+    }
+
+    private String classifyDocument(String request) {
+        String lower = request.toLowerCase(Locale.ROOT);
+        if (lower.contains("faktura") || lower.contains("invoice")) {
+            return "INVOICE";
+        }
+        if (lower.contains("warunki") || lower.contains("owu")) {
+            return "TERMS_AND_CONDITIONS";
+        }
+        if (lower.contains("umowa") || lower.contains("contract")) {
+            return "CONTRACT";
+        }
+        if (lower.contains("§") || lower.contains("art.")) {
+            return "LEGAL_DOCUMENT";
+        }
+        return "OTHER";
+    }
+
+    private void simulateLatencyAndFailure() {
+        double gaussian;
+        double failureDraw;
+        synchronized (random) {
+            gaussian = random.nextGaussian();
+            failureDraw = random.nextDouble();
+        }
+
+        long latencyMs = Math.round(properties.latencyMedianMs() * Math.exp(properties.latencySigma() * gaussian));
+        try {
+            Thread.sleep(Math.max(0, latencyMs));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while simulating LLM latency", e);
+        }
+
+        if (failureDraw < properties.failureRate()) {
+            throw new IllegalStateException("Simulated LLM failure (" + model + ")");
+        }
+    }
+
+    private ChatResponse response(String content, String request, boolean withUsage) {
+        ChatResponseMetadata.Builder metadata = ChatResponseMetadata.builder().withModel(model);
+        if (withUsage) {
+            metadata.withUsage(new FakeUsage(tokens(request), tokens(content)));
+        }
+        return new ChatResponse(List.of(new Generation(new AssistantMessage(content))), metadata.build());
+    }
+
+    private ChatResponse usageOnly(String answer, String request) {
+        return new ChatResponse(List.of(), ChatResponseMetadata.builder()
+                .withModel(model)
+                .withUsage(new FakeUsage(tokens(request), tokens(answer)))
+                .build());
+    }
+
+    private long tokens(String text) {
+        return Math.round(text.length() * properties.tokensPerChar());
+    }
+
+    private record FakeUsage(long prompt, long generation) implements Usage {
+
+        @Override
+        public Long getPromptTokens() {
+            return prompt;
+        }
+
+        @Override
+        public Long getGenerationTokens() {
+            return generation;
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.StoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link AnalysisStore} on the local filesystem:
+ *
+ * <pre>
+ * {dir}/cache/&lt;cache&gt;/&lt;sha256(key)&gt;.json   cached values, expired by modification time
+ * {dir}/locks/&lt;sha256(key)&gt;.lock           in-flight claims: owner and expiry
+ * {resultsDir}/&lt;name&gt;                      saved results
+ * </pre>
+ *
+ * Claims are created with {@code CREATE_NEW}, which is atomic on local disks and NFSv4, so replicas sharing
+ * a volume also share the cache and the claims. An expired claim is deleted by the next instance asking for it.
+ * Expired cache entries are deleted when read and by an hourly sweep, so entries that are never read again do
+ * not stay on disk.
+ */
+public class FileSystemAnalysisStore implements AnalysisStore {
+
+    private static final Logger log = LoggerFactory.getLogger(FileSystemAnalysisStore.class);
+    private static final Duration UNREADABLE_CLAIM_GRACE = Duration.ofMinutes(1);
+    private static final Duration SWEEP_INTERVAL = Duration.ofHours(1);
+
+    private final Path cacheDir;
+    private final Path lockDir;
+    private final Path resultsDir;
+    private final Duration cacheTtl;
+    private final ObjectMapper objectMapper;
+    private final String owner = UUID.randomUUID().toString();
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("analysis-store-sweep").daemon().factory());
+
+    public FileSystemAnalysisStore(StoreProperties properties, ObjectMapper objectMapper) {
+        this.cacheDir = Path.of(properties.dir(), "cache");
+        this.lockDir = Path.of(properties.dir(), "locks");
+        this.resultsDir = Path.of(properties.resultsDir());
+        this.cacheTtl = Duration.ofHours(properties.cacheTtlHours());
+        this.objectMapper = objectMapper;
+        if (!cacheTtl.isZero()) {
+            sweeper.scheduleWithFixedDelay(this::sweepExpired, 0, SWEEP_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Override
+    public Optional<Object> get(String cache, String key) {
+        Path file = entry(cache, key);
+        try {
+            if (isStale(file)) {
+                Files.deleteIfExists(file);
+                return Optional.empty();
+            }
+            return Optional.of(StoredValues.decode(objectMapper, Files.readString(file)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException | ClassNotFoundException e) {
+            log.warn("Cannot read {} entry {}, treating it as a miss: {}", cache, key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String cache, String key, Object value) {
+        try {
+            write(entry(cache, key), StoredValues.encode(objectMapper, value));
+        } catch (IOException e) {
+            log.warn("Cannot store {} entry {}: {}", cache, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String cache, String key) {
+        try {
+            Files.deleteIfExists(entry(cache, key));
+        } catch (IOException e) {
+            log.warn("Cannot evict {} entry {}: {}", cache, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear(String cache) {
+        Path dir = cacheDir.resolve(cache);
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Cannot clear cache {}: {}", cache, e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveResult(String name, String content) throws IOException {
+        write(resultsDir.resolve(name), content);
+    }
+
+    @Override
+    public Optional<InputStream> openResult(String name) throws IOException {
+        Path file = resultsDir.resolve(name).normalize();
+        // Names come from requests; anything outside the results directory does not exist here
+        if (!resultsDir.normalize().equals(file.getParent()) || !Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(Files.newInputStream(file));
+    }
+
+    @Override
+    public List<String> listResults() throws IOException {
+        if (!Files.isDirectory(resultsDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(resultsDir)) {
+            return files.filter(Files::isRegularFile)
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> !name.endsWith(".tmp"))
+                    .toList();
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, Duration lease) {
+        Path lock = lockDir.resolve(hash(key) + ".lock");
+        try {
+            Files.createDirectories(lockDir);
+            for (int attempt = 0; attempt < 2; attempt++) {
+                try {
+                    Files.writeString(lock, owner + " " + Instant.now().plus(lease), StandardCharsets.UTF_8,
+                            StandardOpenOption.CREATE_NEW);
+                    return true;
+                } catch (FileAlreadyExistsException e) {
+                    if (!isExpired(lock)) {
+                        return false;
+                    }
+                    log.warn("Taking over expired claim on {}", key);
+                    Files.deleteIfExists(lock);
+                }
+            }
+            return false;
+        } catch (IOException e) {
+            log.warn("Cannot claim {}, analyzing without a claim: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        Path lock = lockDir.resolve(hash(key) + ".lock");
+        try {
+            // Another instance may have taken over after our lease expired; its claim stays
+            if (Files.readString(lock).startsWith(owner + " ")) {
+                Files.deleteIfExists(lock);
+            }
+        } catch (NoSuchFileException e) {
+            // Already released or taken over and finished
+        } catch (IOException e) {
+            log.warn("Cannot release claim on {}: {}", key, e.getMessage());
+        }
+    }
+
+    private static boolean isExpired(Path lock) throws IOException {
+        try {
+            String[] claim = Files.readString(lock).split(" ");
+            if (claim.length == 2) {
+                return Instant.parse(claim[1]).isBefore(Instant.now());
+            }
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (DateTimeParseException e) {
+            // Unreadable claim, handled below
+        }
+        // Caught between creation and write, or left behind by a crash in between
+        return Files.getLastModifiedTime(lock).toInstant().plus(UNREADABLE_CLAIM_GRACE).isBefore(Instant.now());
+    }
+
+    /**
+     * Deletes cache entries older than the TTL in every cache directory.
+     */
+    void sweepExpired() {
+        if (!Files.isDirectory(cacheDir)) {
+            return;
+        }
+        int deleted = 0;
+        try (Stream<Path> caches = Files.list(cacheDir)) {
+            for (Path cache : caches.filter(Files::isDirectory).toList()) {
+                // Temp files left by an interrupted write age out the same way
+                try (Stream<Path> files = Files.list(cache)) {
+                    for (Path file : files.toList()) {
+                        if (isStale(file) && Files.deleteIfExists(file)) {
+                            deleted++;
+                        }
+                    }
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // Cleared concurrently
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cache sweep of {} stopped early: {}", cacheDir, e.getMessage());
+        }
+        if (deleted > 0) {
+            log.info("Deleted {} expired cache entries from {}", deleted, cacheDir);
+        }
+    }
+
+    public void close() {
+        sweeper.shutdownNow();
+    }
+
+    private boolean isStale(Path file) throws IOException {
+        return !cacheTtl.isZero()
+                && Files.getLastModifiedTime(file).toInstant().plus(cacheTtl).isBefore(Instant.now());
+    }
+
+    private Path entry(String cache, String key) {
+        return cacheDir.resolve(cache).resolve(hash(key) + ".json");
+    }
+
+    private static void write(Path target, String content) throws IOException {
+        Files.createDirectories(target.getParent());
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        Files.writeString(temp, content);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String hash(String key) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(key.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
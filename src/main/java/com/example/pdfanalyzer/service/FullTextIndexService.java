@@ -0,0 +1,416 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.FullTextIndexProperties;
+import com.example.pdfanalyzer.dto.SectionSearchHit;
+import com.example.pdfanalyzer.model.Section;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Incremental inverted index over the sections of analyzed documents.
+ * Every indexed document is written as a small immutable segment file on a background thread; once
+ * there are more than {@code max-segments} segments, the {@code merge-factor} adjacent ones holding the
+ * fewest documents are merged on another, so hits keep the order in which documents were indexed.
+ * The segment list is replaced as a whole, so a search sees either the merge inputs or the merged segment.
+ * Queries are AND by default and support {@code OR}, {@code -term} and "quoted phrases".
+ */
+@Service
+public class FullTextIndexService {
+
+    private static final Logger log = LoggerFactory.getLogger(FullTextIndexService.class);
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final Pattern QUERY_TOKEN = Pattern.compile("(-?)\"([^\"]*)\"|(-?)(\\S+)");
+    private static final int SNIPPET_LENGTH = 200;
+    private static final long MAX_MERGED_BYTES = 1L << 30;
+
+    private final FullTextIndexProperties properties;
+    private final Object segmentsLock = new Object();
+    private volatile List<IndexSegment> segments = List.of();
+    private final Set<String> indexedKeys = new HashSet<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ExecutorService indexer = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "full-text-indexer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ExecutorService merger = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "full-text-merger");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public FullTextIndexService(FullTextIndexProperties properties) {
+        this.properties = properties;
+        load();
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Indexes the document on the background thread; failures are logged, not thrown.
+     */
+    public void indexDocumentAsync(String fileName, List<Section> sections) {
+        List<Section> copy = List.copyOf(sections);
+        indexer.execute(() -> {
+            try {
+                indexDocument(fileName, copy);
+            } catch (RuntimeException e) {
+                log.error("Failed to index {} for full-text search", fileName, e);
+            }
+        });
+    }
+
+    public void indexDocument(String fileName, List<Section> sections) {
+        String key = fileName + "#" + documentHash(sections);
+        synchronized (indexedKeys) {
+            if (!indexedKeys.add(key)) {
+                log.debug("Document already indexed: {}", fileName);
+                return;
+            }
+        }
+
+        long segmentGeneration = generation.getAndIncrement();
+        IndexSegment segment;
+        try {
+            Files.createDirectories(indexDir());
+            segment = IndexSegment.build(segmentPath(segmentName(segmentGeneration)), segmentGeneration,
+                    new IndexSegment.StoredDoc(key, fileName, List.copyOf(sections)));
+        } catch (IOException e) {
+            log.error("Failed to write full-text segment for {}", fileName, e);
+            synchronized (indexedKeys) {
+                indexedKeys.remove(key);
+            }
+            return;
+        }
+        int segmentCount;
+        synchronized (segmentsLock) {
+            List<IndexSegment> updated = new ArrayList<>(segments);
+            updated.add(segment);
+            segments = List.copyOf(updated);
+            segmentCount = updated.size();
+        }
+        log.info("Indexed {} sections of {} into segment {}", sections.size(), fileName, segment.name());
+
+        if (segmentCount > Math.max(2, properties.maxSegments())) {
+            merger.execute(this::mergeSmallest);
+        }
+    }
+
+    public List<SectionSearchHit> search(String query, String role, int limit) {
+        List<List<QueryClause>> alternatives = parse(query);
+        List<SectionSearchHit> hits = new ArrayList<>();
+
+        for (IndexSegment segment : segments) {
+            Set<Long> matches = new LinkedHashSet<>();
+            for (List<QueryClause> alternative : alternatives) {
+                matches.addAll(evaluate(segment, alternative));
+            }
+            for (long match : matches.stream().sorted().toList()) {
+                int doc = (int) (match >>> 32);
+                int sectionIndex = (int) match;
+                Section section = segment.section(doc, sectionIndex);
+                if (role != null && !role.equalsIgnoreCase(section.role())) {
+                    continue;
+                }
+                hits.add(new SectionSearchHit(segment.docs().get(doc).fileName(), sectionIndex, section.pageNumber(),
+                        section.role(), snippet(section.content())));
+                if (hits.size() >= limit) {
+                    return hits;
+                }
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * Sections (encoded as {@code doc << 32 | section}) matching every required clause and no
+     * excluded one.
+     */
+    private Set<Long> evaluate(IndexSegment segment, List<QueryClause> clauses) {
+        Set<Long> result = null;
+        for (QueryClause clause : clauses) {
+            if (clause.excluded()) {
+                continue;
+            }
+            Set<Long> clauseMatches = match(segment, clause.terms());
+            if (result == null) {
+                result = clauseMatches;
+            } else {
+                result.retainAll(clauseMatches);
+            }
+            if (result.isEmpty()) {
+                return result;
+            }
+        }
+        if (result == null) {
+            return Set.of();
+        }
+        for (QueryClause clause : clauses) {
+            if (clause.excluded()) {
+                result.removeAll(match(segment, clause.terms()));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sections containing the terms as a consecutive phrase (a single term is a one-word phrase).
+     */
+    private Set<Long> match(IndexSegment segment, List<String> terms) {
+        Set<Long> matches = new LinkedHashSet<>();
+        if (terms.isEmpty()) {
+            return matches;
+        }
+        int[] first = segment.postings(terms.get(0));
+        if (first == null) {
+            return matches;
+        }
+        List<int[]> rest = new ArrayList<>();
+        for (int i = 1; i < terms.size(); i++) {
+            int[] postings = segment.postings(terms.get(i));
+            if (postings == null) {
+                return matches;
+            }
+            rest.add(postings);
+        }
+
+        int[] cursors = new int[rest.size()];
+        for (int i = 0; i < first.length; i += 3 + first[i + 2]) {
+            long key = ((long) first[i] << 32) | first[i + 1];
+            if (rest.isEmpty()) {
+                matches.add(key);
+                continue;
+            }
+            int[] offsets = new int[rest.size()];
+            boolean allPresent = true;
+            for (int t = 0; t < rest.size(); t++) {
+                int[] postings = rest.get(t);
+                // Postings are ordered by (doc, section), so cursors only move forward
+                while (cursors[t] < postings.length && compare(postings, cursors[t], first, i) < 0) {
+                    cursors[t] += 3 + postings[cursors[t] + 2];
+                }
+                if (cursors[t] >= postings.length || compare(postings, cursors[t], first, i) != 0) {
+                    allPresent = false;
+                    break;
+                }
+                offsets[t] = cursors[t];
+            }
+            if (allPresent && phraseAt(first, i, rest, offsets)) {
+                matches.add(key);
+            }
+        }
+        return matches;
+    }
+
+    private boolean phraseAt(int[] first, int offset, List<int[]> rest, int[] offsets) {
+        for (int p = 0; p < first[offset + 2]; p++) {
+            int start = first[offset + 3 + p];
+            boolean found = true;
+            for (int t = 0; t < rest.size() && found; t++) {
+                found = containsPosition(rest.get(t), offsets[t], start + t + 1);
+            }
+            if (found) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean containsPosition(int[] postings, int offset, int position) {
+        int count = postings[offset + 2];
+        for (int p = 0; p < count; p++) {
+            int value = postings[offset + 3 + p];
+            if (value == position) {
+                return true;
+            }
+            if (value > position) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private int compare(int[] a, int ai, int[] b, int bi) {
+        int byDoc = Integer.compare(a[ai], b[bi]);
+        return byDoc != 0 ? byDoc : Integer.compare(a[ai + 1], b[bi + 1]);
+    }
+
+    private List<List<QueryClause>> parse(String query) {
+        List<List<QueryClause>> alternatives = new ArrayList<>();
+        for (String alternative : query.split("\\s+OR\\s+")) {
+            List<QueryClause> clauses = new ArrayList<>();
+            Matcher matcher = QUERY_TOKEN.matcher(alternative);
+            while (matcher.find()) {
+                boolean phrase = matcher.group(2) != null;
+                boolean excluded = !(phrase ? matcher.group(1) : matcher.group(3)).isEmpty();
+                List<String> terms = PolishTextAnalyzer.analyze(phrase ? matcher.group(2) : matcher.group(4));
+                if (!terms.isEmpty()) {
+                    clauses.add(new QueryClause(terms, excluded));
+                }
+            }
+            if (!clauses.isEmpty()) {
+                alternatives.add(clauses);
+            }
+        }
+        return alternatives;
+    }
+
+    private void mergeSmallest() {
+        int mergeFactor = Math.max(2, properties.mergeFactor());
+        if (segments.size() <= Math.max(2, properties.maxSegments())) {
+            return;
+        }
+
+        // Only adjacent segments are merged, so doc order (and therefore search order) is preserved;
+        // segments are only appended concurrently, so the window found in the snapshot stays adjacent
+        List<IndexSegment> snapshot = segments;
+        int width = Math.min(mergeFactor, snapshot.size());
+        int bestStart = 0;
+        long bestDocs = Long.MAX_VALUE;
+        for (int start = 0; start + width <= snapshot.size(); start++) {
+            long docs = snapshot.subList(start, start + width).stream().mapToLong(s -> s.docs().size()).sum();
+            if (docs < bestDocs) {
+                bestDocs = docs;
+                bestStart = start;
+            }
+        }
+        List<IndexSegment> toMerge = snapshot.subList(bestStart, bestStart + width);
+        long bytes = toMerge.stream().mapToLong(IndexSegment::sizeBytes).sum();
+        if (bytes > MAX_MERGED_BYTES) {
+            // A segment is one mapping; beyond this the index simply keeps more segments
+            log.debug("Not merging {} segments of {} bytes", toMerge.size(), bytes);
+            return;
+        }
+
+        String mergedName = segmentName(generation.getAndIncrement());
+        IndexSegment merged;
+        try {
+            merged = IndexSegment.merge(segmentPath(mergedName), toMerge);
+        } catch (IOException e) {
+            log.error("Failed to write merged segment {}", mergedName, e);
+            return;
+        }
+
+        synchronized (segmentsLock) {
+            List<IndexSegment> current = segments;
+            int position = current.indexOf(toMerge.get(0));
+            List<IndexSegment> updated = new ArrayList<>(current.subList(0, position));
+            updated.add(merged);
+            updated.addAll(current.subList(position + toMerge.size(), current.size()));
+            segments = List.copyOf(updated);
+        }
+        for (IndexSegment segment : toMerge) {
+            try {
+                Files.deleteIfExists(segmentPath(segment.name()));
+            } catch (IOException e) {
+                log.warn("Failed to delete merged segment {}", segment.name(), e);
+            }
+        }
+        log.info("Merged {} segments into {} ({} documents)", toMerge.size(), merged.name(), merged.docs().size());
+    }
+
+    private void load() {
+        Path dir = indexDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        List<IndexSegment> loaded = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path path : files.filter(p -> p.toString().endsWith(SEGMENT_SUFFIX)).toList()) {
+                String name = path.getFileName().toString();
+                // Never reuse a generation, not even one whose segment cannot be read
+                generation.set(Math.max(generation.get(),
+                        Long.parseLong(name.substring(4, name.length() - SEGMENT_SUFFIX.length())) + 1));
+                try {
+                    loaded.add(IndexSegment.open(path));
+                } catch (IOException | RuntimeException e) {
+                    log.warn("Skipping unreadable full-text segment {}", path, e);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to load full-text index from {}", dir, e);
+            return;
+        }
+
+        // Sources of a merge that crashed before deleting them are already contained in the merged segment
+        Set<String> superseded = new HashSet<>();
+        loaded.forEach(segment -> superseded.addAll(segment.superseded()));
+        for (IndexSegment segment : loaded) {
+            if (superseded.contains(segment.name())) {
+                log.info("Deleting full-text segment {}, superseded by a merge", segment.name());
+                try {
+                    Files.deleteIfExists(segmentPath(segment.name()));
+                } catch (IOException e) {
+                    log.warn("Failed to delete superseded segment {}", segment.name(), e);
+                }
+            }
+        }
+        segments = loaded.stream()
+                .filter(segment -> !superseded.contains(segment.name()))
+                .sorted(Comparator.comparingLong(IndexSegment::order).thenComparing(IndexSegment::name))
+                .toList();
+        segments.forEach(segment -> segment.docs().forEach(doc -> indexedKeys.add(doc.key())));
+        log.info("Loaded {} full-text segments from {}", segments.size(), dir);
+    }
+
+    private static String segmentName(long segmentGeneration) {
+        return String.format("seg-%012d", segmentGeneration);
+    }
+
+    private Path segmentPath(String name) {
+        return indexDir().resolve(name + SEGMENT_SUFFIX);
+    }
+
+    private Path indexDir() {
+        return Path.of(properties.indexDir() != null ? properties.indexDir() : "output/full-text");
+    }
+
+    private String snippet(String content) {
+        if (content == null) {
+            return "";
+        }
+        return content.length() <= SNIPPET_LENGTH ? content : content.substring(0, SNIPPET_LENGTH) + "…";
+    }
+
+    private static int documentHash(List<Section> sections) {
+        int hash = 1;
+        for (Section section : sections) {
+            hash = 31 * hash + (section.content() != null ? section.content().hashCode() : 0);
+        }
+        return hash;
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        indexer.shutdown();
+        if (!indexer.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Full-text indexing still running at shutdown");
+            indexer.shutdownNow();
+        }
+        merger.shutdown();
+    }
+
+    private record QueryClause(List<String> terms, boolean excluded) {
+    }
+}
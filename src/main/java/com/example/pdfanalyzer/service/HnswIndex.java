@@ -0,0 +1,294 @@
+package com.example.pdfanalyzer.service;
+
+import java.io.IOException;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Hierarchical navigable small world graph over unit-normalized vectors (cosine distance).
+ * Persisted as a single memory-mapped file: a header, all vectors, then the per-level
+ * adjacency lists of every node. After {@link #load} the vectors are read from the mapping, so
+ * the page cache rather than the heap holds them; only the adjacency lists and vectors added since
+ * are kept on the heap.
+ */
+final class HnswIndex {
+
+    private static final int MAGIC = 0x484E5357; // "HNSW"
+
+    record Neighbor(int node, float distance) {
+    }
+
+    private final int m;
+    private final int maxNeighborsLayer0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    /** Vectors of nodes {@code 0..mappedCount-1}, read-only, or {@code null} if nothing was loaded. */
+    private FloatBuffer mappedVectors;
+    private int mappedCount;
+    /** Vectors of nodes from {@code mappedCount} on. */
+    private final List<float[]> vectors = new ArrayList<>();
+    private final List<int[][]> neighbors = new ArrayList<>();
+    private int dimensions;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswIndex(int m, int efConstruction) {
+        this.m = Math.max(2, m);
+        this.maxNeighborsLayer0 = this.m * 2;
+        this.efConstruction = Math.max(this.m, efConstruction);
+        this.levelMultiplier = 1.0 / Math.log(this.m);
+    }
+
+    synchronized int size() {
+        return neighbors.size();
+    }
+
+    synchronized void clear() {
+        mappedVectors = null;
+        mappedCount = 0;
+        vectors.clear();
+        neighbors.clear();
+        dimensions = 0;
+        entryPoint = -1;
+        maxLevel = -1;
+    }
+
+    synchronized int add(float[] vector) {
+        float[] normalized = normalize(vector);
+        if (neighbors.isEmpty()) {
+            dimensions = normalized.length;
+        } else if (normalized.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions, got " + normalized.length);
+        }
+
+        int node = neighbors.size();
+        int level = (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        vectors.add(normalized);
+        int[][] layers = new int[level + 1][];
+        Arrays.fill(layers, new int[0]);
+        neighbors.add(layers);
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > level; layer--) {
+            current = searchLayer(normalized, current, 1, layer).get(0).node();
+        }
+
+        for (int layer = Math.min(level, maxLevel); layer >= 0; layer--) {
+            List<Neighbor> candidates = searchLayer(normalized, current, efConstruction, layer);
+            int maxNeighbors = layer == 0 ? maxNeighborsLayer0 : m;
+            List<Neighbor> selected = candidates.subList(0, Math.min(m, candidates.size()));
+
+            int[] links = new int[selected.size()];
+            for (int i = 0; i < selected.size(); i++) {
+                links[i] = selected.get(i).node();
+                connect(selected.get(i).node(), node, layer, maxNeighbors);
+            }
+            neighbors.get(node)[layer] = links;
+            current = candidates.get(0).node();
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+        return node;
+    }
+
+    synchronized List<Neighbor> search(float[] query, int k, int ef) {
+        if (entryPoint < 0) {
+            return List.of();
+        }
+        float[] normalized = normalize(query);
+        int current = entryPoint;
+        for (int layer = maxLevel; layer > 0; layer--) {
+            current = searchLayer(normalized, current, 1, layer).get(0).node();
+        }
+        List<Neighbor> results = searchLayer(normalized, current, Math.max(k, ef), 0);
+        return List.copyOf(results.subList(0, Math.min(k, results.size())));
+    }
+
+    private void connect(int from, int to, int layer, int maxNeighbors) {
+        int[] existing = neighbors.get(from)[layer];
+        int[] links = Arrays.copyOf(existing, existing.length + 1);
+        links[existing.length] = to;
+
+        if (links.length > maxNeighbors) {
+            // Keep the closest neighbours of the overfull node
+            float[] base = vector(from);
+            links = Arrays.stream(links).boxed()
+                    .sorted(Comparator.comparingDouble(n -> distance(base, n)))
+                    .limit(maxNeighbors)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+        }
+        neighbors.get(from)[layer] = links;
+    }
+
+    /**
+     * Best-first search on one layer, returning up to {@code ef} nodes sorted by distance.
+     */
+    private List<Neighbor> searchLayer(float[] query, int entry, int ef, int layer) {
+        BitSet visited = new BitSet(neighbors.size());
+        PriorityQueue<Neighbor> candidates = new PriorityQueue<>(Comparator.comparingDouble(Neighbor::distance));
+        PriorityQueue<Neighbor> results = new PriorityQueue<>(
+                Comparator.comparingDouble(Neighbor::distance).reversed());
+
+        Neighbor start = new Neighbor(entry, distance(query, entry));
+        visited.set(entry);
+        candidates.add(start);
+        results.add(start);
+
+        while (!candidates.isEmpty()) {
+            Neighbor candidate = candidates.poll();
+            if (candidate.distance() > results.peek().distance() && results.size() >= ef) {
+                break;
+            }
+            int[][] layers = neighbors.get(candidate.node());
+            if (layer >= layers.length) {
+                continue;
+            }
+            for (int next : layers[layer]) {
+                if (visited.get(next)) {
+                    continue;
+                }
+                visited.set(next);
+                float d = distance(query, next);
+                if (results.size() < ef || d < results.peek().distance()) {
+                    Neighbor neighbor = new Neighbor(next, d);
+                    candidates.add(neighbor);
+                    results.add(neighbor);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Neighbor> sorted = new ArrayList<>(results);
+        sorted.sort(Comparator.comparingDouble(Neighbor::distance));
+        return sorted;
+    }
+
+    synchronized void save(Path path) throws IOException {
+        long size = 5L * Integer.BYTES + (long) neighbors.size() * dimensions * Float.BYTES;
+        for (int[][] layers : neighbors) {
+            size += Integer.BYTES;
+            for (int[] links : layers) {
+                size += Integer.BYTES + (long) links.length * Integer.BYTES;
+            }
+        }
+
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(MAGIC).putInt(dimensions).putInt(neighbors.size()).putInt(entryPoint).putInt(maxLevel);
+            if (mappedVectors != null) {
+                buffer.asFloatBuffer().put(mappedVectors.duplicate().clear());
+                buffer.position(buffer.position() + mappedCount * dimensions * Float.BYTES);
+            }
+            for (float[] vector : vectors) {
+                buffer.asFloatBuffer().put(vector);
+                buffer.position(buffer.position() + vector.length * Float.BYTES);
+            }
+            for (int[][] layers : neighbors) {
+                buffer.putInt(layers.length);
+                for (int[] links : layers) {
+                    buffer.putInt(links.length);
+                    buffer.asIntBuffer().put(links);
+                    buffer.position(buffer.position() + links.length * Integer.BYTES);
+                }
+            }
+            buffer.force();
+        }
+        Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    synchronized void load(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an HNSW index file: " + path);
+            }
+            dimensions = buffer.getInt();
+            int count = buffer.getInt();
+            entryPoint = buffer.getInt();
+            maxLevel = buffer.getInt();
+
+            // The mapping stays valid after the channel is closed, until the buffer is collected
+            vectors.clear();
+            neighbors.clear();
+            mappedVectors = buffer.slice(buffer.position(), count * dimensions * Float.BYTES).asFloatBuffer();
+            mappedCount = count;
+            buffer.position(buffer.position() + count * dimensions * Float.BYTES);
+            for (int i = 0; i < count; i++) {
+                int[][] layers = new int[buffer.getInt()][];
+                for (int layer = 0; layer < layers.length; layer++) {
+                    int[] links = new int[buffer.getInt()];
+                    buffer.asIntBuffer().get(links);
+                    buffer.position(buffer.position() + links.length * Integer.BYTES);
+                    layers[layer] = links;
+                }
+                neighbors.add(layers);
+            }
+        }
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0.0;
+        for (float v : vector) {
+            norm += v * v;
+        }
+        norm = Math.sqrt(norm);
+        float[] normalized = new float[vector.length];
+        for (int i = 0; i < vector.length; i++) {
+            normalized[i] = norm > 0 ? (float) (vector[i] / norm) : 0f;
+        }
+        return normalized;
+    }
+
+    private float[] vector(int node) {
+        if (node >= mappedCount) {
+            return vectors.get(node - mappedCount);
+        }
+        float[] vector = new float[dimensions];
+        mappedVectors.get(node * dimensions, vector);
+        return vector;
+    }
+
+    private float distance(float[] query, int node) {
+        float dot = 0f;
+        if (node >= mappedCount) {
+            float[] vector = vectors.get(node - mappedCount);
+            for (int i = 0; i < query.length; i++) {
+                dot += query[i] * vector[i];
+            }
+        } else {
+            int offset = node * dimensions;
+            for (int i = 0; i < query.length; i++) {
+                dot += query[i] * mappedVectors.get(offset + i);
+            }
+        }
+        return 1f - dot;
+    }
+}
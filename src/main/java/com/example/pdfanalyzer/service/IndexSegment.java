@@ -0,0 +1,513 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.model.Section;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Immutable inverted index segment over analyzed sections, backed by a memory-mapped file.
+ * Only the document table and the term dictionary live on the heap; the postings of a term are
+ * decoded from the mapping when a query needs them, and section text is read only for hits.
+ * Decoded postings are one flat {@code int[]} of {@code [doc, section, positionCount, position...]}
+ * entries ordered by (doc, section); on disk everything is varint and delta encoded.
+ * <p>
+ * A segment carries an order key, the generation of the oldest document it holds, so document order survives
+ * merges and restarts, and a merged segment lists the segments it supersedes, so sources left behind by a crash
+ * between writing the merge and deleting them are dropped on load. A segment file is limited to 2 GB, the size
+ * of one mapping.
+ */
+final class IndexSegment {
+
+    private static final int MAGIC_V1 = 0x46545831; // "FTX1"
+    private static final int MAGIC_V2 = 0x46545832; // "FTX2": adds the order key and superseded segments
+    private static final int MAGIC = 0x46545833; // "FTX3": section text and postings addressed by offset
+    private static final int TRAILER_BYTES = 2 * Long.BYTES;
+
+    record StoredDoc(String key, String fileName, List<Section> sections) {
+    }
+
+    /**
+     * A document of the segment; its sections start at {@code offset} in the file.
+     */
+    record DocEntry(String key, String fileName, int sectionCount, int offset) {
+    }
+
+    private final String name;
+    private final long order;
+    private final List<String> superseded;
+    private final List<DocEntry> docs;
+    private final String[] terms;
+    private final int[] postingsOffsets;
+    private final int[] postingsLengths;
+    private final MappedByteBuffer buffer;
+
+    private IndexSegment(String name, long order, List<String> superseded, List<DocEntry> docs, String[] terms,
+            int[] postingsOffsets, int[] postingsLengths, MappedByteBuffer buffer) {
+        this.name = name;
+        this.order = order;
+        this.superseded = superseded;
+        this.docs = docs;
+        this.terms = terms;
+        this.postingsOffsets = postingsOffsets;
+        this.postingsLengths = postingsLengths;
+        this.buffer = buffer;
+    }
+
+    String name() {
+        return name;
+    }
+
+    long order() {
+        return order;
+    }
+
+    /**
+     * Names of the segments this one was merged from.
+     */
+    List<String> superseded() {
+        return superseded;
+    }
+
+    List<DocEntry> docs() {
+        return docs;
+    }
+
+    long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Decodes the postings of {@code term}, or returns {@code null} if the segment does not contain it.
+     */
+    int[] postings(String term) {
+        int index = Arrays.binarySearch(terms, term);
+        return index < 0 ? null : decodePostings(index);
+    }
+
+    Section section(int doc, int section) {
+        ByteBuffer in = buffer.duplicate().position(docs.get(doc).offset());
+        for (int s = 0; s < section; s++) {
+            skipString(in);
+            readVarInt(in);
+            skipString(in);
+        }
+        return readSection(in);
+    }
+
+    List<Section> sections(int doc) {
+        DocEntry entry = docs.get(doc);
+        ByteBuffer in = buffer.duplicate().position(entry.offset());
+        List<Section> sections = new ArrayList<>(entry.sectionCount());
+        for (int s = 0; s < entry.sectionCount(); s++) {
+            sections.add(readSection(in));
+        }
+        return sections;
+    }
+
+    private static Section readSection(ByteBuffer in) {
+        String role = readString(in);
+        int page = readVarInt(in);
+        return new Section(role, readString(in), page, null);
+    }
+
+    private int[] decodePostings(int termIndex) {
+        ByteBuffer in = buffer.duplicate().position(postingsOffsets[termIndex]);
+        int[] list = new int[postingsLengths[termIndex]];
+        int previousDoc = 0;
+        for (int i = 0; i < list.length; i += 3 + list[i + 2]) {
+            list[i] = previousDoc + readVarInt(in);
+            previousDoc = list[i];
+            list[i + 1] = readVarInt(in);
+            list[i + 2] = readVarInt(in);
+            int previousPosition = 0;
+            for (int p = 0; p < list[i + 2]; p++) {
+                list[i + 3 + p] = previousPosition + readVarInt(in);
+                previousPosition = list[i + 3 + p];
+            }
+        }
+        return list;
+    }
+
+    static IndexSegment build(Path path, long order, StoredDoc doc) throws IOException {
+        Map<String, List<int[]>> entries = new TreeMap<>();
+        List<Section> sections = doc.sections();
+        for (int section = 0; section < sections.size(); section++) {
+            Map<String, List<Integer>> positions = new HashMap<>();
+            List<String> analyzed = PolishTextAnalyzer.analyze(sections.get(section).content());
+            for (int position = 0; position < analyzed.size(); position++) {
+                positions.computeIfAbsent(analyzed.get(position), k -> new ArrayList<>()).add(position);
+            }
+            for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+                int[] posting = new int[3 + entry.getValue().size()];
+                posting[1] = section;
+                posting[2] = entry.getValue().size();
+                for (int i = 0; i < entry.getValue().size(); i++) {
+                    posting[3 + i] = entry.getValue().get(i);
+                }
+                entries.computeIfAbsent(entry.getKey(), k -> new ArrayList<>()).add(posting);
+            }
+        }
+
+        try (Writer writer = new Writer(path, order, List.of())) {
+            writer.addDoc(doc);
+            for (Map.Entry<String, List<int[]>> entry : entries.entrySet()) {
+                writer.addTerm(entry.getKey(), flatten(entry.getValue()));
+            }
+            writer.commit();
+        }
+        return open(path);
+    }
+
+    /**
+     * Concatenates adjacent segments; doc ids of each segment are shifted past those of the previous ones,
+     * so posting lists stay ordered without re-analyzing any text. Documents and terms are streamed from the
+     * sources one at a time, so a merge holds no more than one term's postings on the heap.
+     */
+    static IndexSegment merge(Path path, List<IndexSegment> segments) throws IOException {
+        try (Writer writer = new Writer(path, segments.get(0).order,
+                segments.stream().map(IndexSegment::name).toList())) {
+            int[] docOffsets = new int[segments.size()];
+            int docCount = 0;
+            for (int s = 0; s < segments.size(); s++) {
+                IndexSegment segment = segments.get(s);
+                docOffsets[s] = docCount;
+                docCount += segment.docs.size();
+                for (int doc = 0; doc < segment.docs.size(); doc++) {
+                    DocEntry entry = segment.docs.get(doc);
+                    writer.addDoc(new StoredDoc(entry.key(), entry.fileName(), segment.sections(doc)));
+                }
+            }
+
+            // Each source dictionary is sorted, so the smallest current term across sources is the next one
+            int[] cursors = new int[segments.size()];
+            while (true) {
+                String term = null;
+                for (int s = 0; s < segments.size(); s++) {
+                    String[] sourceTerms = segments.get(s).terms;
+                    if (cursors[s] < sourceTerms.length
+                            && (term == null || sourceTerms[cursors[s]].compareTo(term) < 0)) {
+                        term = sourceTerms[cursors[s]];
+                    }
+                }
+                if (term == null) {
+                    break;
+                }
+                List<int[]> parts = new ArrayList<>();
+                for (int s = 0; s < segments.size(); s++) {
+                    IndexSegment segment = segments.get(s);
+                    if (cursors[s] < segment.terms.length && segment.terms[cursors[s]].equals(term)) {
+                        int[] shifted = segment.decodePostings(cursors[s]++);
+                        for (int i = 0; i < shifted.length; i += 3 + shifted[i + 2]) {
+                            shifted[i] += docOffsets[s];
+                        }
+                        parts.add(shifted);
+                    }
+                }
+                writer.addTerm(term, flatten(parts));
+            }
+            writer.commit();
+        }
+        return open(path);
+    }
+
+    /**
+     * Maps a segment file. Segments written by earlier versions are rewritten in the current format first.
+     */
+    static IndexSegment open(Path path) throws IOException {
+        String fileName = path.getFileName().toString();
+        String name = fileName.substring(0, fileName.lastIndexOf('.'));
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Full-text segment larger than 2 GB: " + path);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int magic = buffer.getInt();
+        if (magic == MAGIC_V1 || magic == MAGIC_V2) {
+            upgrade(path, name, magic);
+            return open(path);
+        }
+        if (magic != MAGIC) {
+            throw new IOException("Not a full-text segment: " + path);
+        }
+
+        long order = buffer.getLong();
+        List<String> superseded = new ArrayList<>();
+        int sourceCount = readVarInt(buffer);
+        for (int i = 0; i < sourceCount; i++) {
+            superseded.add(readString(buffer));
+        }
+
+        ByteBuffer in = buffer.duplicate().position(buffer.capacity() - TRAILER_BYTES);
+        int docTableOffset = (int) in.getLong();
+        int dictionaryOffset = (int) in.getLong();
+
+        in.position(docTableOffset);
+        int docCount = readVarInt(in);
+        List<DocEntry> docs = new ArrayList<>(docCount);
+        for (int d = 0; d < docCount; d++) {
+            docs.add(new DocEntry(readString(in), readString(in), readVarInt(in), readVarInt(in)));
+        }
+
+        in.position(dictionaryOffset);
+        int termCount = readVarInt(in);
+        String[] terms = new String[termCount];
+        int[] offsets = new int[termCount];
+        int[] lengths = new int[termCount];
+        for (int t = 0; t < termCount; t++) {
+            terms[t] = readString(in);
+            offsets[t] = readVarInt(in);
+            lengths[t] = readVarInt(in);
+        }
+        return new IndexSegment(name, order, List.copyOf(superseded), List.copyOf(docs), terms, offsets, lengths,
+                buffer);
+    }
+
+    /**
+     * Rewrites an FTX1 or FTX2 segment, which kept everything on the heap, in the current format.
+     */
+    private static void upgrade(Path path, String name, int magic) throws IOException {
+        List<StoredDoc> docs = new ArrayList<>();
+        Map<String, int[]> postings = new TreeMap<>();
+        long order;
+        List<String> superseded = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            in.readInt();
+            // Version 1 segments carry no order key; their generation is the closest substitute
+            order = magic == MAGIC_V2 ? in.readLong() : Long.parseLong(name.substring(4));
+            if (magic == MAGIC_V2) {
+                int sourceCount = readVarInt(in);
+                for (int i = 0; i < sourceCount; i++) {
+                    superseded.add(readString(in));
+                }
+            }
+            int docCount = readVarInt(in);
+            for (int d = 0; d < docCount; d++) {
+                String key = readString(in);
+                String fileName = readString(in);
+                int sectionCount = readVarInt(in);
+                List<Section> sections = new ArrayList<>(sectionCount);
+                for (int s = 0; s < sectionCount; s++) {
+                    String role = readString(in);
+                    int page = readVarInt(in);
+                    sections.add(new Section(role, readString(in), page, null));
+                }
+                docs.add(new StoredDoc(key, fileName, sections));
+            }
+
+            int termCount = readVarInt(in);
+            for (int t = 0; t < termCount; t++) {
+                String term = readString(in);
+                int[] list = new int[readVarInt(in)];
+                int previousDoc = 0;
+                for (int i = 0; i < list.length; i += 3 + list[i + 2]) {
+                    list[i] = previousDoc + readVarInt(in);
+                    previousDoc = list[i];
+                    list[i + 1] = readVarInt(in);
+                    list[i + 2] = readVarInt(in);
+                    int previousPosition = 0;
+                    for (int p = 0; p < list[i + 2]; p++) {
+                        list[i + 3 + p] = previousPosition + readVarInt(in);
+                        previousPosition = list[i + 3 + p];
+                    }
+                }
+                postings.put(term, list);
+            }
+        }
+
+        try (Writer writer = new Writer(path, order, superseded)) {
+            for (StoredDoc doc : docs) {
+                writer.addDoc(doc);
+            }
+            for (Map.Entry<String, int[]> entry : postings.entrySet()) {
+                writer.addTerm(entry.getKey(), entry.getValue());
+            }
+            writer.commit();
+        }
+    }
+
+    /**
+     * Writes a segment next to its final path and moves it into place on {@link #commit}, so a crash never
+     * leaves a partial segment. Layout: header, section text, postings, document table, term dictionary, and a
+     * trailer with the offsets of the last two. Terms must be added in ascending order.
+     */
+    private static final class Writer implements AutoCloseable {
+
+        private final Path path;
+        private final Path temp;
+        private final DataOutputStream out;
+        private final List<DocEntry> docs = new ArrayList<>();
+        private final List<String> terms = new ArrayList<>();
+        private final List<int[]> termEntries = new ArrayList<>();
+        private boolean committed;
+
+        Writer(Path path, long order, List<String> superseded) throws IOException {
+            this.path = path;
+            this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+            this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)));
+            out.writeInt(MAGIC);
+            out.writeLong(order);
+            writeVarInt(out, superseded.size());
+            for (String source : superseded) {
+                writeString(out, source);
+            }
+        }
+
+        void addDoc(StoredDoc doc) throws IOException {
+            docs.add(new DocEntry(doc.key(), doc.fileName(), doc.sections().size(), offset()));
+            for (Section section : doc.sections()) {
+                writeString(out, section.role());
+                writeVarInt(out, section.pageNumber());
+                writeString(out, section.content());
+            }
+        }
+
+        void addTerm(String term, int[] list) throws IOException {
+            terms.add(term);
+            termEntries.add(new int[] {offset(), list.length});
+            int previousDoc = 0;
+            for (int i = 0; i < list.length; i += 3 + list[i + 2]) {
+                writeVarInt(out, list[i] - previousDoc);
+                previousDoc = list[i];
+                writeVarInt(out, list[i + 1]);
+                writeVarInt(out, list[i + 2]);
+                int previousPosition = 0;
+                for (int p = 0; p < list[i + 2]; p++) {
+                    writeVarInt(out, list[i + 3 + p] - previousPosition);
+                    previousPosition = list[i + 3 + p];
+                }
+            }
+        }
+
+        void commit() throws IOException {
+            int docTableOffset = offset();
+            writeVarInt(out, docs.size());
+            for (DocEntry doc : docs) {
+                writeString(out, doc.key());
+                writeString(out, doc.fileName());
+                writeVarInt(out, doc.sectionCount());
+                writeVarInt(out, doc.offset());
+            }
+            int dictionaryOffset = offset();
+            writeVarInt(out, terms.size());
+            for (int t = 0; t < terms.size(); t++) {
+                writeString(out, terms.get(t));
+                writeVarInt(out, termEntries.get(t)[0]);
+                writeVarInt(out, termEntries.get(t)[1]);
+            }
+            out.writeLong(docTableOffset);
+            out.writeLong(dictionaryOffset);
+            offset(); // the trailer may still cross the limit
+            out.close();
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            committed = true;
+        }
+
+        private int offset() throws IOException {
+            // DataOutputStream saturates its counter at Integer.MAX_VALUE
+            if (out.size() == Integer.MAX_VALUE) {
+                throw new IOException("Full-text segment would exceed 2 GB: " + path);
+            }
+            return out.size();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                out.close();
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    private static int[] flatten(List<int[]> parts) {
+        if (parts.size() == 1) {
+            return parts.get(0);
+        }
+        int length = 0;
+        for (int[] part : parts) {
+            length += part.length;
+        }
+        int[] flat = new int[length];
+        int offset = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, flat, offset, part.length);
+            offset += part.length;
+        }
+        return flat;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = (value != null ? value : "").getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void skipString(ByteBuffer in) {
+        int length = readVarInt(in);
+        in.position(in.position() + length);
+    }
+
+    private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.JobQueueProperties;
+import com.example.pdfanalyzer.dto.ChunkedAnalysisResponse;
+import com.example.pdfanalyzer.model.AnalysisJob;
+import com.example.pdfanalyzer.model.AnalysisJob.Status;
+import com.example.pdfanalyzer.model.ChunkResult;
+import com.example.pdfanalyzer.model.PageSelection;
+import com.example.pdfanalyzer.service.ChunkedDocumentAnalysisService.ChunkCheckpoints;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.web.context.WebServerInitializedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Durable queue of chunked analyses, kept as plain files under {@code app.jobs.dir}:
+ *
+ * <pre>
+ * &lt;id&gt;/job.json        status and attempts
+ * &lt;id&gt;/source.pdf      the uploaded document
+ * &lt;id&gt;/chunks/*.json   one checkpoint per analyzed DI chunk
+ * &lt;id&gt;/result.json     the finished analysis
+ * </pre>
+ *
+ * Every file is written to a temporary name and moved into place, so a crash never leaves a half-written
+ * one. Jobs still pending or running when the web server starts are picked up again and skip the chunks that
+ * already have a checkpoint. A job interrupted after analyzing a chunk but before saving it analyzes that chunk
+ * again (at-least-once); checkpoint keys depend only on the content and pages, so the rerun overwrites the same
+ * file. A job that keeps failing stops after {@code maxAttempts} runs.
+ */
+@Service
+public class JobQueueService {
+
+    private static final Logger log = LoggerFactory.getLogger(JobQueueService.class);
+    private static final String JOB_FILE = "job.json";
+    private static final String SOURCE_FILE = "source.pdf";
+    private static final String CHUNKS_DIR = "chunks";
+    private static final String RESULT_FILE = "result.json";
+
+    private final ChunkedDocumentAnalysisService analysisService;
+    private final JobQueueProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Path jobsDir;
+    private final ScheduledExecutorService executor;
+    private final Set<String> queued = ConcurrentHashMap.newKeySet();
+
+    public JobQueueService(ChunkedDocumentAnalysisService analysisService,
+            JobQueueProperties properties,
+            ObjectMapper objectMapper) {
+        this.analysisService = analysisService;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.jobsDir = Path.of(properties.dir());
+        this.executor = Executors.newScheduledThreadPool(Math.max(1, properties.workers()),
+                Thread.ofPlatform().name("analysis-job-", 1).daemon().factory());
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    public AnalysisJob submit(String fileName, InputStream pdf, PageSelection pages) throws IOException {
+        String id = UUID.randomUUID().toString();
+        Path dir = jobsDir.resolve(id);
+        Files.createDirectories(dir.resolve(CHUNKS_DIR));
+        Path source = dir.resolve(SOURCE_FILE + ".tmp");
+        Files.copy(pdf, source);
+        Files.move(source, dir.resolve(SOURCE_FILE), StandardCopyOption.ATOMIC_MOVE);
+
+        AnalysisJob job = AnalysisJob.pending(id, fileName, pages.isAll() ? null : pages.toString());
+        write(dir.resolve(JOB_FILE), job);
+        log.info("Queued job {} for {} (pages: {})", id, fileName, pages);
+        enqueue(id, 0);
+        return job;
+    }
+
+    public Optional<AnalysisJob> find(String id) throws IOException {
+        Path jobFile = jobDir(id).resolve(JOB_FILE);
+        if (!Files.exists(jobFile)) {
+            return Optional.empty();
+        }
+        return Optional.of(read(jobFile).withCompletedChunks(countCheckpoints(jobDir(id))));
+    }
+
+    /**
+     * The finished analysis as JSON, or empty while the job is unknown or not completed.
+     */
+    public Optional<Path> resultFile(String id) {
+        Path result = jobDir(id).resolve(RESULT_FILE);
+        return Files.exists(result) ? Optional.of(result) : Optional.empty();
+    }
+
+    @EventListener(WebServerInitializedEvent.class)
+    public void resumeIncompleteJobs() {
+        if (!properties.enabled() || !Files.isDirectory(jobsDir)) {
+            return;
+        }
+        List<Path> dirs;
+        try (Stream<Path> list = Files.list(jobsDir)) {
+            dirs = list.filter(dir -> Files.exists(dir.resolve(JOB_FILE))).toList();
+        } catch (IOException e) {
+            log.error("Cannot list jobs in {}, nothing resumed", jobsDir, e);
+            return;
+        }
+        int resumed = 0;
+        for (Path dir : dirs) {
+            try {
+                AnalysisJob job = read(dir.resolve(JOB_FILE));
+                if (job.status() == Status.PENDING || job.status() == Status.RUNNING) {
+                    log.info("Resuming job {} ({}, {} checkpointed chunks)", job.id(), job.status(),
+                            countCheckpoints(dir));
+                    enqueue(job.id(), 0);
+                    resumed++;
+                }
+            } catch (IOException e) {
+                log.error("Skipping unreadable job in {}", dir, e);
+            }
+        }
+        log.info("Resumed {} incomplete jobs from {}", resumed, jobsDir.toAbsolutePath());
+    }
+
+    private void enqueue(String id, long delayMs) {
+        if (queued.add(id)) {
+            executor.schedule(() -> run(id), delayMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void run(String id) {
+        queued.remove(id);
+        Path dir = jobDir(id);
+        AnalysisJob job;
+        try {
+            job = read(dir.resolve(JOB_FILE));
+            if (job.status() == Status.COMPLETED || job.status() == Status.FAILED) {
+                return;
+            }
+            job = job.started();
+            write(dir.resolve(JOB_FILE), job);
+        } catch (IOException e) {
+            log.error("Cannot start job {}", id, e);
+            return;
+        }
+
+        try {
+            StringWriter markdown = new StringWriter();
+            ChunkedAnalysisResponse response = analysisService.analyzeDocumentInChunks(dir.resolve(SOURCE_FILE),
+                    PageSelection.parse(job.pages()), markdown, new FileCheckpoints(dir.resolve(CHUNKS_DIR)));
+            write(dir.resolve(RESULT_FILE), new ChunkedAnalysisResponse(response.sections(), markdown.toString(),
+                    response.qualityMetrics(), response.tables()));
+            write(dir.resolve(JOB_FILE), job.finished(Status.COMPLETED, job.attempts(), null));
+            log.info("Job {} completed", id);
+
+        } catch (Exception e) {
+            // A rejected DI call is not the job's fault and does not use up an attempt
+            int attempts = e instanceof DependencyUnavailableException ? job.attempts() - 1 : job.attempts();
+            boolean retry = attempts < properties.maxAttempts();
+            log.error("Job {} failed on attempt {}{}", id, job.attempts(), retry ? ", will retry" : "", e);
+            try {
+                write(dir.resolve(JOB_FILE), job.finished(retry ? Status.PENDING : Status.FAILED, attempts,
+                        e.getMessage()));
+            } catch (IOException writeError) {
+                log.error("Cannot record failure of job {}", id, writeError);
+            }
+            if (retry) {
+                enqueue(id, properties.retryDelayMs() * Math.max(1, attempts));
+            }
+        }
+    }
+
+    private Path jobDir(String id) {
+        // Ids are UUIDs; anything else must not be resolved against the jobs directory
+        return jobsDir.resolve(UUID.fromString(id).toString());
+    }
+
+    private static int countCheckpoints(Path dir) throws IOException {
+        Path chunks = dir.resolve(CHUNKS_DIR);
+        if (!Files.isDirectory(chunks)) {
+            return 0;
+        }
+        try (Stream<Path> files = Files.list(chunks)) {
+            return (int) files.filter(file -> file.getFileName().toString().endsWith(".json")).count();
+        }
+    }
+
+    private AnalysisJob read(Path jobFile) throws IOException {
+        return objectMapper.readValue(jobFile.toFile(), AnalysisJob.class);
+    }
+
+    private void write(Path target, Object value) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        objectMapper.writeValue(temp.toFile(), value);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // Running jobs stay RUNNING on disk and are resumed on the next start
+        executor.shutdownNow();
+    }
+
+    private final class FileCheckpoints implements ChunkCheckpoints {
+
+        private final Path dir;
+
+        FileCheckpoints(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        public Optional<ChunkResult> load(String key) throws IOException {
+            Path file = file(key);
+            return Files.exists(file)
+                    ? Optional.of(objectMapper.readValue(file.toFile(), ChunkResult.class))
+                    : Optional.empty();
+        }
+
+        @Override
+        public void save(String key, ChunkResult result) throws IOException {
+            write(file(key), result);
+        }
+
+        private Path file(String key) {
+            return dir.resolve(key.replace(',', '_') + ".json");
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.pdfanalyzer.service;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Polish legal structure markers ({@code Art. n}, {@code § n}, {@code pkt n}).
+ */
+final class LegalStructure {
+
+    static final Pattern STRUCTURE_MARKERS = Pattern.compile("§\\s*\\d+|Art\\.\\s*\\d+|pkt\\s+\\d+");
+
+    private static final Pattern LEADING_MARKER = Pattern.compile(
+            "\\s*(?:(Art\\.?)|(§)|(pkt))\\s*(\\d+[a-z]?)\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+
+    enum Level {
+        ARTICLE("Art."), PARAGRAPH("§"), POINT("pkt");
+
+        private final String prefix;
+
+        Level(String prefix) {
+            this.prefix = prefix;
+        }
+
+        String label(String number) {
+            return prefix + " " + number;
+        }
+    }
+
+    record Marker(Level level, String number) {
+        String label() {
+            return level.label(number);
+        }
+    }
+
+    private LegalStructure() {
+    }
+
+    /**
+     * Marker the section starts with, or {@code null} when it does not open a structural unit.
+     */
+    static Marker leadingMarker(String content) {
+        if (content == null || content.isEmpty()) {
+            return null;
+        }
+        Matcher matcher = LEADING_MARKER.matcher(content);
+        if (!matcher.lookingAt()) {
+            return null;
+        }
+        Level level = matcher.group(1) != null ? Level.ARTICLE
+                : matcher.group(2) != null ? Level.PARAGRAPH
+                        : Level.POINT;
+        return new Marker(level, matcher.group(4).toLowerCase());
+    }
+}
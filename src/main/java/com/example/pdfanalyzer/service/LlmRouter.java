@@ -0,0 +1,261 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.LlmRoutingProperties;
+import com.example.pdfanalyzer.service.DependencyGuard.Dependency;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Routes provider-agnostic chat calls between the OpenAI and Anthropic clients.
+ * The provider with the best recent p95 latency (and an acceptable error rate) goes first; p95s
+ * within {@code latency-tolerance} of each other count as equal and the preferred provider wins,
+ * and a provider without samples is assumed to match {@code prior-p95-ms} (or, when that is 0, the
+ * other provider). If the primary has not answered within its p95, bounded by
+ * {@code hedge-delay-min-ms} and {@code hedge-delay-max-ms}, a hedged duplicate is sent to the
+ * other provider and the first successful answer wins. Errors fail over immediately, and a provider whose
+ * circuit breaker is open is ranked last.
+ */
+@Service
+public class LlmRouter {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmRouter.class);
+
+    public enum Provider {
+        OPENAI, ANTHROPIC
+    }
+
+    private final Map<Provider, ChatClient> clients = new EnumMap<>(Provider.class);
+    private final Map<Provider, ProviderStats> stats = new EnumMap<>(Provider.class);
+    private final LlmRoutingProperties properties;
+    private final LlmUsageRecorder usageRecorder;
+    private final DependencyGuard dependencyGuard;
+    private final Provider preferred;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public LlmRouter(
+            @Lazy @Qualifier("openai") ChatClient openAiClient,
+            @Lazy @Qualifier("anthropic") ChatClient anthropicClient,
+            LlmRoutingProperties properties,
+            LlmUsageRecorder usageRecorder,
+            DependencyGuard dependencyGuard) {
+        this.properties = properties;
+        this.usageRecorder = usageRecorder;
+        this.dependencyGuard = dependencyGuard;
+        this.preferred = "anthropic".equalsIgnoreCase(properties.preferred()) ? Provider.ANTHROPIC : Provider.OPENAI;
+        clients.put(Provider.OPENAI, openAiClient);
+        clients.put(Provider.ANTHROPIC, anthropicClient);
+        for (Provider provider : Provider.values()) {
+            stats.put(provider, new ProviderStats(Math.max(10, properties.windowSize())));
+        }
+    }
+
+    public ChatResponse call(String operation, Function<ChatClient, ChatResponse> request) {
+        List<Provider> order = rankProviders();
+        Provider primary = order.get(0);
+        Provider secondary = order.get(1);
+        long hedgeDelayMs = hedgeDelay(primary);
+        LlmUsageRecorder.UsageScope scope = usageRecorder.currentScope();
+
+        CompletableFuture<ChatResponse> primaryCall = submit(primary, operation, request, scope);
+        try {
+            return primaryCall.get(hedgeDelayMs, TimeUnit.MILLISECONDS);
+
+        } catch (TimeoutException e) {
+            log.info("{} on {} exceeded {} ms, sending hedged request to {}", operation, primary, hedgeDelayMs,
+                    secondary);
+            CompletableFuture<ChatResponse> hedgedCall = submit(secondary, operation, request, scope);
+            return await(firstSuccessful(primaryCall, hedgedCall), operation);
+
+        } catch (ExecutionException e) {
+            log.warn("{} failed on {}, failing over to {}: {}", operation, primary, secondary,
+                    e.getCause().getMessage());
+            return await(submit(secondary, operation, request, scope), operation);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        }
+    }
+
+    List<Provider> rankProviders() {
+        // The tolerance band is not transitive, which is fine with two providers
+        Comparator<Provider> byHealth = Comparator
+                .comparing((Provider p) -> !dependencyGuard.isAvailable(dependency(p)))
+                .thenComparing(p -> stats.get(p).errorRate() > properties.maxErrorRate())
+                .thenComparing(this::compareLatency)
+                .thenComparing(p -> p != preferred);
+        return Arrays.stream(Provider.values()).sorted(byHealth).toList();
+    }
+
+    private int compareLatency(Provider a, Provider b) {
+        long latencyA = expectedP95(a);
+        long latencyB = expectedP95(b);
+        if (Math.abs(latencyA - latencyB) <= properties.latencyTolerance() * Math.max(latencyA, latencyB)) {
+            return 0;
+        }
+        return Long.compare(latencyA, latencyB);
+    }
+
+    /**
+     * Recent p95, or for a provider without samples the configured prior, falling back to the other
+     * providers' p95 so that an untried provider neither jumps ahead nor falls behind.
+     */
+    private long expectedP95(Provider provider) {
+        long p95 = stats.get(provider).p95OrDefault(-1);
+        if (p95 >= 0) {
+            return p95;
+        }
+        if (properties.priorP95Ms() > 0) {
+            return properties.priorP95Ms();
+        }
+        return Arrays.stream(Provider.values())
+                .filter(other -> other != provider)
+                .mapToLong(other -> stats.get(other).p95OrDefault(-1))
+                .filter(other -> other >= 0)
+                .min()
+                .orElse(0);
+    }
+
+    private long hedgeDelay(Provider primary) {
+        long p95 = stats.get(primary).p95OrDefault(properties.hedgeDelayMs());
+        return Math.min(Math.max(p95, properties.hedgeDelayMinMs()), properties.hedgeDelayMaxMs());
+    }
+
+    private CompletableFuture<ChatResponse> submit(Provider provider, String operation,
+            Function<ChatClient, ChatResponse> request, LlmUsageRecorder.UsageScope scope) {
+        ChatClient client = clients.get(provider);
+        ProviderStats providerStats = stats.get(provider);
+        String providerName = provider.name().toLowerCase();
+        return CompletableFuture.supplyAsync(() -> {
+            long start = System.nanoTime();
+            try {
+                ChatResponse response = dependencyGuard.call(dependency(provider), () -> request.apply(client));
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                providerStats.record(latencyMs, false);
+                // Hedged losers are billed too, so every completed call lands in the document's usage
+                usageRecorder.record(operation, providerName, response, latencyMs, scope);
+                return response;
+            } catch (DependencyUnavailableException e) {
+                // Rejected without calling the provider; nothing to record
+                throw e;
+            } catch (RuntimeException e) {
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                providerStats.record(latencyMs, true);
+                usageRecorder.recordFailure(operation, providerName, latencyMs);
+                log.debug("{} failed on {}", operation, provider, e);
+                throw e;
+            }
+        }, executor);
+    }
+
+    private static Dependency dependency(Provider provider) {
+        return provider == Provider.OPENAI ? Dependency.OPENAI : Dependency.ANTHROPIC;
+    }
+
+    private ChatResponse await(CompletableFuture<ChatResponse> call, String operation) {
+        try {
+            return call.get(properties.timeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof DependencyUnavailableException unavailable) {
+                throw unavailable;
+            }
+            throw new IllegalStateException("All providers failed for " + operation, e.getCause());
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            throw new IllegalStateException("No provider answered " + operation + " within "
+                    + properties.timeoutMs() + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for " + operation, e);
+        }
+    }
+
+    private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first, CompletableFuture<T> second) {
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        for (CompletableFuture<T> candidate : List.of(first, second)) {
+            candidate.whenComplete((value, error) -> {
+                if (error == null) {
+                    winner.complete(value);
+                } else if (failures.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        winner.whenComplete((value, error) -> {
+            first.cancel(true);
+            second.cancel(true);
+        });
+        return winner;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Sliding window of the most recent call latencies and outcomes for one provider.
+     */
+    private static final class ProviderStats {
+
+        private final long[] latencies;
+        private final boolean[] failures;
+        private int next = 0;
+        private int size = 0;
+
+        ProviderStats(int windowSize) {
+            this.latencies = new long[windowSize];
+            this.failures = new boolean[windowSize];
+        }
+
+        synchronized void record(long latencyMs, boolean failed) {
+            latencies[next] = latencyMs;
+            failures[next] = failed;
+            next = (next + 1) % latencies.length;
+            size = Math.min(size + 1, latencies.length);
+        }
+
+        synchronized long p95OrDefault(long defaultValue) {
+            if (size == 0) {
+                return defaultValue;
+            }
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(size * 0.95) - 1)];
+        }
+
+        synchronized double errorRate() {
+            if (size == 0) {
+                return 0.0;
+            }
+            int failed = 0;
+            for (int i = 0; i < size; i++) {
+                if (failures[i]) {
+                    failed++;
+                }
+            }
+            return (double) failed / size;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.LlmPricingProperties;
+import com.example.pdfanalyzer.model.LlmUsageSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.ai.chat.metadata.Usage;
+import org.springframework.ai.chat.model.ChatResponse;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records tokens, latency and estimated cost of every LLM call into Micrometer and,
+ * when a {@link UsageScope} is open on the calling thread, into a per-document summary.
+ */
+@Service
+public class LlmUsageRecorder {
+
+    private static final Logger log = LoggerFactory.getLogger(LlmUsageRecorder.class);
+    private static final ThreadLocal<UsageScope> CURRENT_SCOPE = new ThreadLocal<>();
+
+    private final MeterRegistry meterRegistry;
+    private final LlmPricingProperties pricingProperties;
+
+    public LlmUsageRecorder(MeterRegistry meterRegistry, LlmPricingProperties pricingProperties) {
+        this.meterRegistry = meterRegistry;
+        this.pricingProperties = pricingProperties;
+    }
+
+    public UsageScope openScope() {
+        UsageScope scope = new UsageScope();
+        CURRENT_SCOPE.set(scope);
+        return scope;
+    }
+
+    /**
+     * Scope opened on the calling thread, captured before work is handed off to other threads.
+     */
+    public UsageScope currentScope() {
+        return CURRENT_SCOPE.get();
+    }
+
+    public void record(String operation, String provider, ChatResponse response, long latencyMs) {
+        record(operation, provider, response, latencyMs, currentScope());
+    }
+
+    public void record(String operation, String provider, ChatResponse response, long latencyMs,
+            UsageScope scope) {
+        String model = response != null && response.getMetadata() != null
+                && response.getMetadata().getModel() != null ? response.getMetadata().getModel() : "unknown";
+        Usage usage = response != null && response.getMetadata() != null ? response.getMetadata().getUsage() : null;
+        long promptTokens = usage != null && usage.getPromptTokens() != null ? usage.getPromptTokens() : 0;
+        long completionTokens = usage != null && usage.getGenerationTokens() != null ? usage.getGenerationTokens() : 0;
+        double cost = estimateCost(model, promptTokens, completionTokens);
+
+        timer(operation, provider, model, "success").record(Duration.ofMillis(latencyMs));
+        meterRegistry.counter("llm.tokens", "operation", operation, "provider", provider, "model", model,
+                "type", "prompt").increment(promptTokens);
+        meterRegistry.counter("llm.tokens", "operation", operation, "provider", provider, "model", model,
+                "type", "completion").increment(completionTokens);
+        meterRegistry.counter("llm.cost", "operation", operation, "provider", provider, "model", model)
+                .increment(cost);
+
+        log.debug("LLM call {} on {} ({}): prompt={} completion={} latency={}ms cost={}",
+                operation, provider, model, promptTokens, completionTokens, latencyMs, cost);
+
+        if (scope != null) {
+            scope.add(promptTokens, completionTokens, latencyMs, cost);
+        }
+    }
+
+    public void recordFailure(String operation, String provider, long latencyMs) {
+        timer(operation, provider, "unknown", "error").record(Duration.ofMillis(latencyMs));
+    }
+
+    private Timer timer(String operation, String provider, String model, String outcome) {
+        return Timer.builder("llm.latency")
+                .tag("operation", operation)
+                .tag("provider", provider)
+                .tag("model", model)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    private double estimateCost(String model, long promptTokens, long completionTokens) {
+        Map<String, LlmPricingProperties.Price> prices = pricingProperties.models();
+        if (prices == null) {
+            return 0.0;
+        }
+        // Provider model ids carry date suffixes (gpt-4o-2024-08-06), so match on the longest known prefix
+        LlmPricingProperties.Price price = prices.entrySet().stream()
+                .filter(e -> model.startsWith(e.getKey()))
+                .max((a, b) -> Integer.compare(a.getKey().length(), b.getKey().length()))
+                .map(Map.Entry::getValue)
+                .orElse(null);
+        if (price == null) {
+            return 0.0;
+        }
+        return promptTokens / 1000.0 * price.promptPer1k() + completionTokens / 1000.0 * price.completionPer1k();
+    }
+
+    /**
+     * Usage accumulated for a single document; close it on the thread that opened it.
+     */
+    public static final class UsageScope implements AutoCloseable {
+
+        private final AtomicInteger calls = new AtomicInteger();
+        private final LongAdder promptTokens = new LongAdder();
+        private final LongAdder completionTokens = new LongAdder();
+        private final LongAdder latencyMs = new LongAdder();
+        private final DoubleAdder cost = new DoubleAdder();
+
+        void add(long prompt, long completion, long latency, double estimatedCost) {
+            calls.incrementAndGet();
+            promptTokens.add(prompt);
+            completionTokens.add(completion);
+            latencyMs.add(latency);
+            cost.add(estimatedCost);
+        }
+
+        public LlmUsageSummary summary(int pageCount) {
+            long prompt = promptTokens.sum();
+            long completion = completionTokens.sum();
+            double tokensPerPage = pageCount > 0 ? (double) (prompt + completion) / pageCount : 0.0;
+            return new LlmUsageSummary(calls.get(), prompt, completion, latencyMs.sum(), cost.sum(), tokensPerPage);
+        }
+
+        @Override
+        public void close() {
+            if (CURRENT_SCOPE.get() == this) {
+                CURRENT_SCOPE.remove();
+            }
+        }
+    }
+}
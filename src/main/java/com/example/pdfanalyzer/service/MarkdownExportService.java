@@ -1,12 +1,15 @@
 package com.example.pdfanalyzer.service;
 
 import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.QualityMetrics;
 import com.example.pdfanalyzer.model.Section;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 
@@ -18,11 +21,9 @@ public class MarkdownExportService {
     public void exportToMarkdown(AnalysisResult result, Path outputPath) {
         log.info("Exporting to Markdown: {}", outputPath);
 
-        String markdown = buildMarkdown(result);
-
-        // Write to file
-        try {
-            Files.writeString(outputPath, markdown);
+        // Stream straight to the file
+        try (Writer writer = Files.newBufferedWriter(outputPath)) {
+            writeMarkdown(result, writer);
             log.info("Markdown exported successfully: {}", outputPath);
         } catch (IOException e) {
             log.error("Error writing Markdown file: {}", outputPath, e);
@@ -31,95 +32,46 @@ public class MarkdownExportService {
     }
 
     public String exportToMarkdownString(AnalysisResult result) {
-        return buildMarkdown(result);
+        StringWriter writer = new StringWriter();
+        try {
+            writeMarkdown(result, writer);
+        } catch (IOException e) {
+            throw MarkdownRenderer.unchecked(e);
+        }
+        return writer.toString();
     }
 
-    private String buildMarkdown(AnalysisResult result) {
-        StringBuilder md = new StringBuilder();
+    public void writeMarkdown(AnalysisResult result, Writer writer) throws IOException {
+        MarkdownRenderer md = new MarkdownRenderer(writer);
+        QualityMetrics quality = result.quality();
 
-        // Header
-        md.append("# ").append(result.fileName()).append("\n\n");
+        md.heading(1, result.fileName());
 
         // Metadata
-        md.append("## Document Information\n\n");
-        md.append("- **File**: ").append(result.fileName()).append("\n");
-        md.append("- **Pages**: ").append(result.pageCount()).append("\n");
-        md.append("- **Total Sections**: ").append(result.sections().size()).append("\n");
-        md.append("- **Total Characters**: ").append(result.quality().totalChars()).append("\n");
-        md.append("- **Average Confidence**: ").append(String.format("%.2f%%", result.quality().avgConfidence() * 100))
-                .append("\n");
-        md.append("- **Has Structure Markers**: ")
-                .append(result.quality().hasStructureMarkers() ? "Yes (§, Art., pkt)" : "No").append("\n\n");
+        md.heading(2, "Document Information")
+                .field("File", result.fileName())
+                .field("Pages", result.pageCount())
+                .field("Total Sections", result.sections().size())
+                .field("Total Characters", quality.totalChars())
+                .field("Average Confidence", MarkdownRenderer.percent(quality.avgConfidence()))
+                .field("Has Structure Markers", quality.hasStructureMarkers() ? "Yes (§, Art., pkt)" : "No")
+                .blankLine();
 
         // Quality Metrics
-        md.append("## Quality Metrics\n\n");
-        md.append("| Metric | Value |\n");
-        md.append("|--------|-------|\n");
-        md.append("| Total Paragraphs | ").append(result.quality().totalParagraphs()).append(" |\n");
-        md.append("| Total Characters | ").append(result.quality().totalChars()).append(" |\n");
-        md.append("| Avg Confidence | ").append(String.format("%.2f%%", result.quality().avgConfidence() * 100))
-                .append(" |\n");
-        md.append("| Structure Markers | ").append(result.quality().hasStructureMarkers() ? "✓" : "✗").append(" |\n\n");
+        md.heading(2, "Quality Metrics")
+                .tableHeader("Metric", "Value")
+                .tableRow("Total Paragraphs", quality.totalParagraphs())
+                .tableRow("Total Characters", quality.totalChars())
+                .tableRow("Avg Confidence", MarkdownRenderer.percent(quality.avgConfidence()))
+                .tableRow("Structure Markers", quality.hasStructureMarkers() ? "✓" : "✗")
+                .blankLine();
 
         // Content by page
-        md.append("## Document Content\n\n");
-
-        int currentPage = -1;
-        boolean inList = false;
-
-        for (int i = 0; i < result.sections().size(); i++) {
-            Section section = result.sections().get(i);
-
-            if (section.pageNumber() != currentPage) {
-                if (inList) {
-                    inList = false;
-                }
-                currentPage = section.pageNumber();
-                md.append("\n### Page ").append(currentPage).append("\n\n");
-            }
-
-            String content = section.content().trim();
-            if (content.isEmpty())
-                continue;
-
-            // Check if this is a list item
-            boolean isBullet = isListItem(content);
-
-            if (isBullet) {
-                if (!inList) {
-                    inList = true;
-                }
-                // Convert to Markdown list
-                String listContent = content.replaceFirst("^[·•\\-*]\\s*", "");
-                md.append("- ").append(listContent).append("\n");
-            } else {
-                if (inList) {
-                    md.append("\n");
-                    inList = false;
-                }
-
-                // Section header based on role
-                String header = formatSectionHeader(section.role());
-                md.append(header);
-                md.append(content);
-                md.append("\n\n");
-            }
+        md.heading(2, "Document Content");
+        for (Section section : result.sections()) {
+            md.page(section.pageNumber()).section(section.role(), section.content());
         }
 
-        return md.toString();
-    }
-
-    private String formatSectionHeader(String role) {
-        return switch (role.toLowerCase()) {
-            case "title" -> "# ";
-            case "sectionheading" -> "## ";
-            case "footnote" -> "> ";
-            case "pagenumber" -> "";
-            default -> "";
-        };
-    }
-
-    private boolean isListItem(String content) {
-        return content.matches("^[·•\\-*]\\s+.*");
+        md.finish();
     }
 }
@@ -0,0 +1,180 @@
+package com.example.pdfanalyzer.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental markdown renderer shared by all export paths.
+ * <p>
+ * Everything is written straight to the underlying {@link Writer}; the only state kept is the current page and
+ * whether a list is open, so memory stays constant regardless of document size.
+ */
+final class MarkdownRenderer {
+
+    private static final Pattern LIST_ITEM = Pattern.compile("[·•\\-*]\\s+");
+
+    static final RoleFormat DEFAULT_ROLES = RoleFormat.of(Map.of(
+            "title", "# ",
+            "sectionheading", "## ",
+            "footnote", "> "));
+
+    /**
+     * Maps a section role to the line prefix it is rendered with. Roles are lower-cased before lookup, so
+     * {@code sectionHeading} and {@code sectionheading} format the same.
+     */
+    @FunctionalInterface
+    interface RoleFormat {
+
+        String prefix(String role);
+
+        static RoleFormat of(Map<String, String> prefixes) {
+            return role -> prefixes.getOrDefault(role, "");
+        }
+    }
+
+    private final Writer out;
+    private final RoleFormat roles;
+    private int currentPage = -1;
+    private boolean inList;
+
+    MarkdownRenderer(Writer out) {
+        this(out, DEFAULT_ROLES);
+    }
+
+    MarkdownRenderer(Writer out, RoleFormat roles) {
+        this.out = out;
+        this.roles = roles;
+    }
+
+    MarkdownRenderer heading(int level, String text) throws IOException {
+        endList();
+        out.write("#".repeat(level));
+        out.write(' ');
+        out.write(text);
+        out.write("\n\n");
+        return this;
+    }
+
+    MarkdownRenderer field(String label, Object value) throws IOException {
+        out.write("- **");
+        out.write(label);
+        out.write("**: ");
+        out.write(String.valueOf(value));
+        out.write('\n');
+        return this;
+    }
+
+    MarkdownRenderer tableHeader(String... cells) throws IOException {
+        tableRow(cells);
+        out.write('|');
+        for (int i = 0; i < cells.length; i++) {
+            out.write("---|");
+        }
+        out.write('\n');
+        return this;
+    }
+
+    MarkdownRenderer tableRow(Object... cells) throws IOException {
+        out.write('|');
+        for (Object cell : cells) {
+            out.write(' ');
+            out.write(String.valueOf(cell));
+            out.write(" |");
+        }
+        out.write('\n');
+        return this;
+    }
+
+    MarkdownRenderer blankLine() throws IOException {
+        out.write('\n');
+        return this;
+    }
+
+    /**
+     * Emits a page heading when {@code pageNumber} differs from the page of the previous section.
+     */
+    MarkdownRenderer page(int pageNumber) throws IOException {
+        if (pageNumber != currentPage) {
+            endList();
+            currentPage = pageNumber;
+            out.write("\n### Page ");
+            out.write(Integer.toString(pageNumber));
+            out.write("\n\n");
+        }
+        return this;
+    }
+
+    /**
+     * Renders one section: bullet-like content joins the open list, anything else is prefixed according to its
+     * role. Blank sections are skipped.
+     */
+    MarkdownRenderer section(String role, String content) throws IOException {
+        String text = content.trim();
+        if (text.isEmpty()) {
+            return this;
+        }
+
+        Matcher bullet = LIST_ITEM.matcher(text);
+        if (bullet.lookingAt()) {
+            inList = true;
+            out.write("- ");
+            out.write(text, bullet.end(), text.length() - bullet.end());
+            out.write('\n');
+            return this;
+        }
+
+        endList();
+        out.write(roles.prefix(role != null ? role.toLowerCase(Locale.ROOT) : ""));
+        out.write(text);
+        out.write("\n\n");
+        return this;
+    }
+
+    MarkdownRenderer quote(String label, String content) throws IOException {
+        String text = content.trim();
+        if (text.isEmpty()) {
+            return this;
+        }
+        endList();
+        out.write("> **[");
+        out.write(label);
+        out.write("]** ");
+        out.write(text);
+        out.write("\n\n");
+        return this;
+    }
+
+    MarkdownRenderer raw(String text) throws IOException {
+        endList();
+        out.write(text);
+        return this;
+    }
+
+    /**
+     * Closes an open list and flushes the writer. Does not close it.
+     */
+    void finish() throws IOException {
+        endList();
+        out.flush();
+    }
+
+    private void endList() throws IOException {
+        if (inList) {
+            out.write('\n');
+            inList = false;
+        }
+    }
+
+    static String percent(double value) {
+        return String.format("%.2f%%", value * 100);
+    }
+
+    static UncheckedIOException unchecked(IOException e) {
+        return new UncheckedIOException("Failed to render markdown: " + e.getMessage(), e);
+    }
+}
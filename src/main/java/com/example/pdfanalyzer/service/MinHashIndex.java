@@ -0,0 +1,179 @@
+package com.example.pdfanalyzer.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures over word shingles with a banded LSH index.
+ * 128 hash functions in 16 bands of 8 rows put the LSH candidate threshold at a Jaccard
+ * similarity of roughly 0.7; candidates are then ranked by their estimated similarity. An index
+ * created with a capacity drops its oldest entries once it is full.
+ */
+public final class MinHashIndex<T> {
+
+    public static final int NUM_HASHES = 128;
+    private static final int BANDS = 16;
+    private static final int ROWS = NUM_HASHES / BANDS;
+    private static final long[] SEEDS = new long[NUM_HASHES];
+    private static final Pattern DIGITS = Pattern.compile("\\d");
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            seed = mix(seed + i);
+            SEEDS[i] = seed;
+        }
+    }
+
+    public record Match<T>(T item, long[] signature, double similarity) {
+    }
+
+    private record Entry<T>(T item, long[] signature) {
+    }
+
+    private final int capacity;
+    private final Map<Integer, Entry<T>> entries = new LinkedHashMap<>();
+    private final Map<Long, List<Integer>> buckets = new HashMap<>();
+    private int nextId;
+
+    public MinHashIndex() {
+        this(0);
+    }
+
+    /**
+     * @param capacity maximum number of entries, 0 for no limit
+     */
+    public MinHashIndex(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public synchronized void add(T item, long[] signature) {
+        if (capacity > 0 && entries.size() >= capacity) {
+            evictOldest();
+        }
+        int id = nextId++;
+        entries.put(id, new Entry<>(item, signature));
+        for (int band = 0; band < BANDS; band++) {
+            buckets.computeIfAbsent(bandKey(signature, band), k -> new ArrayList<>()).add(id);
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized List<T> items() {
+        return entries.values().stream().map(Entry::item).toList();
+    }
+
+    public synchronized List<long[]> signatures() {
+        return entries.values().stream().map(Entry::signature).toList();
+    }
+
+    private void evictOldest() {
+        Iterator<Map.Entry<Integer, Entry<T>>> oldest = entries.entrySet().iterator();
+        Map.Entry<Integer, Entry<T>> evicted = oldest.next();
+        oldest.remove();
+        for (int band = 0; band < BANDS; band++) {
+            long key = bandKey(evicted.getValue().signature(), band);
+            List<Integer> bucket = buckets.get(key);
+            bucket.remove(evicted.getKey());
+            if (bucket.isEmpty()) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Closest indexed item with an estimated Jaccard similarity of at least {@code threshold}.
+     */
+    public synchronized Match<T> nearest(long[] signature, double threshold) {
+        Set<Integer> candidates = new LinkedHashSet<>();
+        for (int band = 0; band < BANDS; band++) {
+            List<Integer> bucket = buckets.get(bandKey(signature, band));
+            if (bucket != null) {
+                candidates.addAll(bucket);
+            }
+        }
+
+        Match<T> best = null;
+        for (int candidate : candidates) {
+            Entry<T> entry = entries.get(candidate);
+            double similarity = similarity(signature, entry.signature());
+            if (similarity >= threshold && (best == null || similarity > best.similarity())) {
+                best = new Match<>(entry.item(), entry.signature(), similarity);
+            }
+        }
+        return best;
+    }
+
+    public static double similarity(long[] a, long[] b) {
+        int equal = 0;
+        for (int i = 0; i < NUM_HASHES; i++) {
+            if (a[i] == b[i]) {
+                equal++;
+            }
+        }
+        return (double) equal / NUM_HASHES;
+    }
+
+    /**
+     * Signature over word shingles of {@code shingleSize} tokens with digits folded to {@code 0},
+     * so texts differing only in numbers match; texts shorter than one shingle are hashed as a
+     * single shingle so that identical short sections still match.
+     */
+    public static long[] signature(String text, int shingleSize) {
+        return signature(text, shingleSize, true);
+    }
+
+    public static long[] signature(String text, int shingleSize, boolean foldDigits) {
+        String[] tokens = text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+");
+        List<String> words = new ArrayList<>(tokens.length);
+        for (String token : tokens) {
+            if (!token.isEmpty()) {
+                words.add(foldDigits ? DIGITS.matcher(token).replaceAll("0") : token);
+            }
+        }
+
+        long[] signature = new long[NUM_HASHES];
+        Arrays.fill(signature, Long.MAX_VALUE);
+        int shingles = Math.max(1, words.size() - shingleSize + 1);
+        for (int start = 0; start < shingles; start++) {
+            long shingleHash = 0xCBF29CE484222325L;
+            for (int w = start; w < Math.min(words.size(), start + shingleSize); w++) {
+                shingleHash = mix(shingleHash ^ words.get(w).hashCode());
+            }
+            for (int i = 0; i < NUM_HASHES; i++) {
+                long hash = mix(shingleHash ^ SEEDS[i]);
+                if (hash < signature[i]) {
+                    signature[i] = hash;
+                }
+            }
+        }
+        return signature;
+    }
+
+    private static long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = band * ROWS; row < (band + 1) * ROWS; row++) {
+            key = mix(key ^ signature[row]);
+        }
+        return key;
+    }
+
+    private static long mix(long z) {
+        // splitmix64 finalizer
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
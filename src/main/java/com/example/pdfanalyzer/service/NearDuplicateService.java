@@ -0,0 +1,183 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.DedupProperties;
+import com.example.pdfanalyzer.dto.DuplicateMatch;
+import com.example.pdfanalyzer.model.AnalysisResult;
+import com.example.pdfanalyzer.model.Section;
+import com.example.pdfanalyzer.model.SectionClassification;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Duplicate detection for whole documents and near-duplicate detection for individual sections.
+ * A stored analysis is reused only for an upload whose PDF bytes hash to the same SHA-256; policy
+ * versions differ in a few amounts or dates, so a similar document is never a stand-in. Analyzed
+ * documents are fingerprinted from their sections, digits included, and a match above
+ * {@code document-threshold} is only reported. Sections classified by the LLM are remembered with
+ * digits folded, so near-identical sections in later documents reuse their classification. The
+ * section index keeps the latest {@code max-sections} distinct sections in memory.
+ */
+@Service
+public class NearDuplicateService {
+
+    private static final Logger log = LoggerFactory.getLogger(NearDuplicateService.class);
+    private static final int DOCUMENT_SHINGLE = 5;
+    private static final int SECTION_SHINGLE = 3;
+    private static final String INDEX_FILE = "documents.json";
+    private static final int MIN_WORDS = 50;
+
+    private final DedupProperties properties;
+    private final ObjectMapper objectMapper;
+    private final MinHashIndex<StoredDocument> documents = new MinHashIndex<>();
+    private final Map<String, StoredDocument> documentsByContentHash = new HashMap<>();
+    private final MinHashIndex<SectionClassification> sections;
+
+    public NearDuplicateService(DedupProperties properties, ObjectMapper objectMapper) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.sections = new MinHashIndex<>(Math.max(1, properties.maxSections()));
+        load();
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * SHA-256 of the PDF bytes, the key for reusing a stored analysis.
+     */
+    public String contentHash(Path pdfPath) throws IOException {
+        MessageDigest sha;
+        try {
+            sha = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        try (InputStream in = new DigestInputStream(Files.newInputStream(pdfPath), sha)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(sha.digest());
+    }
+
+    /**
+     * Earlier upload with exactly the same bytes, whose stored analysis can be returned as is.
+     */
+    public synchronized Optional<DuplicateMatch> findExact(String contentHash) {
+        StoredDocument stored = documentsByContentHash.get(contentHash);
+        if (stored == null) {
+            return Optional.empty();
+        }
+        log.info("Exact duplicate of {}", stored.fileName());
+        return Optional.of(new DuplicateMatch(stored.id(), stored.fileName(), 1.0));
+    }
+
+    /**
+     * Fingerprint of the analyzed text, empty for documents without enough text. Digits are kept,
+     * so documents differing only in amounts or dates are not reported as identical.
+     */
+    public Optional<long[]> fingerprint(List<Section> documentSections) {
+        StringBuilder text = new StringBuilder();
+        documentSections.forEach(section -> text.append(section.content()).append('\n'));
+        if (text.toString().split("\\s+").length < MIN_WORDS) {
+            return Optional.empty();
+        }
+        return Optional.of(MinHashIndex.signature(text.toString(), DOCUMENT_SHINGLE, false));
+    }
+
+    public Optional<DuplicateMatch> findDuplicate(long[] fingerprint) {
+        MinHashIndex.Match<StoredDocument> match = documents.nearest(fingerprint, properties.documentThreshold());
+        if (match == null) {
+            return Optional.empty();
+        }
+        log.info("Near-duplicate of {} (similarity {})", match.item().fileName(), match.similarity());
+        return Optional.of(new DuplicateMatch(match.item().id(), match.item().fileName(), match.similarity()));
+    }
+
+    public AnalysisResult loadAnalysis(DuplicateMatch match) throws IOException {
+        return objectMapper.readValue(storeDir().resolve(match.id() + ".json").toFile(), AnalysisResult.class);
+    }
+
+    /**
+     * Stores the analysis under its content hash; the fingerprint, if any, is indexed for reporting.
+     */
+    public synchronized void register(String contentHash, long[] fingerprint, String fileName,
+            AnalysisResult result) {
+        StoredDocument stored = new StoredDocument(UUID.randomUUID().toString(), fileName, contentHash, fingerprint);
+        try {
+            Files.createDirectories(storeDir());
+            objectMapper.writeValue(storeDir().resolve(stored.id() + ".json").toFile(), result);
+            index(stored);
+            Path indexPath = storeDir().resolve(INDEX_FILE);
+            Path tmp = indexPath.resolveSibling(INDEX_FILE + ".tmp");
+            objectMapper.writeValue(tmp.toFile(), documentsByContentHash.values());
+            Files.move(tmp, indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Failed to store analysis for duplicate detection: {}", fileName, e);
+        }
+    }
+
+    private void index(StoredDocument stored) {
+        documentsByContentHash.put(stored.contentHash(), stored);
+        if (stored.signature() != null) {
+            documents.add(stored, stored.signature());
+        }
+    }
+
+    public Optional<SectionClassification> findSectionClassification(Section section) {
+        MinHashIndex.Match<SectionClassification> match = sections.nearest(
+                MinHashIndex.signature(section.content(), SECTION_SHINGLE), properties.sectionThreshold());
+        return match != null ? Optional.of(match.item()) : Optional.empty();
+    }
+
+    public synchronized void registerSectionClassification(Section section, SectionClassification classification) {
+        long[] signature = MinHashIndex.signature(section.content(), SECTION_SHINGLE);
+        // Repeated boilerplate would otherwise fill the index with copies
+        MinHashIndex.Match<SectionClassification> existing = sections.nearest(signature, 1.0);
+        if (existing == null || existing.item() != classification) {
+            sections.add(classification, signature);
+        }
+    }
+
+    private void load() {
+        Path indexPath = storeDir().resolve(INDEX_FILE);
+        if (!Files.exists(indexPath)) {
+            return;
+        }
+        try {
+            List<StoredDocument> stored = objectMapper.readValue(indexPath.toFile(),
+                    new TypeReference<List<StoredDocument>>() {
+                    });
+            // Older entries have no content hash and digit-folded signatures, so they match nothing correctly
+            stored.stream().filter(document -> document.contentHash() != null).forEach(this::index);
+            log.info("Loaded {} documents for duplicate detection", documentsByContentHash.size());
+        } catch (IOException e) {
+            log.warn("Failed to load near-duplicate index from {}", indexPath, e);
+        }
+    }
+
+    private Path storeDir() {
+        return Path.of(properties.storeDir() != null ? properties.storeDir() : "output/dedup");
+    }
+
+    private record StoredDocument(String id, String fileName, String contentHash, long[] signature) {
+    }
+}
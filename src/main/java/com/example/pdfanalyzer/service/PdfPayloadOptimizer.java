@@ -0,0 +1,238 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.PdfOptimizerProperties;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSDictionary;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.cos.COSObject;
+import org.apache.pdfbox.cos.COSStream;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentInformation;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDResources;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.JPEGFactory;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Shrinks split-off chunks before they are base64-encoded and uploaded to DI.
+ * <p>
+ * Page images sampled above the target DPI are downsampled and re-encoded as JPEG, document metadata and page
+ * thumbnails are dropped, and byte-identical image and embedded font streams are merged into one object. The
+ * chunk is reloaded first, so nothing shared with the source document is modified.
+ */
+@Service
+public class PdfPayloadOptimizer {
+
+    private static final Logger log = LoggerFactory.getLogger(PdfPayloadOptimizer.class);
+    private static final COSName THUMB = COSName.getPDFName("Thumb");
+    private static final COSName[] FONT_FILES = { COSName.FONT_FILE, COSName.FONT_FILE2, COSName.FONT_FILE3 };
+    // Stream dictionary entries that change how identical bytes are interpreted
+    private static final COSName[] IDENTITY_KEYS = { COSName.SUBTYPE, COSName.FILTER, COSName.DECODE_PARMS,
+            COSName.COLORSPACE, COSName.WIDTH, COSName.HEIGHT, COSName.BITS_PER_COMPONENT, COSName.DECODE,
+            COSName.SMASK, COSName.MASK, COSName.LENGTH1, COSName.LENGTH2, COSName.LENGTH3 };
+
+    private final PdfOptimizerProperties properties;
+
+    public PdfPayloadOptimizer(PdfOptimizerProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Returns the optimized chunk, or the input when optimizing did not make it smaller.
+     */
+    public byte[] optimize(byte[] pdfBytes) throws IOException {
+        try (PDDocument document = Loader.loadPDF(pdfBytes)) {
+            int downsampled = 0;
+            for (PDPage page : document.getPages()) {
+                downsampled += downsampleImages(document, page);
+                page.getCOSObject().removeItem(THUMB);
+            }
+            if (properties.stripMetadata()) {
+                document.getDocumentCatalog().setMetadata(null);
+                document.setDocumentInformation(new PDDocumentInformation());
+            }
+            int merged = properties.dedupe() ? dedupeStreams(document) : 0;
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(pdfBytes.length);
+            document.save(out);
+            byte[] optimized = out.toByteArray();
+            log.debug("Optimized chunk: {} -> {} bytes ({} images downsampled, {} duplicate streams merged)",
+                    pdfBytes.length, optimized.length, downsampled, merged);
+            return optimized.length < pdfBytes.length ? optimized : pdfBytes;
+        }
+    }
+
+    private int downsampleImages(PDDocument document, PDPage page) throws IOException {
+        PDResources resources = page.getResources();
+        if (resources == null) {
+            return 0;
+        }
+        PDRectangle box = page.getMediaBox();
+        double pageInches = Math.max(box.getWidth(), box.getHeight()) / 72.0;
+        int downsampled = 0;
+
+        List<COSName> names = new ArrayList<>();
+        resources.getXObjectNames().forEach(names::add);
+        for (COSName name : names) {
+            PDXObject xobject = resources.getXObject(name);
+            if (!(xobject instanceof PDImageXObject image) || !isResamplable(image)) {
+                continue;
+            }
+            // DPI as if the image spanned the page; figures drawn smaller are sampled even finer
+            double dpi = Math.max(image.getWidth(), image.getHeight()) / pageInches;
+            if (dpi <= properties.targetDpi()) {
+                continue;
+            }
+
+            BufferedImage source;
+            try {
+                source = image.getImage();
+            } catch (IOException | RuntimeException e) {
+                log.debug("Skipping image {} that cannot be decoded: {}", name.getName(), e.getMessage());
+                continue;
+            }
+            double scale = properties.targetDpi() / dpi;
+            BufferedImage scaled = scale(source, scale);
+            PDImageXObject replacement = JPEGFactory.createFromImage(document, scaled, properties.jpegQuality());
+            if (replacement.getCOSObject().getLength() < image.getCOSObject().getLength()) {
+                resources.put(name, replacement);
+                downsampled++;
+            }
+        }
+        return downsampled;
+    }
+
+    /**
+     * Stencil masks, soft-masked and 1-bit images keep their exact encoding: transparency and bilevel scans
+     * (CCITT, JBIG2) are already compact and lossy JPEG would hurt OCR.
+     */
+    private boolean isResamplable(PDImageXObject image) throws IOException {
+        return !image.isStencil()
+                && image.getSoftMask() == null
+                && image.getCOSObject().getItem(COSName.MASK) == null
+                && image.getBitsPerComponent() > 1;
+    }
+
+    private BufferedImage scale(BufferedImage source, double scale) {
+        int width = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int height = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        boolean gray = source.getColorModel().getNumColorComponents() == 1;
+        BufferedImage scaled = new BufferedImage(width, height,
+                gray ? BufferedImage.TYPE_BYTE_GRAY : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Points every reference to a byte-identical image or font program at the first copy, so it is written once.
+     */
+    private int dedupeStreams(PDDocument document) throws IOException {
+        Map<String, COSStream> byDigest = new HashMap<>();
+        int merged = 0;
+        for (PDPage page : document.getPages()) {
+            COSDictionary resources = page.getCOSObject().getCOSDictionary(COSName.RESOURCES);
+            if (resources == null) {
+                continue;
+            }
+            COSDictionary xobjects = resources.getCOSDictionary(COSName.XOBJECT);
+            if (xobjects != null) {
+                for (COSName name : new ArrayList<>(xobjects.keySet())) {
+                    if (xobjects.getDictionaryObject(name) instanceof COSStream stream
+                            && COSName.IMAGE.equals(stream.getCOSName(COSName.SUBTYPE))) {
+                        merged += replaceDuplicate(xobjects, name, stream, byDigest);
+                    }
+                }
+            }
+            COSDictionary fonts = resources.getCOSDictionary(COSName.FONT);
+            if (fonts != null) {
+                for (COSName name : new ArrayList<>(fonts.keySet())) {
+                    if (fonts.getDictionaryObject(name) instanceof COSDictionary font) {
+                        merged += dedupeFontFile(font, byDigest);
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    private int dedupeFontFile(COSDictionary font, Map<String, COSStream> byDigest) throws IOException {
+        int merged = 0;
+        COSDictionary descriptor = font.getCOSDictionary(COSName.FONT_DESC);
+        if (descriptor != null) {
+            for (COSName key : FONT_FILES) {
+                if (descriptor.getDictionaryObject(key) instanceof COSStream stream) {
+                    merged += replaceDuplicate(descriptor, key, stream, byDigest);
+                }
+            }
+        }
+        // Type0 fonts keep their program in the descendant CIDFont
+        if (font.getCOSArray(COSName.DESCENDANT_FONTS) != null) {
+            for (COSBase descendant : font.getCOSArray(COSName.DESCENDANT_FONTS)) {
+                COSBase resolved = descendant instanceof COSObject object
+                        ? object.getObject()
+                        : descendant;
+                if (resolved instanceof COSDictionary cidFont) {
+                    merged += dedupeFontFile(cidFont, byDigest);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private int replaceDuplicate(COSDictionary owner, COSName key, COSStream stream, Map<String, COSStream> byDigest)
+            throws IOException {
+        String digest = digest(stream);
+        COSStream first = byDigest.putIfAbsent(digest, stream);
+        if (first == null || first == stream) {
+            return 0;
+        }
+        owner.setItem(key, first);
+        return 1;
+    }
+
+    private static String digest(COSStream stream) throws IOException {
+        try (InputStream raw = stream.createRawInputStream()) {
+            MessageDigest sha = MessageDigest.getInstance("SHA-256");
+            // Same encoded bytes under a different dictionary (filter, colour space, mask) are different objects
+            for (COSName key : IDENTITY_KEYS) {
+                sha.update(String.valueOf(stream.getItem(key)).getBytes(StandardCharsets.UTF_8));
+            }
+            sha.update(raw.readAllBytes());
+            return HexFormat.of().formatHex(sha.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -1,5 +1,8 @@
 package com.example.pdfanalyzer.service;
 
+import com.example.pdfanalyzer.model.PageSelection;
+import com.example.pdfanalyzer.service.DuplicatePageDetector.PageGroups;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.pdfbox.Loader;
 import org.apache.pdfbox.pdmodel.PDDocument;
 import org.apache.pdfbox.pdmodel.PDPage;
@@ -9,45 +12,127 @@ import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 @Service
 public class PdfSplitterService {
 
     private static final Logger log = LoggerFactory.getLogger(PdfSplitterService.class);
 
-    public List<byte[]> splitPdfByPages(Path pdfPath, int pagesPerChunk) throws IOException {
-        log.info("Splitting PDF: {} with {} pages per chunk", pdfPath, pagesPerChunk);
+    private final PdfPayloadOptimizer optimizer;
+    private final DuplicatePageDetector duplicateDetector;
+    private final MeterRegistry meterRegistry;
+    private final ChunkResourcePruner resourcePruner = new ChunkResourcePruner();
 
-        List<byte[]> chunks = new ArrayList<>();
+    public PdfSplitterService(PdfPayloadOptimizer optimizer,
+            DuplicatePageDetector duplicateDetector,
+            MeterRegistry meterRegistry) {
+        this.optimizer = optimizer;
+        this.duplicateDetector = duplicateDetector;
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * A split-off part of the document together with the original page number of each of its pages.
+     * {@code copies} lists, per page of this chunk, the other pages of the document identical to it; they are
+     * not part of any chunk and take the results of the page they copy.
+     */
+    public record PageChunk(byte[] content, List<Integer> pageNumbers, Map<Integer, List<Integer>> copies) {
+
+        public List<Integer> copiesOf(int documentPage) {
+            return copies.getOrDefault(documentPage, List.of());
+        }
+
+        /**
+         * Original page number for a 1-based page of this chunk.
+         */
+        public int documentPage(int chunkPage) {
+            int index = Math.min(Math.max(chunkPage, 1), pageNumbers.size()) - 1;
+            return pageNumbers.get(index);
+        }
+    }
+
+    public List<PageChunk> splitPdfByPages(Path pdfPath, int pagesPerChunk, PageSelection selection)
+            throws IOException {
+        return splitPdfByPages(pdfPath, pagesPerChunk, selection, optimizer.isEnabled());
+    }
+
+    public List<PageChunk> splitPdfByPages(Path pdfPath, int pagesPerChunk, PageSelection selection,
+            boolean optimize) throws IOException {
+        log.info("Splitting PDF: {} with {} pages per chunk (pages: {})", pdfPath, pagesPerChunk, selection);
+
+        List<PageChunk> chunks = new ArrayList<>();
+        long bytesBefore = 0;
+        long bytesAfter = 0;
+        int droppedResources = 0;
 
         try (PDDocument document = Loader.loadPDF(pdfPath.toFile())) {
             int totalPages = document.getNumberOfPages();
-            log.info("Total pages in document: {}", totalPages);
+            List<Integer> selected = selection.resolve(totalPages);
+            log.info("Total pages in document: {}, selected: {}", totalPages, selected.size());
+
+            // Blank pages and repeats of an earlier page are not sent at all
+            PageGroups groups = duplicateDetector.detect(document, selected);
+            List<Integer> pages = groups.unique();
 
-            for (int startPage = 0; startPage < totalPages; startPage += pagesPerChunk) {
-                int endPage = Math.min(startPage + pagesPerChunk, totalPages);
+            for (int start = 0; start < pages.size(); start += pagesPerChunk) {
+                List<Integer> chunkPages = pages.subList(start, Math.min(start + pagesPerChunk, pages.size()));
 
                 try (PDDocument chunkDoc = new PDDocument()) {
-                    for (int i = startPage; i < endPage; i++) {
-                        PDPage page = document.getPage(i);
+                    for (int pageNumber : chunkPages) {
+                        PDPage page = document.getPage(pageNumber - 1);
+                        detachInheritedAttributes(page);
+                        droppedResources += resourcePruner.prune(page);
                         chunkDoc.addPage(page);
                     }
 
                     ByteArrayOutputStream baos = new ByteArrayOutputStream();
                     chunkDoc.save(baos);
                     byte[] chunkBytes = baos.toByteArray();
-                    chunks.add(chunkBytes);
+                    bytesBefore += chunkBytes.length;
+                    if (optimize) {
+                        chunkBytes = optimizer.optimize(chunkBytes);
+                    }
+                    bytesAfter += chunkBytes.length;
+                    Map<Integer, List<Integer>> chunkCopies = new LinkedHashMap<>();
+                    for (int pageNumber : chunkPages) {
+                        List<Integer> copies = groups.copies().get(pageNumber);
+                        if (copies != null) {
+                            chunkCopies.put(pageNumber, List.copyOf(copies));
+                        }
+                    }
+                    chunks.add(new PageChunk(chunkBytes, List.copyOf(chunkPages), chunkCopies));
 
-                    log.info("Created chunk {}: pages {}-{} ({} bytes)",
-                            chunks.size(), startPage + 1, endPage, chunkBytes.length);
+                    log.info("Created chunk {}: pages {} ({} bytes, {} before optimization)",
+                            chunks.size(), PageSelection.format(chunkPages), chunkBytes.length, baos.size());
                 }
             }
         }
 
-        log.info("Split PDF into {} chunks", chunks.size());
+        // Bytes uploaded per source byte; close to 1.0 unless chunks still repeat shared fonts and images
+        long sourceBytes = Files.size(pdfPath);
+        double amplification = sourceBytes > 0 ? (double) bytesAfter / sourceBytes : 0.0;
+        meterRegistry.summary("pdf.split.amplification").record(amplification);
+        log.info("Split PDF into {} chunks: {} bytes{}, amplification {} ({} unused resources pruned)",
+                chunks.size(), bytesAfter, optimize ? " (" + bytesBefore + " before optimization)" : "",
+                String.format(Locale.ROOT, "%.2f", amplification), droppedResources);
         return chunks;
     }
-}
\ No newline at end of file
+
+    /**
+     * Copies attributes the page inherits from the source page tree onto the page itself; {@code addPage}
+     * re-parents it into the chunk and would otherwise lose its resources, boxes and rotation.
+     */
+    private void detachInheritedAttributes(PDPage page) {
+        page.setResources(page.getResources());
+        page.setMediaBox(page.getMediaBox());
+        page.setCropBox(page.getCropBox());
+        page.setRotation(page.getRotation());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.pdfanalyzer.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizer and light suffix-stripping stemmer for Polish text.
+ * Inflectional endings are removed (longest first) as long as a stem of at least four
+ * characters remains, then diacritics are folded so that "umowy", "umową" and "umowa" all
+ * index as "umow". Used for both documents and queries, so positions stay comparable.
+ */
+final class PolishTextAnalyzer {
+
+    private static final Locale POLISH = Locale.forLanguageTag("pl-PL");
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final int MIN_STEM = 4;
+
+    // Ordered longest first so that e.g. "ami" wins over "i"
+    private static final String[] SUFFIXES = {
+            "owania", "owanie", "ościach", "ościami", "ością", "ości", "ość",
+            "iami", "ach", "ami", "ego", "emu", "ich", "ych", "imi", "ymi", "owi", "ów", "om",
+            "ej", "ie", "ia", "iu", "em", "ą", "ę", "a", "e", "i", "y", "u", "o"
+    };
+
+    private PolishTextAnalyzer() {
+    }
+
+    static List<String> analyze(String text) {
+        List<String> terms = new ArrayList<>();
+        if (text == null || text.isEmpty()) {
+            return terms;
+        }
+        int length = text.length();
+        int start = -1;
+        for (int i = 0; i <= length; i++) {
+            boolean tokenChar = i < length && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                terms.add(normalize(text.substring(start, i)));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    static String normalize(String token) {
+        String lower = token.toLowerCase(POLISH);
+        String stemmed = stem(lower);
+        return fold(stemmed);
+    }
+
+    private static String stem(String word) {
+        if (word.length() <= MIN_STEM || Character.isDigit(word.charAt(0))) {
+            return word;
+        }
+        for (String suffix : SUFFIXES) {
+            if (word.endsWith(suffix) && word.length() - suffix.length() >= MIN_STEM) {
+                return word.substring(0, word.length() - suffix.length());
+            }
+        }
+        return word;
+    }
+
+    private static String fold(String word) {
+        String folded = word.replace('ł', 'l');
+        folded = Normalizer.normalize(folded, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(folded).replaceAll("");
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.pdfanalyzer.service;
+
+import com.azure.ai.documentintelligence.models.DocumentPage;
+import com.azure.ai.documentintelligence.models.DocumentSpan;
+import com.azure.ai.documentintelligence.models.DocumentWord;
+import com.example.pdfanalyzer.model.PageQuality;
+import com.example.pdfanalyzer.model.PageQuality.LowConfidenceSpan;
+import com.example.pdfanalyzer.model.QualityMetrics;
+import com.example.pdfanalyzer.model.Section;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Collects quality metrics in a single pass while sections are extracted.
+ * <p>
+ * Feed it the DI pages of each analyze result first ({@link #addPages}), then every extracted section
+ * ({@link #addSection}). Word confidences are kept in offset order so section confidence is a binary
+ * search over the current result instead of a scan.
+ */
+final class QualityMetricsAccumulator {
+
+    static final double LOW_CONFIDENCE_WORD = 0.8;
+    static final double LOW_QUALITY_PAGE_CONFIDENCE = 0.9;
+    static final double LOW_QUALITY_PAGE_WORD_RATIO = 0.1;
+
+    private final Map<Integer, PageStats> pages = new TreeMap<>();
+
+    // Word index of the current analyze result; offsets are relative to its content
+    private int[] wordOffsets = new int[0];
+    private double[] wordConfidences = new double[0];
+    private int wordCount;
+
+    private int paragraphs;
+    private int chars;
+    private int markers;
+    private int words;
+    private double wordConfidenceSum;
+
+    /**
+     * Indexes the words of one analyze result. Replaces the previous word index, so call it once per result
+     * before adding that result's sections. {@code documentPage} maps the result's page numbers to pages of
+     * the original document.
+     */
+    void addPages(List<DocumentPage> resultPages, IntUnaryOperator documentPage) {
+        wordCount = 0;
+        if (resultPages == null) {
+            return;
+        }
+        for (DocumentPage page : resultPages) {
+            PageStats stats = page(documentPage.applyAsInt(page.getPageNumber()));
+            if (page.getWords() == null) {
+                continue;
+            }
+            for (DocumentWord word : page.getWords()) {
+                double confidence = word.getConfidence();
+                if (word.getSpan() != null) {
+                    appendWord(word.getSpan().getOffset(), confidence);
+                }
+                stats.addWord(word, confidence);
+                words++;
+                wordConfidenceSum += confidence;
+            }
+            stats.closeSpan();
+        }
+    }
+
+    /**
+     * Mean confidence of the words covered by {@code spans}, or {@code null} when no word falls inside them.
+     */
+    Double confidence(List<DocumentSpan> spans) {
+        if (spans == null || wordCount == 0) {
+            return null;
+        }
+        double sum = 0;
+        int count = 0;
+        for (DocumentSpan span : spans) {
+            int end = span.getOffset() + span.getLength();
+            int i = Arrays.binarySearch(wordOffsets, 0, wordCount, span.getOffset());
+            for (i = i >= 0 ? i : -i - 1; i < wordCount && wordOffsets[i] < end; i++) {
+                sum += wordConfidences[i];
+                count++;
+            }
+        }
+        return count > 0 ? sum / count : null;
+    }
+
+    /**
+     * Adds a page measured by an earlier pass, e.g. one reused from the page cache.
+     */
+    void addPage(PageQuality quality) {
+        PageStats stats = page(quality.pageNumber());
+        stats.chars += quality.chars();
+        stats.paragraphs += quality.paragraphs();
+        stats.markers += quality.structureMarkers();
+        stats.leadingMarkers += quality.leadingMarkers();
+        stats.words += quality.words();
+        stats.confidenceSum += quality.avgWordConfidence() * quality.words();
+        stats.lowWords += quality.lowConfidenceWords();
+        stats.lowSpans.addAll(quality.lowConfidenceSpans());
+
+        paragraphs += quality.paragraphs();
+        chars += quality.chars();
+        markers += quality.structureMarkers();
+        words += quality.words();
+        wordConfidenceSum += quality.avgWordConfidence() * quality.words();
+    }
+
+    void addSection(Section section) {
+        PageStats stats = page(section.pageNumber());
+        int length = section.content().length();
+        stats.paragraphs++;
+        stats.chars += length;
+        paragraphs++;
+        chars += length;
+        // Any mention counts towards hasStructureMarkers, as it always has; only a leading one opens a unit
+        if (LegalStructure.STRUCTURE_MARKERS.matcher(section.content()).find()) {
+            stats.markers++;
+            markers++;
+        }
+        if (LegalStructure.leadingMarker(section.content()) != null) {
+            stats.leadingMarkers++;
+        }
+    }
+
+    QualityMetrics build() {
+        List<PageQuality> pageQualities = new ArrayList<>(pages.size());
+        List<Integer> lowQualityPages = new ArrayList<>();
+        for (PageStats stats : pages.values()) {
+            PageQuality quality = stats.toPageQuality();
+            pageQualities.add(quality);
+            if (isLowQuality(quality)) {
+                lowQualityPages.add(quality.pageNumber());
+            }
+        }
+        double avgConfidence = words > 0 ? wordConfidenceSum / words : 0.0;
+        return new QualityMetrics(avgConfidence, paragraphs, chars, markers > 0, pageQualities, lowQualityPages);
+    }
+
+    private static boolean isLowQuality(PageQuality page) {
+        if (page.words() == 0) {
+            return false;
+        }
+        return page.avgWordConfidence() < LOW_QUALITY_PAGE_CONFIDENCE
+                || (double) page.lowConfidenceWords() / page.words() > LOW_QUALITY_PAGE_WORD_RATIO;
+    }
+
+    private PageStats page(int pageNumber) {
+        return pages.computeIfAbsent(pageNumber, PageStats::new);
+    }
+
+    private void appendWord(int offset, double confidence) {
+        if (wordCount == wordOffsets.length) {
+            int capacity = Math.max(256, wordCount * 2);
+            wordOffsets = Arrays.copyOf(wordOffsets, capacity);
+            wordConfidences = Arrays.copyOf(wordConfidences, capacity);
+        }
+        wordOffsets[wordCount] = offset;
+        wordConfidences[wordCount] = confidence;
+        wordCount++;
+    }
+
+    private static final class PageStats {
+
+        private final int pageNumber;
+        private int chars;
+        private int paragraphs;
+        private int markers;
+        private int leadingMarkers;
+        private int words;
+        private double confidenceSum;
+        private int lowWords;
+        private final List<LowConfidenceSpan> lowSpans = new ArrayList<>();
+
+        // Open run of consecutive low-confidence words
+        private StringBuilder spanText;
+        private int spanOffset;
+        private int spanEnd;
+        private double spanMin;
+
+        PageStats(int pageNumber) {
+            this.pageNumber = pageNumber;
+        }
+
+        void addWord(DocumentWord word, double confidence) {
+            words++;
+            confidenceSum += confidence;
+            if (confidence >= LOW_CONFIDENCE_WORD) {
+                closeSpan();
+                return;
+            }
+            lowWords++;
+            String content = word.getContent() != null ? word.getContent() : "";
+            int offset = word.getSpan() != null ? word.getSpan().getOffset() : spanEnd;
+            int length = word.getSpan() != null ? word.getSpan().getLength() : content.length();
+            if (spanText == null) {
+                spanText = new StringBuilder(content);
+                spanOffset = offset;
+                spanMin = confidence;
+            } else {
+                spanText.append(' ').append(content);
+                spanMin = Math.min(spanMin, confidence);
+            }
+            spanEnd = offset + length;
+        }
+
+        void closeSpan() {
+            if (spanText != null) {
+                lowSpans.add(new LowConfidenceSpan(spanOffset, spanEnd - spanOffset, spanText.toString(), spanMin));
+                spanText = null;
+            }
+        }
+
+        PageQuality toPageQuality() {
+            closeSpan();
+            double avg = words > 0 ? confidenceSum / words : 0.0;
+            return new PageQuality(pageNumber, chars, paragraphs, markers, leadingMarkers, words, avg, lowWords,
+                    List.copyOf(lowSpans));
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.StoreProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * {@link AnalysisStore} in Redis, shared by every replica pointed at the same server. Keys are
+ * {@code {keyPrefix}cache:<cache>:<key>}, {@code {keyPrefix}result:<name>} and {@code {keyPrefix}claim:<key>};
+ * claims are {@code SET NX PX} with the instance id as value and are released only by their owner.
+ */
+public class RedisAnalysisStore implements AnalysisStore {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisAnalysisStore.class);
+    private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final StringRedisTemplate redis;
+    private final ObjectMapper objectMapper;
+    private final String prefix;
+    private final Duration cacheTtl;
+    private final Duration resultTtl;
+    private final String owner = UUID.randomUUID().toString();
+
+    public RedisAnalysisStore(StringRedisTemplate redis, StoreProperties properties, ObjectMapper objectMapper) {
+        this.redis = redis;
+        this.objectMapper = objectMapper;
+        this.prefix = properties.keyPrefix() != null ? properties.keyPrefix() : "";
+        this.cacheTtl = Duration.ofHours(properties.cacheTtlHours());
+        this.resultTtl = Duration.ofHours(properties.resultTtlHours());
+    }
+
+    @Override
+    public Optional<Object> get(String cache, String key) {
+        try {
+            String json = redis.opsForValue().get(entry(cache, key));
+            return json != null ? Optional.of(StoredValues.decode(objectMapper, json)) : Optional.empty();
+        } catch (IOException | ClassNotFoundException | RuntimeException e) {
+            log.warn("Cannot read {} entry {}, treating it as a miss: {}", cache, key, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public void put(String cache, String key, Object value) {
+        try {
+            set(entry(cache, key), StoredValues.encode(objectMapper, value), cacheTtl);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Cannot store {} entry {}: {}", cache, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void evict(String cache, String key) {
+        try {
+            redis.delete(entry(cache, key));
+        } catch (RuntimeException e) {
+            log.warn("Cannot evict {} entry {}: {}", cache, key, e.getMessage());
+        }
+    }
+
+    @Override
+    public void clear(String cache) {
+        try {
+            // KEYS blocks the server; clearing a cache is an administrative operation, not a request path
+            Set<String> keys = redis.keys(prefix + "cache:" + cache + ":*");
+            if (keys != null && !keys.isEmpty()) {
+                redis.delete(keys);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Cannot clear cache {}: {}", cache, e.getMessage());
+        }
+    }
+
+    @Override
+    public void saveResult(String name, String content) throws IOException {
+        try {
+            set(prefix + "result:" + name, content, resultTtl);
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot save result " + name + " to Redis", e);
+        }
+    }
+
+    @Override
+    public Optional<InputStream> openResult(String name) throws IOException {
+        try {
+            String content = redis.opsForValue().get(prefix + "result:" + name);
+            return Optional.ofNullable(content)
+                    .map(value -> new ByteArrayInputStream(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot read result " + name + " from Redis", e);
+        }
+    }
+
+    @Override
+    public List<String> listResults() throws IOException {
+        try {
+            // KEYS blocks the server; converting every result is a batch operation, not a request path
+            Set<String> keys = redis.keys(prefix + "result:*");
+            return keys == null ? List.of() : keys.stream()
+                    .map(key -> key.substring((prefix + "result:").length()))
+                    .toList();
+        } catch (RuntimeException e) {
+            throw new IOException("Cannot list results in Redis", e);
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(String key, Duration lease) {
+        try {
+            return Boolean.TRUE.equals(redis.opsForValue().setIfAbsent(prefix + "claim:" + key, owner, lease));
+        } catch (RuntimeException e) {
+            log.warn("Cannot claim {}, analyzing without a claim: {}", key, e.getMessage());
+            return true;
+        }
+    }
+
+    @Override
+    public void release(String key) {
+        try {
+            redis.execute(RELEASE, List.of(prefix + "claim:" + key), owner);
+        } catch (RuntimeException e) {
+            log.warn("Cannot release claim on {}, it expires with its lease: {}", key, e.getMessage());
+        }
+    }
+
+    private String entry(String cache, String key) {
+        return prefix + "cache:" + cache + ":" + key;
+    }
+
+    private void set(String key, String value, Duration ttl) {
+        if (ttl.isZero()) {
+            redis.opsForValue().set(key, value);
+        } else {
+            redis.opsForValue().set(key, value, ttl);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.RunningHeaderProperties;
+import com.example.pdfanalyzer.model.Section;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Strips running headers and footers that DI did not label as {@code pageHeader} / {@code pageFooter}.
+ * <p>
+ * Sections carry no coordinates, so position is the section's place on its page: one of the first or last
+ * {@code edgeSections}. A short text that recurs in the same place on enough pages, with digits normalized so
+ * that "Strona 3 z 12" matches "Strona 4 z 12", is removed from every page it appears on in that place.
+ * Sections opening an {@code Art.} / {@code §} / {@code pkt} unit are never treated as headers.
+ */
+@Service
+public class RunningHeaderFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RunningHeaderFilter.class);
+    private static final Pattern DIGITS = Pattern.compile("\\d+");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final RunningHeaderProperties properties;
+
+    public RunningHeaderFilter(RunningHeaderProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Returns the sections without running headers and footers, in their original order.
+     */
+    public List<Section> strip(List<Section> sections) {
+        if (!properties.enabled() || sections.isEmpty()) {
+            return sections;
+        }
+
+        Map<Integer, List<Integer>> byPage = new LinkedHashMap<>();
+        for (int i = 0; i < sections.size(); i++) {
+            byPage.computeIfAbsent(sections.get(i).pageNumber(), p -> new ArrayList<>()).add(i);
+        }
+        int threshold = Math.max(properties.minPages(),
+                (int) Math.ceil(properties.minPageRatio() * byPage.size()));
+        if (byPage.size() < threshold) {
+            return sections;
+        }
+
+        // Edge key of every candidate section, and on how many pages each key occurs
+        String[] keys = new String[sections.size()];
+        Map<String, Integer> pageCounts = new HashMap<>();
+        for (List<Integer> page : byPage.values()) {
+            Set<String> seenOnPage = new HashSet<>();
+            int edge = Math.min(properties.edgeSections(), page.size());
+            for (int i = 0; i < page.size(); i++) {
+                String zone = i < edge ? "top" : i >= page.size() - edge ? "bottom" : null;
+                String text = zone != null ? normalize(sections.get(page.get(i))) : null;
+                if (text == null) {
+                    continue;
+                }
+                keys[page.get(i)] = zone + "|" + text;
+                if (seenOnPage.add(keys[page.get(i)])) {
+                    pageCounts.merge(keys[page.get(i)], 1, Integer::sum);
+                }
+            }
+        }
+
+        List<Section> kept = new ArrayList<>(sections.size());
+        int removedChars = 0;
+        for (int i = 0; i < sections.size(); i++) {
+            if (keys[i] != null && pageCounts.get(keys[i]) >= threshold) {
+                removedChars += sections.get(i).content().length();
+            } else {
+                kept.add(sections.get(i));
+            }
+        }
+        if (kept.size() < sections.size()) {
+            log.info("Stripped {} running header/footer sections ({} chars) from {} pages",
+                    sections.size() - kept.size(), removedChars, byPage.size());
+        }
+        return kept;
+    }
+
+    private String normalize(Section section) {
+        String content = section.content();
+        if (content == null || content.isBlank() || content.length() > properties.maxLength()
+                || LegalStructure.leadingMarker(content) != null) {
+            return null;
+        }
+        String text = DIGITS.matcher(content.toLowerCase(Locale.ROOT)).replaceAll("#");
+        return WHITESPACE.matcher(text).replaceAll(" ").strip();
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.pdfanalyzer.service;
+
+import com.azure.ai.documentintelligence.models.DocumentTable;
+import com.azure.ai.documentintelligence.models.DocumentTableCell;
+import com.azure.ai.documentintelligence.models.DocumentTableCellKind;
+import com.example.pdfanalyzer.model.TableData;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Table built from the cells DI reported, without materializing the full row x column grid.
+ * <p>
+ * Rows are produced one at a time by {@link #forEachRow}; only cells that span several rows are carried over
+ * between rows. Spanned cells repeat their content in every position they cover, so CSV and JSON consumers
+ * never see holes where a merged cell was.
+ */
+public final class SparseTable {
+
+    private static final Pattern NUMERIC = Pattern.compile("[-+]?[\\d\\s.,]*\\d[\\d\\s.,]*%?");
+
+    @FunctionalInterface
+    public interface RowConsumer {
+        void accept(int rowIndex, String[] cells) throws IOException;
+    }
+
+    private record Cell(int row, int column, int rowSpan, int columnSpan, String content, boolean header) {
+    }
+
+    private final int rowCount;
+    private final int columnCount;
+    private final List<Cell> cells;
+    private final int headerRows;
+
+    private SparseTable(int rowCount, int columnCount, List<Cell> cells) {
+        this.rowCount = rowCount;
+        this.columnCount = columnCount;
+        this.cells = cells;
+        this.headerRows = detectHeaderRows();
+    }
+
+    public static SparseTable of(DocumentTable table) {
+        int rows = table.getRowCount() != null ? table.getRowCount() : 0;
+        int columns = table.getColumnCount() != null ? table.getColumnCount() : 0;
+        List<Cell> cells = new ArrayList<>();
+        if (table.getCells() != null) {
+            for (DocumentTableCell cell : table.getCells()) {
+                Integer row = cell.getRowIndex();
+                Integer column = cell.getColumnIndex();
+                if (row == null || column == null || row < 0 || row >= rows || column < 0 || column >= columns) {
+                    continue;
+                }
+                cells.add(new Cell(row, column,
+                        Math.max(1, cell.getRowSpan() != null ? cell.getRowSpan() : 1),
+                        Math.max(1, cell.getColumnSpan() != null ? cell.getColumnSpan() : 1),
+                        cell.getContent() != null ? cell.getContent().trim() : "",
+                        cell.getKind() == DocumentTableCellKind.COLUMN_HEADER));
+            }
+        }
+        cells.sort(Comparator.comparingInt(Cell::row).thenComparingInt(Cell::column));
+        return new SparseTable(rows, columns, cells);
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int columnCount() {
+        return columnCount;
+    }
+
+    public int headerRows() {
+        return headerRows;
+    }
+
+    public boolean isEmpty() {
+        return rowCount == 0 || columnCount == 0 || cells.isEmpty();
+    }
+
+    /**
+     * Streams every row, header rows included, in order. Each row is a fresh array.
+     */
+    public void forEachRow(RowConsumer consumer) throws IOException {
+        List<Cell> spanning = new ArrayList<>();
+        int next = 0;
+        for (int r = 0; r < rowCount; r++) {
+            String[] row = new String[columnCount];
+            Arrays.fill(row, "");
+
+            for (Iterator<Cell> it = spanning.iterator(); it.hasNext();) {
+                Cell cell = it.next();
+                if (cell.row() + cell.rowSpan() <= r) {
+                    it.remove();
+                } else {
+                    fill(row, cell);
+                }
+            }
+            while (next < cells.size() && cells.get(next).row() == r) {
+                Cell cell = cells.get(next++);
+                fill(row, cell);
+                if (cell.rowSpan() > 1) {
+                    spanning.add(cell);
+                }
+            }
+
+            consumer.accept(r, row);
+        }
+    }
+
+    /**
+     * Column names from the header rows; stacked header cells are joined with {@code " / "}.
+     */
+    public List<String> columns() {
+        List<Set<String>> parts = new ArrayList<>(columnCount);
+        for (int c = 0; c < columnCount; c++) {
+            parts.add(new LinkedHashSet<>());
+        }
+        unchecked(() -> forEachRow((r, row) -> {
+            if (r < headerRows) {
+                for (int c = 0; c < columnCount; c++) {
+                    if (!row[c].isEmpty()) {
+                        parts.get(c).add(row[c]);
+                    }
+                }
+            }
+        }));
+
+        List<String> columns = new ArrayList<>(columnCount);
+        Set<String> used = new LinkedHashSet<>();
+        for (int c = 0; c < columnCount; c++) {
+            String name = parts.get(c).isEmpty() ? "Column " + (c + 1) : String.join(" / ", parts.get(c));
+            String unique = name;
+            for (int n = 2; !used.add(unique); n++) {
+                unique = name + " (" + n + ")";
+            }
+            columns.add(unique);
+        }
+        return columns;
+    }
+
+    public void writeMarkdown(Writer out) throws IOException {
+        List<String> columns = columns();
+        writeMarkdownRow(out, columns.toArray(String[]::new));
+        out.write('|');
+        for (int c = 0; c < columnCount; c++) {
+            out.write("---|");
+        }
+        out.write('\n');
+        forEachRow((r, row) -> {
+            if (r >= headerRows) {
+                writeMarkdownRow(out, row);
+            }
+        });
+    }
+
+    public void writeCsv(Writer out) throws IOException {
+        writeCsvRow(out, columns());
+        forEachRow((r, row) -> {
+            if (r >= headerRows) {
+                writeCsvRow(out, Arrays.asList(row));
+            }
+        });
+    }
+
+    public TableData toTableData(int index, int pageNumber) {
+        List<List<String>> rows = new ArrayList<>(Math.max(0, rowCount - headerRows));
+        unchecked(() -> forEachRow((r, row) -> {
+            if (r >= headerRows) {
+                rows.add(List.of(row));
+            }
+        }));
+        return new TableData(index, pageNumber, headerRows, columns(), rows);
+    }
+
+    public static void writeCsv(TableData table, Writer out) throws IOException {
+        writeCsvRow(out, table.columns());
+        for (List<String> row : table.rows()) {
+            writeCsvRow(out, row);
+        }
+    }
+
+    /**
+     * Leading rows DI marked as column headers; without such hints the first row counts as a header when it
+     * has no numeric cells and the table has more than one row.
+     */
+    private int detectHeaderRows() {
+        int marked = 0;
+        boolean firstRowNumeric = false;
+        for (Cell cell : cells) {
+            if (cell.header() && cell.row() <= marked) {
+                marked = Math.max(marked, cell.row() + cell.rowSpan());
+            }
+            if (cell.row() == 0 && NUMERIC.matcher(cell.content()).matches()) {
+                firstRowNumeric = true;
+            }
+        }
+        if (marked > 0) {
+            return Math.min(marked, rowCount);
+        }
+        return rowCount > 1 && !firstRowNumeric ? 1 : 0;
+    }
+
+    private void fill(String[] row, Cell cell) {
+        int end = Math.min(cell.column() + cell.columnSpan(), columnCount);
+        for (int c = cell.column(); c < end; c++) {
+            row[c] = cell.content();
+        }
+    }
+
+    private static void writeMarkdownRow(Writer out, String[] cells) throws IOException {
+        out.write('|');
+        for (String cell : cells) {
+            out.write(' ');
+            out.write(cell.replace("|", "\\|").replace('\n', ' '));
+            out.write(" |");
+        }
+        out.write('\n');
+    }
+
+    private static void writeCsvRow(Writer out, List<String> cells) throws IOException {
+        for (int c = 0; c < cells.size(); c++) {
+            if (c > 0) {
+                out.write(',');
+            }
+            String cell = cells.get(c);
+            if (cell.indexOf(',') >= 0 || cell.indexOf('"') >= 0 || cell.indexOf('\n') >= 0
+                    || cell.indexOf('\r') >= 0) {
+                out.write('"');
+                out.write(cell.replace("\"", "\"\""));
+                out.write('"');
+            } else {
+                out.write(cell);
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private interface IoAction {
+        void run() throws IOException;
+    }
+
+    private static void unchecked(IoAction action) {
+        try {
+            action.run();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.pdfanalyzer.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON encoding of cached values. Spring's cache abstraction reads values back without a target type, so each
+ * one is stored with its class name; only this application's own classes are instantiated on the way back.
+ */
+final class StoredValues {
+
+    private static final String TRUSTED_PACKAGE = "com.example.pdfanalyzer.";
+
+    private record Envelope(String type, JsonNode value) {
+    }
+
+    private StoredValues() {
+    }
+
+    static String encode(ObjectMapper objectMapper, Object value) throws JsonProcessingException {
+        return objectMapper.writeValueAsString(new Envelope(value.getClass().getName(),
+                objectMapper.valueToTree(value)));
+    }
+
+    static Object decode(ObjectMapper objectMapper, String json)
+            throws JsonProcessingException, ClassNotFoundException {
+        Envelope envelope = objectMapper.readValue(json, Envelope.class);
+        if (envelope.type() == null || !envelope.type().startsWith(TRUSTED_PACKAGE)) {
+            throw new ClassNotFoundException("Refusing to read a cached " + envelope.type());
+        }
+        Class<?> type = Class.forName(envelope.type(), false, StoredValues.class.getClassLoader());
+        return objectMapper.treeToValue(envelope.value(), type);
+    }
+}
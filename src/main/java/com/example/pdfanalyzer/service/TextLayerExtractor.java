@@ -0,0 +1,351 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.TextLayerProperties;
+import com.example.pdfanalyzer.model.PageQuality;
+import com.example.pdfanalyzer.model.Section;
+import org.apache.pdfbox.contentstream.PDFStreamEngine;
+import org.apache.pdfbox.contentstream.operator.DrawObject;
+import org.apache.pdfbox.contentstream.operator.Operator;
+import org.apache.pdfbox.contentstream.operator.state.Concatenate;
+import org.apache.pdfbox.contentstream.operator.state.Restore;
+import org.apache.pdfbox.contentstream.operator.state.Save;
+import org.apache.pdfbox.contentstream.operator.state.SetGraphicsStateParameters;
+import org.apache.pdfbox.contentstream.operator.state.SetMatrix;
+import org.apache.pdfbox.cos.COSBase;
+import org.apache.pdfbox.cos.COSName;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.graphics.PDXObject;
+import org.apache.pdfbox.pdmodel.graphics.form.PDFormXObject;
+import org.apache.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+import org.apache.pdfbox.util.Matrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Local fast path for born-digital PDFs.
+ * <p>
+ * Each page's text layer is scored on glyph Unicode mapping, letter ratio and how much of the page is covered by
+ * images. Pages that pass are turned into {@link Section}s locally, with headings inferred from font size and
+ * weight and list items from their bullets; the rest still need OCR.
+ */
+@Service
+public class TextLayerExtractor {
+
+    private static final Logger log = LoggerFactory.getLogger(TextLayerExtractor.class);
+
+    private static final Pattern LIST_ITEM = Pattern.compile("([·•\\-*–]|\\d{1,2}[.)]|[a-z][.)])\\s+.*");
+    private static final Pattern PAGE_NUMBER = Pattern.compile(
+            "(?i)\\s*(-\\s*)?\\d{1,4}(\\s*-)?\\s*|\\s*(strona|str\\.)\\s*\\d+(\\s*(z|/)\\s*\\d+)?\\s*");
+    private static final double BLANK_IMAGE_COVERAGE = 0.05;
+    private static final double HEADING_SIZE_RATIO = 1.2;
+    private static final double TITLE_SIZE_RATIO = 1.6;
+    private static final double PARAGRAPH_GAP_RATIO = 1.6;
+
+    private final TextLayerProperties properties;
+
+    /**
+     * A page extracted from the text layer.
+     */
+    record ExtractedPage(List<Section> sections, PageQuality quality) {
+    }
+
+    /**
+     * Text-layer quality of one page; {@code accepted} pages can skip OCR.
+     */
+    record PageScore(int pageNumber, int glyphs, double mappedRatio, double letterRatio, double imageCoverage,
+            boolean accepted) {
+    }
+
+    public TextLayerExtractor(TextLayerProperties properties) {
+        this.properties = properties;
+    }
+
+    public boolean isEnabled() {
+        return properties.enabled();
+    }
+
+    /**
+     * Extracts the given pages whose text layer is good enough. Pages missing from the returned map need OCR.
+     */
+    Map<Integer, ExtractedPage> extract(PDDocument document, List<Integer> pageNumbers) throws IOException {
+        Map<Integer, ExtractedPage> extracted = new LinkedHashMap<>();
+        for (int pageNumber : pageNumbers) {
+            PDPage page = document.getPage(pageNumber - 1);
+            PageStripper stripper = new PageStripper(pageNumber);
+            stripper.getText(document);
+
+            PageScore score = score(pageNumber, stripper, imageCoverage(page));
+            log.debug("Text layer score: {}", score);
+            if (score.accepted()) {
+                extracted.put(pageNumber, toPage(pageNumber, stripper.lines));
+            }
+        }
+        log.info("Text layer accepted {} of {} pages", extracted.size(), pageNumbers.size());
+        return extracted;
+    }
+
+    private PageScore score(int pageNumber, PageStripper page, double imageCoverage) {
+        double mapped = page.glyphs > 0 ? 1.0 - (double) page.unmappedGlyphs / page.glyphs : 0.0;
+        double letters = page.glyphs > 0 ? (double) page.letterGlyphs / page.glyphs : 0.0;
+
+        boolean accepted;
+        if (imageCoverage > properties.maxImageCoverage()) {
+            // Scans, including scans with an OCR text layer of unknown quality
+            accepted = false;
+        } else if (page.glyphs == 0) {
+            // Blank page, unless a picture might hold text
+            accepted = imageCoverage < BLANK_IMAGE_COVERAGE;
+        } else if (mapped < properties.minMappedRatio() || letters < properties.minLetterRatio()) {
+            // Missing ToUnicode maps or symbol fonts: the text layer is garbled
+            accepted = false;
+        } else {
+            accepted = page.glyphs >= properties.minChars() || imageCoverage < BLANK_IMAGE_COVERAGE;
+        }
+        return new PageScore(pageNumber, page.glyphs, mapped, letters, imageCoverage, accepted);
+    }
+
+    private double imageCoverage(PDPage page) throws IOException {
+        PDRectangle box = page.getCropBox();
+        double pageArea = (double) box.getWidth() * box.getHeight();
+        if (pageArea <= 0) {
+            return 0.0;
+        }
+        ImageAreaEngine engine = new ImageAreaEngine();
+        engine.processPage(page);
+        return Math.min(1.0, engine.imageArea / pageArea);
+    }
+
+    private ExtractedPage toPage(int pageNumber, List<Line> lines) {
+        List<Section> sections = new ArrayList<>();
+        double bodySize = medianSize(lines);
+
+        StringBuilder paragraph = null;
+        String role = null;
+        Line previous = null;
+        for (Line line : lines) {
+            String text = line.text.toString().strip();
+            if (text.isEmpty() || PAGE_NUMBER.matcher(text).matches()) {
+                continue;
+            }
+
+            String lineRole = roleOf(line, text, bodySize, pageNumber, sections.isEmpty() && paragraph == null);
+            boolean listItem = LIST_ITEM.matcher(text).matches();
+            boolean continues = paragraph != null
+                    && lineRole.equals(role)
+                    && !listItem
+                    && !gapBetween(previous, line)
+                    && Math.abs(line.size() - previous.size()) <= previous.size() * 0.15;
+
+            if (continues) {
+                join(paragraph, text);
+            } else {
+                addSection(sections, role, paragraph, pageNumber);
+                paragraph = new StringBuilder(text);
+                role = lineRole;
+            }
+            previous = line;
+        }
+        addSection(sections, role, paragraph, pageNumber);
+
+        return new ExtractedPage(sections, quality(pageNumber, sections));
+    }
+
+    private String roleOf(Line line, String text, double bodySize, int pageNumber, boolean first) {
+        if (bodySize <= 0 || LIST_ITEM.matcher(text).matches()) {
+            return "paragraph";
+        }
+        if (first && pageNumber == 1 && line.size() >= bodySize * TITLE_SIZE_RATIO) {
+            return "title";
+        }
+        boolean larger = line.size() >= bodySize * HEADING_SIZE_RATIO;
+        boolean boldLabel = line.boldRatio() > 0.6 && text.length() < 120 && !text.endsWith(".")
+                && !text.endsWith(",");
+        return larger || boldLabel ? "sectionHeading" : "paragraph";
+    }
+
+    private boolean gapBetween(Line previous, Line line) {
+        double lineHeight = Math.max(previous.size(), 1.0);
+        double gap = line.y - previous.y;
+        return gap < 0 || gap > lineHeight * PARAGRAPH_GAP_RATIO;
+    }
+
+    private void join(StringBuilder paragraph, String text) {
+        int last = paragraph.length() - 1;
+        // Re-join words hyphenated across lines ("ubezpie-" + "czenia")
+        if (last > 0 && paragraph.charAt(last) == '-' && Character.isLetter(paragraph.charAt(last - 1))
+                && Character.isLowerCase(text.charAt(0))) {
+            paragraph.setLength(last);
+        } else {
+            paragraph.append(' ');
+        }
+        paragraph.append(text);
+    }
+
+    private void addSection(List<Section> sections, String role, StringBuilder paragraph, int pageNumber) {
+        if (paragraph != null && !paragraph.isEmpty()) {
+            // The text layer is exact, so there is no recognition uncertainty to report
+            sections.add(new Section(role, paragraph.toString(), pageNumber, 1.0));
+        }
+    }
+
+    private PageQuality quality(int pageNumber, List<Section> sections) {
+        int chars = 0;
+        int markers = 0;
+        int leadingMarkers = 0;
+        int words = 0;
+        for (Section section : sections) {
+            chars += section.content().length();
+            words += section.content().split("\\s+").length;
+            if (LegalStructure.STRUCTURE_MARKERS.matcher(section.content()).find()) {
+                markers++;
+            }
+            if (LegalStructure.leadingMarker(section.content()) != null) {
+                leadingMarkers++;
+            }
+        }
+        return new PageQuality(pageNumber, chars, sections.size(), markers, leadingMarkers, words,
+                words > 0 ? 1.0 : 0.0, 0, List.of());
+    }
+
+    private static double medianSize(List<Line> lines) {
+        double[] sizes = lines.stream().filter(l -> l.glyphs > 0).mapToDouble(Line::size).toArray();
+        if (sizes.length == 0) {
+            return 0.0;
+        }
+        Arrays.sort(sizes);
+        return sizes[sizes.length / 2];
+    }
+
+    private static final class Line {
+        private final StringBuilder text = new StringBuilder();
+        private double y = -1;
+        private double sizeSum;
+        private int glyphs;
+        private int boldGlyphs;
+
+        double size() {
+            return glyphs > 0 ? sizeSum / glyphs : 0.0;
+        }
+
+        double boldRatio() {
+            return glyphs > 0 ? (double) boldGlyphs / glyphs : 0.0;
+        }
+    }
+
+    /**
+     * Strips a single page into lines while counting glyph statistics.
+     */
+    private static final class PageStripper extends PDFTextStripper {
+
+        private final List<Line> lines = new ArrayList<>();
+        private Line current = new Line();
+        private int glyphs;
+        private int unmappedGlyphs;
+        private int letterGlyphs;
+
+        PageStripper(int pageNumber) {
+            setStartPage(pageNumber);
+            setEndPage(pageNumber);
+            setSortByPosition(true);
+        }
+
+        @Override
+        protected void writeString(String text, List<TextPosition> textPositions) {
+            for (TextPosition position : textPositions) {
+                String unicode = position.getUnicode();
+                if (unicode == null || unicode.isBlank()) {
+                    if (unicode == null) {
+                        glyphs++;
+                        unmappedGlyphs++;
+                    }
+                    continue;
+                }
+                glyphs++;
+                int codePoint = unicode.codePointAt(0);
+                if (codePoint == 0xFFFD || Character.getType(codePoint) == Character.PRIVATE_USE
+                        || Character.isISOControl(codePoint)) {
+                    unmappedGlyphs++;
+                } else if (Character.isLetterOrDigit(codePoint)) {
+                    letterGlyphs++;
+                }
+
+                current.glyphs++;
+                current.sizeSum += position.getFontSizeInPt();
+                String font = position.getFont() != null ? position.getFont().getName() : null;
+                if (font != null && (font.contains("Bold") || font.contains("Black") || font.contains("Heavy"))) {
+                    current.boldGlyphs++;
+                }
+                if (current.y < 0) {
+                    current.y = position.getYDirAdj();
+                }
+            }
+            current.text.append(text);
+        }
+
+        @Override
+        protected void writeWordSeparator() {
+            current.text.append(' ');
+        }
+
+        @Override
+        protected void writeLineSeparator() {
+            if (!current.text.isEmpty()) {
+                lines.add(current);
+            }
+            current = new Line();
+        }
+
+        @Override
+        protected void endPage(PDPage page) throws IOException {
+            writeLineSeparator();
+            super.endPage(page);
+        }
+    }
+
+    /**
+     * Sums the area images are drawn at, following the current transformation matrix into forms.
+     */
+    private static final class ImageAreaEngine extends PDFStreamEngine {
+
+        private double imageArea;
+
+        ImageAreaEngine() {
+            addOperator(new Concatenate(this));
+            addOperator(new DrawObject(this));
+            addOperator(new SetGraphicsStateParameters(this));
+            addOperator(new Save(this));
+            addOperator(new Restore(this));
+            addOperator(new SetMatrix(this));
+        }
+
+        @Override
+        protected void processOperator(Operator operator, List<COSBase> operands) throws IOException {
+            if ("Do".equals(operator.getName()) && !operands.isEmpty() && operands.get(0) instanceof COSName name) {
+                PDXObject xobject = getResources().getXObject(name);
+                if (xobject instanceof PDImageXObject) {
+                    Matrix ctm = getGraphicsState().getCurrentTransformationMatrix();
+                    imageArea += Math.abs((double) ctm.getScalingFactorX() * ctm.getScalingFactorY());
+                    return;
+                }
+                if (xobject instanceof PDFormXObject form) {
+                    showForm(form);
+                    return;
+                }
+            }
+            super.processOperator(operator, operands);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.pdfanalyzer.service;
 
 import com.example.pdfanalyzer.dto.ChunkedAnalysisResponse;
+import com.example.pdfanalyzer.dto.YamlConversionReport;
 import com.example.pdfanalyzer.model.Section;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLGenerator;
@@ -10,63 +14,269 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.LinkedHashMap;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+/**
+ * Exports analysis sections as YAML ({@code chunks: [{role: content}, ...]}).
+ * <p>
+ * JSON files are transcoded token by token: the parser walks to the {@code sections} array and every
+ * section is written to the YAML generator as soon as its fields are read, so memory does not grow with the
+ * document.
+ */
 @Service
 public class YamlExportService {
 
     private static final Logger log = LoggerFactory.getLogger(YamlExportService.class);
-    private final ObjectMapper yamlMapper;
 
-    public YamlExportService() {
-        YAMLFactory yamlFactory = YAMLFactory.builder()
+    private enum Outcome {
+        CONVERTED, SKIPPED
+    }
+
+    private final ObjectMapper objectMapper;
+    private final YAMLFactory yamlFactory;
+
+    public YamlExportService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+        this.yamlFactory = YAMLFactory.builder()
                 .disable(YAMLGenerator.Feature.WRITE_DOC_START_MARKER)
                 .enable(YAMLGenerator.Feature.MINIMIZE_QUOTES)
                 .build();
-        this.yamlMapper = new ObjectMapper(yamlFactory);
     }
 
     public String convertJsonToYaml(ChunkedAnalysisResponse response) {
         log.info("Converting {} sections to YAML", response.sections().size());
 
-        Map<String, Object> yamlStructure = new LinkedHashMap<>();
-        List<Map<String, String>> chunks = response.sections().stream()
-                .map(this::sectionToMap)
-                .collect(Collectors.toList());
-
-        yamlStructure.put("chunks", chunks);
-
-        try {
-            return yamlMapper.writeValueAsString(yamlStructure);
+        StringWriter yaml = new StringWriter();
+        try (JsonGenerator generator = yamlFactory.createGenerator(yaml)) {
+            startChunks(generator);
+            for (Section section : response.sections()) {
+                writeChunk(generator, section.role(), section.content());
+            }
+            endChunks(generator);
         } catch (IOException e) {
             log.error("Failed to convert to YAML", e);
-            throw new RuntimeException("Failed to convert to YAML", e);
+            throw new UncheckedIOException("Failed to convert to YAML", e);
         }
+        return yaml.toString();
     }
 
     public void convertJsonFileToYaml(Path jsonPath, Path yamlPath) throws IOException {
         log.info("Converting JSON file to YAML: {} -> {}", jsonPath, yamlPath);
 
-        // Read JSON
-        ObjectMapper jsonMapper = new ObjectMapper();
-        ChunkedAnalysisResponse response = jsonMapper.readValue(jsonPath.toFile(), ChunkedAnalysisResponse.class);
+        // Write next to the target and move into place, so an interrupted run never leaves a YAML file that
+        // looks up to date
+        Path tempPath = yamlPath.resolveSibling(yamlPath.getFileName() + ".tmp");
+        try (InputStream json = Files.newInputStream(jsonPath);
+                Writer yaml = Files.newBufferedWriter(tempPath)) {
+            transcode(json, yaml);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+        Files.move(tempPath, yamlPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("YAML file saved: {}", yamlPath);
+    }
 
-        // Convert to YAML
-        String yamlContent = convertJsonToYaml(response);
+    /**
+     * Streams the {@code sections} array of an analysis JSON document to YAML. Every other top-level field
+     * (markdown, chunks, tables, ...) is skipped without being materialized.
+     */
+    public void transcode(InputStream json, Writer yaml) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(json);
+                JsonGenerator generator = yamlFactory.createGenerator(yaml)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+            startChunks(generator);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("sections".equals(field) && value == JsonToken.START_ARRAY) {
+                    transcodeSections(parser, generator);
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            endChunks(generator);
+        }
+    }
 
-        // Write YAML
-        Files.writeString(yamlPath, yamlContent);
-        log.info("YAML file saved: {}", yamlPath);
+    /**
+     * Converts a saved analysis result to YAML and saves it next to it in the store. The JSON is still streamed;
+     * the YAML, which holds only the sections, is buffered to hand it to the store.
+     *
+     * @return the name of the saved YAML result, empty if there is no result named {@code jsonName}
+     */
+    public Optional<String> convertStoredResult(AnalysisStore store, String jsonName) throws IOException {
+        Optional<InputStream> json = store.openResult(jsonName);
+        if (json.isEmpty()) {
+            return Optional.empty();
+        }
+        String yamlName = yamlNameFor(jsonName);
+        StringWriter yaml = new StringWriter();
+        try (InputStream in = json.get()) {
+            transcode(in, yaml);
+        }
+        store.saveResult(yamlName, yaml.toString());
+        log.info("YAML result saved: {}", yamlName);
+        return Optional.of(yamlName);
+    }
+
+    /**
+     * Converts every JSON result in the store that has no YAML result yet, in parallel. Results are written once
+     * under timestamped names, so an existing YAML result is up to date.
+     */
+    public YamlConversionReport convertStoredResults(AnalysisStore store) throws IOException {
+        long start = System.nanoTime();
+        List<String> names = store.listResults();
+        Set<String> existing = Set.copyOf(names);
+        List<String> pending = names.stream()
+                .filter(name -> name.endsWith(".json") && !existing.contains(yamlNameFor(name)))
+                .toList();
+        int skipped = (int) names.stream().filter(name -> name.endsWith(".json")).count() - pending.size();
+        log.info("Converting {} stored JSON results to YAML ({} up to date)", pending.size(), skipped);
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        List<Future<Optional<String>>> results = new ArrayList<>(pending.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            for (String name : pending) {
+                results.add(executor.submit(() -> convertStoredResult(store, name)));
+            }
+        }
+
+        int converted = 0;
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (results.get(i).get().isPresent()) {
+                    converted++;
+                } else {
+                    // Expired or deleted since it was listed
+                    skipped++;
+                }
+            } catch (ExecutionException e) {
+                log.error("Failed to convert {}", pending.get(i), e.getCause());
+                failed.add(pending.get(i));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while converting stored results", e);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("YAML conversion finished: {} converted, {} up to date, {} failed in {} ms",
+                converted, skipped, failed.size(), elapsedMs);
+        return new YamlConversionReport(converted, skipped, failed, elapsedMs);
+    }
+
+    /**
+     * Converts every {@code *.json} analysis file directly inside {@code directory} in parallel. Files whose
+     * YAML is newer than the JSON are skipped.
+     */
+    public YamlConversionReport convertDirectory(Path directory) throws IOException {
+        long start = System.nanoTime();
+        List<Path> jsonFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.json")) {
+            files.forEach(jsonFiles::add);
+        }
+        log.info("Converting {} JSON files in {} to YAML", jsonFiles.size(), directory);
+
+        int parallelism = Math.max(1, Runtime.getRuntime().availableProcessors());
+        List<Future<Outcome>> results = new ArrayList<>(jsonFiles.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(parallelism)) {
+            for (Path jsonPath : jsonFiles) {
+                results.add(executor.submit(() -> convertIfStale(jsonPath)));
+            }
+        }
+
+        int converted = 0;
+        int skipped = 0;
+        List<String> failed = new ArrayList<>();
+        for (int i = 0; i < results.size(); i++) {
+            try {
+                if (results.get(i).get() == Outcome.CONVERTED) {
+                    converted++;
+                } else {
+                    skipped++;
+                }
+            } catch (ExecutionException e) {
+                log.error("Failed to convert {}", jsonFiles.get(i), e.getCause());
+                failed.add(jsonFiles.get(i).getFileName().toString());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while converting " + directory, e);
+            }
+        }
+
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("YAML conversion finished: {} converted, {} up to date, {} failed in {} ms",
+                converted, skipped, failed.size(), elapsedMs);
+        return new YamlConversionReport(converted, skipped, failed, elapsedMs);
+    }
+
+    public static Path yamlPathFor(Path jsonPath) {
+        return jsonPath.resolveSibling(yamlNameFor(jsonPath.getFileName().toString()));
+    }
+
+    public static String yamlNameFor(String jsonName) {
+        return jsonName.substring(0, jsonName.length() - ".json".length()) + ".yml";
+    }
+
+    private Outcome convertIfStale(Path jsonPath) throws IOException {
+        Path yamlPath = yamlPathFor(jsonPath);
+        if (Files.exists(yamlPath)
+                && Files.getLastModifiedTime(yamlPath).compareTo(Files.getLastModifiedTime(jsonPath)) >= 0) {
+            return Outcome.SKIPPED;
+        }
+        convertJsonFileToYaml(jsonPath, yamlPath);
+        return Outcome.CONVERTED;
+    }
+
+    private void transcodeSections(JsonParser parser, JsonGenerator generator) throws IOException {
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            String role = null;
+            String content = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "role" -> role = parser.getValueAsString();
+                    case "content" -> content = parser.getValueAsString();
+                    default -> parser.skipChildren();
+                }
+            }
+            writeChunk(generator, role, content);
+        }
+    }
+
+    private void startChunks(JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeArrayFieldStart("chunks");
+    }
+
+    private void endChunks(JsonGenerator generator) throws IOException {
+        generator.writeEndArray();
+        generator.writeEndObject();
     }
 
-    private Map<String, String> sectionToMap(Section section) {
-        Map<String, String> map = new LinkedHashMap<>();
-        map.put(section.role(), section.content());
-        return map;
+    private void writeChunk(JsonGenerator generator, String role, String content) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField(role != null ? role : "paragraph", content);
+        generator.writeEndObject();
     }
-}
\ No newline at end of file
+}
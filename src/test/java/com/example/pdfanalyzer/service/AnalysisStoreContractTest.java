@@ -0,0 +1,176 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.model.Section;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour every {@link AnalysisStore} must share. {@code store} and {@code otherInstance} use the same backend,
+ * as two replicas of the service would.
+ */
+abstract class AnalysisStoreContractTest {
+
+    protected static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    private static final Section VALUE = new Section("paragraph", "§ 1. Przedmiot umowy", 1, 0.98);
+    private static final Duration LEASE = Duration.ofMinutes(1);
+
+    protected AnalysisStore store;
+    protected AnalysisStore otherInstance;
+
+    protected abstract AnalysisStore newStore();
+
+    /**
+     * Makes a stored cache entry older than the cache TTL.
+     */
+    protected abstract void expire(String cache, String key) throws Exception;
+
+    protected void close(AnalysisStore store) {
+    }
+
+    @BeforeEach
+    void createStores() {
+        store = newStore();
+        otherInstance = newStore();
+    }
+
+    @AfterEach
+    void closeStores() {
+        close(store);
+        close(otherInstance);
+    }
+
+    @Test
+    void putValueIsReadBackAsTheSameType() {
+        store.put("documents", "a.pdf", VALUE);
+
+        assertThat(store.get("documents", "a.pdf")).contains(VALUE);
+    }
+
+    @Test
+    void valuesAreSharedBetweenInstances() {
+        store.put("documents", "a.pdf", VALUE);
+
+        assertThat(otherInstance.get("documents", "a.pdf")).contains(VALUE);
+    }
+
+    @Test
+    void missingKeyIsAMiss() {
+        assertThat(store.get("documents", "missing.pdf")).isEmpty();
+    }
+
+    @Test
+    void evictRemovesOnlyThatKey() {
+        store.put("documents", "a.pdf", VALUE);
+        store.put("documents", "b.pdf", VALUE);
+
+        store.evict("documents", "a.pdf");
+
+        assertThat(store.get("documents", "a.pdf")).isEmpty();
+        assertThat(store.get("documents", "b.pdf")).contains(VALUE);
+    }
+
+    @Test
+    void clearRemovesOnlyThatCache() {
+        store.put("documents", "a.pdf", VALUE);
+        store.put("pages", "a.pdf", VALUE);
+
+        store.clear("documents");
+
+        assertThat(store.get("documents", "a.pdf")).isEmpty();
+        assertThat(store.get("pages", "a.pdf")).contains(VALUE);
+    }
+
+    @Test
+    void expiredEntryIsAMiss() throws Exception {
+        store.put("documents", "a.pdf", VALUE);
+
+        expire("documents", "a.pdf");
+
+        assertThat(store.get("documents", "a.pdf")).isEmpty();
+    }
+
+    @Test
+    void savedResultsCanBeOpenedAndListed() throws IOException {
+        store.saveResult("a.json", "{}");
+        store.saveResult("a.md", "# A");
+
+        assertThat(read("a.md")).isEqualTo("# A");
+        assertThat(otherInstance.listResults()).containsExactlyInAnyOrder("a.json", "a.md");
+    }
+
+    @Test
+    void savingAResultAgainReplacesIt() throws IOException {
+        store.saveResult("a.md", "# A");
+        store.saveResult("a.md", "# B");
+
+        assertThat(read("a.md")).isEqualTo("# B");
+        assertThat(store.listResults()).containsExactly("a.md");
+    }
+
+    @Test
+    void missingOrOutsideResultIsEmpty() throws IOException {
+        store.saveResult("a.md", "# A");
+
+        assertThat(store.openResult("missing.md")).isEmpty();
+        assertThat(store.openResult("../a.md")).isEmpty();
+    }
+
+    @Test
+    void claimIsExclusiveUntilReleased() {
+        assertThat(store.tryAcquire("a.pdf", LEASE)).isTrue();
+        assertThat(otherInstance.tryAcquire("a.pdf", LEASE)).isFalse();
+        assertThat(store.tryAcquire("a.pdf", LEASE)).isFalse();
+
+        store.release("a.pdf");
+
+        assertThat(otherInstance.tryAcquire("a.pdf", LEASE)).isTrue();
+    }
+
+    @Test
+    void claimsOnDifferentKeysAreIndependent() {
+        assertThat(store.tryAcquire("a.pdf", LEASE)).isTrue();
+        assertThat(otherInstance.tryAcquire("b.pdf", LEASE)).isTrue();
+    }
+
+    @Test
+    void onlyTheOwnerReleasesAClaim() {
+        assertThat(store.tryAcquire("a.pdf", LEASE)).isTrue();
+
+        otherInstance.release("a.pdf");
+
+        assertThat(otherInstance.tryAcquire("a.pdf", LEASE)).isFalse();
+    }
+
+    @Test
+    void expiredClaimIsTakenOverAndKeptFromTheFormerOwner() throws InterruptedException {
+        assertThat(store.tryAcquire("a.pdf", Duration.ofMillis(100))).isTrue();
+
+        Instant deadline = Instant.now().plusSeconds(5);
+        boolean takenOver = false;
+        while (!takenOver && Instant.now().isBefore(deadline)) {
+            Thread.sleep(50);
+            takenOver = otherInstance.tryAcquire("a.pdf", LEASE);
+        }
+        assertThat(takenOver).isTrue();
+
+        // The former owner finishing late must not drop the new owner's claim
+        store.release("a.pdf");
+        assertThat(store.tryAcquire("a.pdf", LEASE)).isFalse();
+    }
+
+    private String read(String name) throws IOException {
+        try (InputStream in = otherInstance.openResult(name).orElseThrow()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.DocumentTypeProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DocumentTypeClassifierTest {
+
+    private static final String OWU_EXCERPT = """
+            Ogólne warunki ubezpieczenia następstw nieszczęśliwych wypadków (OWU). Postanowienia ogólne.
+            § 1. Niniejsze ogólne warunki ubezpieczenia stosuje się do umów ubezpieczenia zawieranych przez
+            towarzystwo z ubezpieczającymi. Ubezpieczony oznacza osobę fizyczną, na rzecz której zawarto umowę.
+            Zakres świadczenia obejmuje zwrot kosztów leczenia oraz jednorazowe świadczenie z tytułu trwałego
+            uszczerbku na zdrowiu. Suma ubezpieczenia jest określona w polisie.
+            """;
+
+    private static final String CONTRACT_EXCERPT = """
+            Umowa o świadczenie usług zawarta w dniu 12 marca 2024 roku w Warszawie pomiędzy spółką Alfa
+            sp. z o.o., zwaną dalej Zleceniodawcą, a Janem Kowalskim, zwanym dalej Wykonawcą. Strony zgodnie
+            postanawiają, co następuje. § 1. Przedmiotem umowy jest wykonanie prac projektowych. § 2. Wykonawca
+            zobowiązuje się wykonać przedmiot umowy w terminie 30 dni. Umowę sporządzono w dwóch jednobrzmiących
+            egzemplarzach, po jednym dla każdej ze stron. Podpis Zleceniodawcy. Podpis Wykonawcy.
+            """;
+
+    private DocumentTypeClassifier classifier;
+
+    @BeforeEach
+    void setUp() {
+        classifier = new DocumentTypeClassifier(new DocumentTypeProperties(0.9, 0.0, null, 10, 60_000),
+                new SimpleMeterRegistry(), new ObjectMapper());
+    }
+
+    @AfterEach
+    void tearDown() {
+        classifier.shutdown();
+    }
+
+    @Test
+    void termsAndConditionsExcerptIsNotOther() {
+        DocumentTypeClassifier.Prediction prediction = classifier.classify(OWU_EXCERPT);
+
+        assertThat(prediction.label()).isEqualTo("TERMS_AND_CONDITIONS");
+    }
+
+    @Test
+    void contractExcerptIsNotOther() {
+        DocumentTypeClassifier.Prediction prediction = classifier.classify(CONTRACT_EXCERPT);
+
+        assertThat(prediction.label()).isEqualTo("CONTRACT");
+    }
+
+    @Test
+    void unknownWordsDoNotMakeAConfidentGuess() {
+        String excerpt = "Przedmiotem niniejszego opracowania jest szczegółowy opis przebiegu prac budowlanych "
+                + "prowadzonych na terenie inwestycji wraz z zestawieniem zużytych materiałów i harmonogramem dostaw.";
+
+        DocumentTypeClassifier.Prediction prediction = classifier.classify(excerpt);
+
+        assertThat(classifier.isConfident(prediction)).isFalse();
+    }
+
+    @Test
+    void keywordsInALongExcerptOutweighUnknownWords() {
+        String filler = " szczegółowy opis przebiegu prac prowadzonych na terenie inwestycji".repeat(40);
+
+        DocumentTypeClassifier.Prediction prediction = classifier.classify(CONTRACT_EXCERPT + filler);
+
+        assertThat(prediction.label()).isEqualTo("CONTRACT");
+    }
+}
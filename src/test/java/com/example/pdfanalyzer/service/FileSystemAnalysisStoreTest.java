@@ -0,0 +1,55 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.StoreProperties;
+import com.example.pdfanalyzer.model.Section;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileSystemAnalysisStoreTest extends AnalysisStoreContractTest {
+
+    @TempDir
+    Path dir;
+
+    @Override
+    protected AnalysisStore newStore() {
+        return new FileSystemAnalysisStore(new StoreProperties("filesystem", dir.resolve("store").toString(),
+                dir.resolve("results").toString(), 1, 0, 60_000, 100, null), OBJECT_MAPPER);
+    }
+
+    @Override
+    protected void expire(String cache, String key) throws IOException {
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofHours(2)));
+        try (Stream<Path> entries = Files.list(dir.resolve("store/cache").resolve(cache))) {
+            for (Path entry : entries.toList()) {
+                Files.setLastModifiedTime(entry, old);
+            }
+        }
+    }
+
+    @Override
+    protected void close(AnalysisStore store) {
+        ((FileSystemAnalysisStore) store).close();
+    }
+
+    @Test
+    void sweepDeletesExpiredEntriesThatAreNeverRead() throws IOException {
+        store.put("documents", "a.pdf", new Section("paragraph", "Treść", 1, null));
+        expire("documents", "a.pdf");
+
+        ((FileSystemAnalysisStore) store).sweepExpired();
+
+        try (Stream<Path> entries = Files.list(dir.resolve("store/cache/documents"))) {
+            assertThat(entries).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.pdfanalyzer.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HnswIndexTest {
+
+    private static final String[] WORDS = {
+            "umowa", "ubezpieczenie", "świadczenie", "polisa", "szkoda", "wypadek", "leczenie", "suma",
+            "składka", "okres", "ochrona", "wyłączenie", "odpowiedzialność", "zgłoszenie", "termin",
+            "wypłata", "uszczerbek", "zdrowie", "ubezpieczony", "ubezpieczający", "towarzystwo", "rok",
+            "miesiąc", "dzień", "koszt", "zwrot", "pojazd", "mieszkanie", "bagaż", "podróż"};
+
+    private final FakeEmbeddingModel embeddingModel = new FakeEmbeddingModel(64);
+    private final List<float[]> vectors = new ArrayList<>();
+
+    @TempDir
+    Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(11);
+        for (int i = 0; i < 500; i++) {
+            StringBuilder text = new StringBuilder();
+            for (int w = 0; w < 12; w++) {
+                text.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+            }
+            vectors.add(embeddingModel.embed(text.toString()));
+        }
+    }
+
+    @Test
+    void findsEveryIndexedVectorAsItsOwnNearestNeighbour() {
+        HnswIndex index = build();
+
+        long found = IntStream.range(0, vectors.size())
+                .filter(i -> index.search(vectors.get(i), 1, 50).get(0).node() == i)
+                .count();
+
+        assertThat(found).isGreaterThanOrEqualTo(vectors.size() * 98L / 100);
+    }
+
+    @Test
+    void recallAgainstExactSearchIsHigh() {
+        HnswIndex index = build();
+        Random random = new Random(3);
+
+        int hits = 0;
+        int total = 0;
+        for (int q = 0; q < 50; q++) {
+            float[] query = embeddingModel.embed(WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]);
+            List<Integer> exact = exactTopK(query, 10);
+            List<Integer> approximate = index.search(query, 10, 64).stream().map(HnswIndex.Neighbor::node).toList();
+            hits += (int) approximate.stream().filter(exact::contains).count();
+            total += exact.size();
+        }
+
+        assertThat((double) hits / total).isGreaterThanOrEqualTo(0.9);
+    }
+
+    @Test
+    void loadedIndexReturnsTheSameNeighbours() throws IOException {
+        HnswIndex index = build();
+        Path file = tempDir.resolve("chunks-1.hnsw");
+        index.save(file);
+
+        HnswIndex loaded = new HnswIndex(8, 64);
+        loaded.load(file);
+
+        assertThat(loaded.size()).isEqualTo(index.size());
+        for (int i = 0; i < vectors.size(); i += 25) {
+            assertThat(loaded.search(vectors.get(i), 5, 50)).isEqualTo(index.search(vectors.get(i), 5, 50));
+        }
+    }
+
+    @Test
+    void vectorsAddedAfterLoadAreSavedWithTheMappedOnes() throws IOException {
+        HnswIndex index = build();
+        Path first = tempDir.resolve("chunks-1.hnsw");
+        index.save(first);
+        HnswIndex loaded = new HnswIndex(8, 64);
+        loaded.load(first);
+
+        float[] added = embeddingModel.embed("zupełnie nowy dokument o kredycie hipotecznym");
+        int node = loaded.add(added);
+        Path second = tempDir.resolve("chunks-2.hnsw");
+        loaded.save(second);
+        HnswIndex reloaded = new HnswIndex(8, 64);
+        reloaded.load(second);
+
+        assertThat(node).isEqualTo(vectors.size());
+        assertThat(reloaded.size()).isEqualTo(vectors.size() + 1);
+        assertThat(reloaded.search(added, 1, 50).get(0).node()).isEqualTo(node);
+        assertThat(reloaded.search(vectors.get(7), 5, 50)).isEqualTo(loaded.search(vectors.get(7), 5, 50));
+    }
+
+    private HnswIndex build() {
+        HnswIndex index = new HnswIndex(8, 64);
+        vectors.forEach(index::add);
+        return index;
+    }
+
+    private List<Integer> exactTopK(float[] query, int k) {
+        return IntStream.range(0, vectors.size()).boxed()
+                .sorted(Comparator.comparingDouble(i -> -cosine(query, vectors.get(i))))
+                .limit(k)
+                .toList();
+    }
+
+    private static double cosine(float[] a, float[] b) {
+        double dot = 0;
+        double normA = 0;
+        double normB = 0;
+        for (int i = 0; i < a.length; i++) {
+            dot += a[i] * b[i];
+            normA += a[i] * a[i];
+            normB += b[i] * b[i];
+        }
+        return dot / (Math.sqrt(normA) * Math.sqrt(normB));
+    }
+}
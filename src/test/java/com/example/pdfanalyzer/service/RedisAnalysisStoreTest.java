@@ -0,0 +1,68 @@
+package com.example.pdfanalyzer.service;
+
+import com.example.pdfanalyzer.config.StoreProperties;
+import com.example.pdfanalyzer.model.Section;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the store contract against a Redis container; skipped where Docker is not available.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class RedisAnalysisStoreTest extends AnalysisStoreContractTest {
+
+    @Container
+    private static final GenericContainer<?> REDIS = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redis;
+
+    // Every test gets its own key space on the shared server
+    private final String prefix = "test-" + UUID.randomUUID() + ":";
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(REDIS.getHost(), REDIS.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redis = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @Override
+    protected AnalysisStore newStore() {
+        return new RedisAnalysisStore(redis, new StoreProperties("redis", null, null, 1, 1, 60_000, 100, prefix),
+                OBJECT_MAPPER);
+    }
+
+    @Override
+    protected void expire(String cache, String key) throws InterruptedException {
+        redis.expire(prefix + "cache:" + cache + ":" + key, Duration.ofMillis(1));
+        Thread.sleep(20);
+    }
+
+    @Test
+    void cacheEntriesAndResultsCarryTheirTtl() throws Exception {
+        store.put("documents", "a.pdf", new Section("paragraph", "Treść", 1, null));
+        store.saveResult("a.md", "# A");
+
+        assertThat(redis.getExpire(prefix + "cache:documents:a.pdf")).isPositive();
+        assertThat(redis.getExpire(prefix + "result:a.md")).isPositive();
+    }
+}
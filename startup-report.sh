@@ -0,0 +1,83 @@
+#!/bin/bash
+
+# Startup time and peak RSS before and after the fast-start work, for the web or cli mode:
+#   before  the tree just before the fast-start build was added (or BASELINE_REF), built in a git worktree
+#   after   the regular jar of the current tree (lazy AI clients)
+#   fast    the fast-start build of the current tree (lazy AI clients + Spring AOT + CDS)
+# Usage: ./startup-report.sh web|cli [runs]      Needs GNU time (/usr/bin/time).
+
+MODE=${1:-web}
+RUNS=${2:-3}
+if [ "$MODE" != "web" ] && [ "$MODE" != "cli" ]; then
+    echo "Usage: $0 web|cli [runs]"
+    exit 1
+fi
+if [ ! -x /usr/bin/time ]; then
+    echo "❌ GNU time (/usr/bin/time) is required to measure peak RSS"
+    exit 1
+fi
+PROFILES=local,$MODE
+BASELINE_REF=${BASELINE_REF:-$(git log -1 --format=%H -S'<id>fast-start</id>' -- pom.xml)^}
+
+# Startup never calls Azure or the LLM providers; real credentials are only needed to analyze.
+# The baseline still creates the Azure OpenAI client at startup, so it needs its settings as well.
+export AZURE_DOC_INTELLIGENCE_ENDPOINT=${AZURE_DOC_INTELLIGENCE_ENDPOINT:-https://startup-report.invalid}
+export AZURE_DOC_INTELLIGENCE_KEY=${AZURE_DOC_INTELLIGENCE_KEY:-startup-report}
+export AZURE_OPENAI_ENDPOINT=${AZURE_OPENAI_ENDPOINT:-https://startup-report.invalid}
+export AZURE_OPENAI_API_KEY=${AZURE_OPENAI_API_KEY:-startup-report}
+export SPRING_AI_OPENAI_API_KEY=${SPRING_AI_OPENAI_API_KEY:-startup-report}
+export SPRING_AI_ANTHROPIC_API_KEY=${SPRING_AI_ANTHROPIC_API_KEY:-startup-report}
+
+WORK=$(mktemp -d)
+cleanup() {
+    git worktree remove --force "$WORK/baseline" >/dev/null 2>&1
+    rm -rf "$WORK"
+}
+trap cleanup EXIT
+
+# Every variant is measured the same way, since the baseline has no startup report of its own: the time
+# from Spring Boot's "Started" line and the peak RSS from GNU time. Web runs are stopped once started; cli
+# runs get an input file that does not exist, so the runner returns and the application exits by itself.
+measure() {
+    local label=$1
+    shift
+    local args=()
+    if [ "$MODE" = "cli" ]; then
+        args=(startup-report-missing.pdf)
+    fi
+    for run in $(seq "$RUNS"); do
+        local log="$WORK/run.log"
+        /usr/bin/time -f 'maxrss %M' -o "$log.rss" "$@" --spring.profiles.active="$PROFILES" "${args[@]}" \
+            > "$log" 2>&1 &
+        local timer=$!
+        if [ "$MODE" = "web" ]; then
+            until grep -q 'Started PdfAnalyzerApplication' "$log" || ! kill -0 "$timer" 2>/dev/null; do
+                sleep 0.2
+            done
+            pkill -TERM -P "$timer"
+        fi
+        wait "$timer"
+        local started
+        started=$(grep -o 'Started PdfAnalyzerApplication in .*)' "$log")
+        echo "$label run $run: ${started:-no start logged}, peak RSS $(awk '/maxrss/ { printf "%d MB", $2 / 1024 }' "$log.rss")"
+    done
+}
+
+echo "Building baseline ($BASELINE_REF)..."
+git worktree add --detach "$WORK/baseline" "$BASELINE_REF" >/dev/null || { echo "❌ Cannot check out $BASELINE_REF"; exit 1; }
+(cd "$WORK/baseline" && mvn -q clean package -DskipTests) || { echo "❌ Maven build failed"; exit 1; }
+cp "$WORK"/baseline/target/pdf-analyzer-*.jar "$WORK/before.jar"
+
+echo "Building regular jar..."
+mvn -q clean package -DskipTests || { echo "❌ Maven build failed"; exit 1; }
+cp target/pdf-analyzer-*.jar "$WORK/after.jar"
+
+echo "Building fast-start ($PROFILES)..."
+mvn -q clean package -DskipTests -Pfast-start -Daot.profiles="$PROFILES" || { echo "❌ Maven build failed"; exit 1; }
+
+echo "Mode: $MODE"
+measure "before" java -jar "$WORK/before.jar"
+measure "after " java -jar "$WORK/after.jar"
+# The CDS archive is only valid with the classpath it was recorded with, so run from its directory
+(cd target/fast-start && measure "fast  " java -XX:SharedArchiveFile=app.jsa -Dspring.aot.enabled=true \
+    -jar pdf-analyzer-*-fast-start.jar)